@@ -0,0 +1,133 @@
+-- ----------------------------
+-- 1、设备待重新锁定表（紧急解锁后到期自动重新锁定，重启后重新加载）
+-- ----------------------------
+drop table if exists rpm_device_relock;
+create table rpm_device_relock (
+  device_id         bigint(20)      not null                   comment '设备ID',
+  relock_time       datetime        not null                   comment '重新锁定时间',
+  create_time       datetime                                   comment '创建时间',
+  primary key (device_id)
+) engine=innodb comment = '设备待重新锁定表';
+
+
+-- ----------------------------
+-- 2、设备状态变更记录表（只追加，按保留天数清理）
+-- ----------------------------
+drop table if exists rpm_device_state_log;
+create table rpm_device_state_log (
+  id                bigint(20)      not null auto_increment    comment '记录ID',
+  device_id         bigint(20)      not null                   comment '设备ID',
+  state_type        char(1)         not null                   comment '状态类型（0在线状态 1锁定状态 2锁定事件）',
+  state_value       int(1)          default 0                  comment '状态值（1在线/锁定 0离线/解锁）',
+  event_time        datetime        not null                   comment '发生时间',
+  primary key (id),
+  key idx_rpm_device_state_log_de (device_id, event_time),
+  key idx_rpm_device_state_log_et (event_time)
+) engine=innodb comment = '设备状态变更记录表';
+
+
+-- ----------------------------
+-- 3、设备状态汇总表（按小时、按天预聚合，看板查询只扫描汇总）
+-- ----------------------------
+drop table if exists rpm_device_state_rollup;
+create table rpm_device_state_rollup (
+  device_id         bigint(20)      not null                   comment '设备ID',
+  bucket_type       char(1)         not null                   comment '汇总粒度（H小时 D天）',
+  bucket_time       datetime        not null                   comment '时间段起点',
+  online_seconds    bigint(20)      default 0                  comment '在线时长（秒）',
+  locked_seconds    bigint(20)      default 0                  comment '锁定时长（秒）',
+  lock_count        bigint(20)      default 0                  comment '锁定事件次数',
+  transition_count  bigint(20)      default 0                  comment '状态变更次数',
+  primary key (device_id, bucket_type, bucket_time),
+  key idx_rpm_device_state_rollup_bt (bucket_type, bucket_time)
+) engine=innodb comment = '设备状态汇总表';
+
+
+-- ----------------------------
+-- 4、设备状态历史清理任务（每天凌晨按保留天数清理变更记录与汇总）
+-- ----------------------------
+insert into sys_job (job_name, job_group, invoke_target, cron_expression, misfire_policy, concurrent, status, create_by, create_time, remark)
+values ('设备状态历史清理', 'SYSTEM', 'deviceTask.purgeDeviceHistory', '0 30 3 * * ?', '3', '1', '0', 'admin', sysdate(), '保留天数见device.history配置');
+
+
+-- ----------------------------
+-- 5、锁定信息分页索引（按锁定时间、主键倒序的游标分页，按设备筛选时同样有序）
+-- ----------------------------
+create index idx_rpm_lockevents_li on rpm_lockevents (locked_at, id);
+create index idx_rpm_lockevents_dli on rpm_lockevents (device_id, locked_at, id);
+
+
+-- ----------------------------
+-- 6、操作日志、登录日志按月分区（分区键须包含在主键中，时间列改为非空）
+-- 月份分区pYYYYMM由logTask.purgeLogs从p_future中拆分创建，超过保留期的分区整体删除
+-- ----------------------------
+update sys_oper_log set oper_time = sysdate() where oper_time is null;
+alter table sys_oper_log modify oper_time datetime not null comment '操作时间',
+  drop primary key, add primary key (oper_id, oper_time);
+alter table sys_oper_log partition by range (to_days(oper_time)) (
+  partition p_future values less than maxvalue
+);
+create index idx_sys_oper_log_not on sys_oper_log (oper_name, oper_time);
+create index idx_sys_oper_log_oi  on sys_oper_log (oper_ip);
+create index idx_sys_oper_log_t   on sys_oper_log (title);
+
+update sys_logininfor set login_time = sysdate() where login_time is null;
+alter table sys_logininfor modify login_time datetime not null comment '访问时间',
+  drop primary key, add primary key (info_id, login_time);
+alter table sys_logininfor partition by range (to_days(login_time)) (
+  partition p_future values less than maxvalue
+);
+create index idx_sys_logininfor_lnlt on sys_logininfor (login_name, login_time);
+create index idx_sys_logininfor_ip   on sys_logininfor (ipaddr);
+
+insert into sys_job (job_name, job_group, invoke_target, cron_expression, misfire_policy, concurrent, status, create_by, create_time, remark)
+values ('日志分区维护与清理', 'SYSTEM', 'logTask.purgeLogs', '0 0 2 * * ?', '3', '1', '0', 'admin', sysdate(), '保留月数见operlog、logininfor配置');
+
+
+-- ----------------------------
+-- 7、操作日志全文索引构建任务（启动时构建中断后每小时从中断处继续，已就绪时跳过；已清理的日志由logTask.purgeLogs从索引中删除）
+-- ----------------------------
+insert into sys_job (job_name, job_group, invoke_target, cron_expression, misfire_policy, concurrent, status, create_by, create_time, remark)
+values ('操作日志索引构建', 'SYSTEM', 'logTask.rebuildOperLogIndex', '0 15 * * * ?', '3', '1', '0', 'admin', sysdate(), '索引未就绪时从中断处继续构建');
+
+
+-- ----------------------------
+-- 8、共享会话存储（shiro.session.store为database时使用，多个应用节点共享会话和用户会话列表）
+-- ----------------------------
+drop table if exists sys_session_store;
+create table sys_session_store (
+  store_key         varchar(128)    not null                   comment '键',
+  version           bigint(20)      not null                   comment '版本号（每次写入重新生成）',
+  store_value       mediumblob                                 comment '值',
+  expire_time       bigint(20)      not null                   comment '过期时间（毫秒时间戳）',
+  primary key (store_key),
+  key idx_sys_session_store_et (expire_time)
+) engine=innodb comment = '共享会话存储';
+
+
+-- ----------------------------
+-- 9、在线用户按最后访问时间索引（过期会话按最后访问时间、会话ID分批检查）
+-- ----------------------------
+create index idx_sys_user_online_lat on sys_user_online (last_access_time, sessionId);
+
+
+-- ----------------------------
+-- 10、部门闭包表（每个部门与自身及全部上级部门各一行，下级部门查询和数据权限按上级部门ID走主键索引）
+-- 部门新增、移动时由DeptServiceImpl在同一事务中维护，按现有parent_id递归初始化（MySQL 8）
+-- ----------------------------
+drop table if exists sys_dept_closure;
+create table sys_dept_closure (
+  ancestor_id       bigint(20)      not null                   comment '上级部门id',
+  descendant_id     bigint(20)      not null                   comment '下级部门id',
+  depth             int(4)          not null                   comment '层级距离（0为部门自身）',
+  primary key (ancestor_id, descendant_id),
+  key idx_sys_dept_closure_d (descendant_id)
+) engine=innodb comment = '部门闭包表';
+
+insert into sys_dept_closure (ancestor_id, descendant_id, depth)
+with recursive t (ancestor_id, descendant_id, depth) as (
+  select dept_id, dept_id, 0 from sys_dept
+  union all
+  select t.ancestor_id, d.dept_id, t.depth + 1 from t inner join sys_dept d on d.parent_id = t.descendant_id
+)
+select ancestor_id, descendant_id, depth from t;
@@ -76,4 +76,9 @@ public class ShiroConstants
      * 系统活跃用户缓存
      */
     public static final String SYS_USERCACHE = "sys-userCache";
+
+    /**
+     * 会话已加入用户会话列表的标记
+     */
+    public static final String SESSION_ADMITTED = "sessionAdmitted";
 }
\ No newline at end of file
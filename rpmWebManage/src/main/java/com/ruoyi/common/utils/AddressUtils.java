@@ -1,14 +1,21 @@
 package com.ruoyi.common.utils;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.alibaba.fastjson.JSONObject;
 import com.ruoyi.common.constant.Constants;
 import com.ruoyi.common.utils.http.HttpUtils;
 import com.ruoyi.framework.config.RuoYiConfig;
+import com.ruoyi.framework.manager.AsyncManager;
 
 /**
- * 获取地址类
+ * 获取地址类（本地缓存 -> 离线地址库 -> 异步远程查询）
  * 
  * @author ruoyi
  */
@@ -22,6 +29,32 @@ public class AddressUtils
     // 未知地址
     public static final String UNKNOWN = "XX XX";
 
+    // 缓存的最大IP数量
+    private static final int CACHE_SIZE = 10000;
+
+    // 缓存有效期
+    private static final long CACHE_TTL = TimeUnit.HOURS.toMillis(24);
+
+    // IP -> 地址，按访问顺序淘汰最久未使用的IP
+    private static final Map<String, CachedAddress> CACHE = new LinkedHashMap<String, CachedAddress>(256, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedAddress> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // 正在远程查询的IP，同一IP只查询一次
+    private static final Set<String> RESOLVING = ConcurrentHashMap.newKeySet();
+
+    // 离线地址库，未配置或加载失败时为null
+    private static volatile IpRegionDatabase database;
+
+    private static volatile boolean databaseLoaded;
+
     public static String getRealAddressByIP(String ip)
     {
         // 内网不查询
@@ -29,26 +62,151 @@ public class AddressUtils
         {
             return "内网IP";
         }
-        if (RuoYiConfig.isAddressEnabled())
+        if (!RuoYiConfig.isAddressEnabled())
+        {
+            return UNKNOWN;
+        }
+        String address = getCache(ip);
+        if (address != null)
         {
-            try
+            return address;
+        }
+        IpRegionDatabase db = getDatabase();
+        address = db == null ? null : db.search(ip);
+        if (address != null)
+        {
+            putCache(ip, address);
+            return address;
+        }
+        // 离线地址库未收录时异步远程查询，本次先返回未知地址，查询完成后由缓存命中
+        resolveRemote(ip);
+        return UNKNOWN;
+    }
+
+    private static void resolveRemote(final String ip)
+    {
+        if (!RESOLVING.add(ip))
+        {
+            return;
+        }
+        try
+        {
+            AsyncManager.me().execute(new TimerTask()
             {
-                String rspStr = HttpUtils.sendGet(IP_URL, "ip=" + ip + "&json=true", Constants.GBK);
-                if (StringUtils.isEmpty(rspStr))
+                @Override
+                public void run()
                 {
-                    log.error("获取地理位置异常 {}", ip);
-                    return UNKNOWN;
+                    try
+                    {
+                        String address = queryRemote(ip);
+                        if (address != null)
+                        {
+                            putCache(ip, address);
+                        }
+                    }
+                    finally
+                    {
+                        RESOLVING.remove(ip);
+                    }
                 }
-                JSONObject obj = JSONObject.parseObject(rspStr);
-                String region = obj.getString("pro");
-                String city = obj.getString("city");
-                return String.format("%s %s", region, city);
+            });
+        }
+        catch (Exception e)
+        {
+            RESOLVING.remove(ip);
+            log.error("获取地理位置异常 {}", ip, e);
+        }
+    }
+
+    private static String queryRemote(String ip)
+    {
+        try
+        {
+            String rspStr = HttpUtils.sendGet(IP_URL, "ip=" + ip + "&json=true", Constants.GBK);
+            if (StringUtils.isEmpty(rspStr))
+            {
+                log.error("获取地理位置异常 {}", ip);
+                return null;
             }
-            catch (Exception e)
+            JSONObject obj = JSONObject.parseObject(rspStr);
+            String region = obj.getString("pro");
+            String city = obj.getString("city");
+            return String.format("%s %s", region, city);
+        }
+        catch (Exception e)
+        {
+            log.error("获取地理位置异常 {}", ip, e);
+        }
+        return null;
+    }
+
+    private static IpRegionDatabase getDatabase()
+    {
+        if (!databaseLoaded)
+        {
+            synchronized (AddressUtils.class)
             {
-                log.error("获取地理位置异常 {}", e);
+                if (!databaseLoaded)
+                {
+                    String path = RuoYiConfig.getAddressDbPath();
+                    if (StringUtils.isNotEmpty(path))
+                    {
+                        try
+                        {
+                            database = IpRegionDatabase.load(path);
+                            log.info("加载离线IP地址库{}，地址段{}个", path, database.size());
+                        }
+                        catch (Exception e)
+                        {
+                            log.error("加载离线IP地址库失败 {}", path, e);
+                        }
+                    }
+                    databaseLoaded = true;
+                }
             }
         }
-        return UNKNOWN;
+        return database;
+    }
+
+    private static String getCache(String ip)
+    {
+        synchronized (CACHE)
+        {
+            CachedAddress cached = CACHE.get(ip);
+            if (cached == null)
+            {
+                return null;
+            }
+            if (cached.expireTime < System.currentTimeMillis())
+            {
+                CACHE.remove(ip);
+                return null;
+            }
+            return cached.address;
+        }
+    }
+
+    private static void putCache(String ip, String address)
+    {
+        synchronized (CACHE)
+        {
+            CACHE.put(ip, new CachedAddress(address, System.currentTimeMillis() + CACHE_TTL));
+        }
+    }
+
+    /**
+     * 缓存的地址及过期时间
+     */
+    private static class CachedAddress
+    {
+        private final String address;
+
+        private final long expireTime;
+
+        private CachedAddress(String address, long expireTime)
+        {
+            this.address = address;
+            this.expireTime = expireTime;
+        }
     }
 }
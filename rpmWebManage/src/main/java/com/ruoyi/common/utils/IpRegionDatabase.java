@@ -0,0 +1,243 @@
+package com.ruoyi.common.utils;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 离线IP地址库（内存映射文件，按起始IP排序的地址段上二分查找）
+ *
+ * 文件格式（大端序）：
+ * int 地址段数量n，int 地址名称数量m；
+ * n个地址段（int 起始IP，int 结束IP，int 地址名称序号），按起始IP无符号升序；
+ * m个地址名称（short 字节长度，UTF-8字节）。
+ *
+ * @author ruoyi
+ */
+public class IpRegionDatabase
+{
+    /** 单个地址段占用的字节数 */
+    private static final int RECORD_SIZE = 12;
+
+    /** 文件头占用的字节数 */
+    private static final int HEADER_SIZE = 8;
+
+    private final MappedByteBuffer buffer;
+
+    private final int count;
+
+    private final String[] regions;
+
+    private IpRegionDatabase(MappedByteBuffer buffer, int count, String[] regions)
+    {
+        this.buffer = buffer;
+        this.count = count;
+        this.regions = regions;
+    }
+
+    /**
+     * 以只读方式映射地址库文件
+     *
+     * @param path 地址库文件路径
+     * @return 地址库
+     * @throws IOException 文件不存在或格式错误
+     */
+    public static IpRegionDatabase load(String path) throws IOException
+    {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r"); FileChannel channel = file.getChannel())
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = buffer.getInt(0);
+            int regionCount = buffer.getInt(4);
+            long regionOffset = HEADER_SIZE + (long) count * RECORD_SIZE;
+            if (count < 0 || regionCount < 0 || regionOffset > buffer.capacity())
+            {
+                throw new IOException("IP地址库格式错误：" + path);
+            }
+            // 地址名称数量少，加载时一次解码，查询时不再分配对象
+            ByteBuffer names = buffer.duplicate();
+            names.position((int) regionOffset);
+            String[] regions = new String[regionCount];
+            for (int i = 0; i < regionCount; i++)
+            {
+                byte[] bytes = new byte[names.getShort() & 0xFFFF];
+                names.get(bytes);
+                regions[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return new IpRegionDatabase(buffer, count, regions);
+        }
+    }
+
+    /**
+     * 查询IPv4地址所属地区
+     *
+     * @param ip IPv4地址
+     * @return 地区，未收录返回null
+     */
+    public String search(String ip)
+    {
+        byte[] bytes = IpUtils.textToNumericFormatV4(ip);
+        if (bytes == null)
+        {
+            return null;
+        }
+        long value = toLong(bytes);
+        // 查找起始IP不大于目标IP的最后一个地址段
+        int low = 0;
+        int high = count - 1;
+        int found = -1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (startIp(mid) <= value)
+            {
+                found = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        if (found < 0 || value > unsigned(buffer.getInt(HEADER_SIZE + found * RECORD_SIZE + 4)))
+        {
+            return null;
+        }
+        int index = buffer.getInt(HEADER_SIZE + found * RECORD_SIZE + 8);
+        return index >= 0 && index < regions.length ? regions[index] : null;
+    }
+
+    /**
+     * 地址段数量
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    private long startIp(int index)
+    {
+        return unsigned(buffer.getInt(HEADER_SIZE + index * RECORD_SIZE));
+    }
+
+    private static long unsigned(int value)
+    {
+        return value & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 命令行转换地址库，参数为文本地址库路径和生成的二进制地址库路径
+     *
+     * java -cp ruoyi.jar -Dloader.main=com.ruoyi.common.utils.IpRegionDatabase org.springframework.boot.loader.PropertiesLauncher ip.merge.txt ip.db
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            System.err.println("用法：IpRegionDatabase <文本地址库> <二进制地址库>");
+            System.exit(1);
+        }
+        File target = new File(args[1]);
+        convert(new File(args[0]), target);
+        System.out.println("已生成" + target.getAbsolutePath() + "，地址段" + load(target.getPath()).size() + "个");
+    }
+
+    /**
+     * 将文本地址库转换为二进制地址库
+     *
+     * 文本每行格式：起始IP|结束IP|国家|区域|省份|城市|运营商，名称字段中的0视为空，
+     * 省份和城市均为空时取国家。
+     *
+     * @param source 文本地址库
+     * @param target 生成的二进制地址库
+     * @throws IOException 读写失败
+     */
+    public static void convert(File source, File target) throws IOException
+    {
+        List<long[]> ranges = new ArrayList<long[]>();
+        Map<String, Integer> regionIndex = new LinkedHashMap<String, Integer>();
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                String[] fields = line.split("\\|");
+                if (fields.length < 3)
+                {
+                    continue;
+                }
+                byte[] start = IpUtils.textToNumericFormatV4(fields[0].trim());
+                byte[] end = IpUtils.textToNumericFormatV4(fields[1].trim());
+                if (start == null || end == null)
+                {
+                    continue;
+                }
+                String region = regionName(fields);
+                Integer index = regionIndex.get(region);
+                if (index == null)
+                {
+                    index = regionIndex.size();
+                    regionIndex.put(region, index);
+                }
+                ranges.add(new long[] { toLong(start), toLong(end), index });
+            }
+        }
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(target)))
+        {
+            out.writeInt(ranges.size());
+            out.writeInt(regionIndex.size());
+            for (long[] range : ranges)
+            {
+                out.writeInt((int) range[0]);
+                out.writeInt((int) range[1]);
+                out.writeInt((int) range[2]);
+            }
+            for (String region : regionIndex.keySet())
+            {
+                byte[] bytes = region.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String regionName(String[] fields)
+    {
+        String country = field(fields, 2);
+        String province = field(fields, 4);
+        String city = field(fields, 5);
+        if (StringUtils.isEmpty(province) && StringUtils.isEmpty(city))
+        {
+            return StringUtils.isEmpty(country) ? AddressUtils.UNKNOWN : country;
+        }
+        return String.format("%s %s", province, city).trim();
+    }
+
+    private static String field(String[] fields, int index)
+    {
+        if (index >= fields.length || "0".equals(fields[index].trim()))
+        {
+            return "";
+        }
+        return fields[index].trim();
+    }
+
+    private static long toLong(byte[] bytes)
+    {
+        return ((bytes[0] & 0xFFL) << 24) | ((bytes[1] & 0xFFL) << 16) | ((bytes[2] & 0xFFL) << 8) | (bytes[3] & 0xFFL);
+    }
+}
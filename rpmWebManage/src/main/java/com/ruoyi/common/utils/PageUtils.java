@@ -1,5 +1,6 @@
 package com.ruoyi.common.utils;
 
+import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.ruoyi.common.utils.sql.SqlUtil;
 import com.ruoyi.framework.web.page.PageDomain;
@@ -16,13 +17,25 @@ public class PageUtils extends PageHelper
      * 设置请求分页数据
      */
     public static void startPage()
+    {
+        startPage(true);
+    }
+
+    /**
+     * 设置请求分页数据
+     * 
+     * @param count 是否执行count查询，大表可关闭后自行估算总数
+     */
+    public static void startPage(boolean count)
     {
         PageDomain pageDomain = TableSupport.buildPageRequest();
         Integer pageNum = pageDomain.getPageNum();
         Integer pageSize = pageDomain.getPageSize();
         String orderBy = SqlUtil.escapeOrderBySql(pageDomain.getOrderBy());
         Boolean reasonable = pageDomain.getReasonable();
-        PageHelper.startPage(pageNum, pageSize, orderBy).setReasonable(reasonable);
+        Page<Object> page = PageHelper.startPage(pageNum, pageSize, count);
+        page.setOrderBy(orderBy);
+        page.setReasonable(reasonable);
     }
 
     /**
@@ -1,8 +1,12 @@
 package com.ruoyi.common.utils;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import com.ruoyi.project.system.menu.domain.Menu;
 
 /**
@@ -21,57 +25,43 @@ public class TreeUtils
      */
     public static List<Menu> getChildPerms(List<Menu> list, int parentId)
     {
-        List<Menu> returnList = new ArrayList<Menu>();
-        for (Iterator<Menu> iterator = list.iterator(); iterator.hasNext();)
-        {
-            Menu t = (Menu) iterator.next();
-            // 一、根据传入的某个父节点ID,遍历该父节点的所有子节点
-            if (t.getParentId() == parentId)
-            {
-                recursionFn(list, t);
-                returnList.add(t);
-            }
-        }
-        return returnList;
+        return buildTree(list, Menu::getMenuId, Menu::getParentId, Menu::setChildren, (long) parentId);
     }
 
     /**
-     * 递归列表
+     * 构建树结构，先按父节点ID分组，再为每个节点设置子节点列表，节点数为n时耗时O(n)
      * 
-     * @param list
-     * @param t
+     * @param list 节点列表，子节点按列表中的顺序排列
+     * @param idGetter 节点ID
+     * @param parentIdGetter 父节点ID
+     * @param childrenSetter 设置子节点列表
+     * @param rootId 根节点的父节点ID
+     * @return 根节点列表
      */
-    private static void recursionFn(List<Menu> list, Menu t)
+    public static <T> List<T> buildTree(List<T> list, Function<T, Long> idGetter, Function<T, Long> parentIdGetter,
+            BiConsumer<T, List<T>> childrenSetter, Long rootId)
     {
-        // 得到子节点列表
-        List<Menu> childList = getChildList(list, t);
-        t.setChildren(childList);
-        for (Menu tChild : childList)
+        Map<Long, List<T>> childrenMap = groupByParentId(list, parentIdGetter);
+        for (T node : list)
         {
-            if (hasChild(list, tChild))
-            {
-                recursionFn(list, tChild);
-            }
+            List<T> children = childrenMap.get(idGetter.apply(node));
+            childrenSetter.accept(node, children != null ? children : new ArrayList<T>());
         }
+        List<T> roots = childrenMap.get(rootId);
+        return roots != null ? roots : new ArrayList<T>();
     }
 
     /**
-     * 得到子节点列表
+     * 按父节点ID分组
      */
-    private static List<Menu> getChildList(List<Menu> list, Menu t)
+    private static <T> Map<Long, List<T>> groupByParentId(List<T> list, Function<T, Long> parentIdGetter)
     {
-
-        List<Menu> tlist = new ArrayList<Menu>();
-        Iterator<Menu> it = list.iterator();
-        while (it.hasNext())
+        Map<Long, List<T>> childrenMap = new HashMap<Long, List<T>>(list.size() * 4 / 3 + 1);
+        for (T node : list)
         {
-            Menu n = (Menu) it.next();
-            if (n.getParentId().longValue() == t.getMenuId().longValue())
-            {
-                tlist.add(n);
-            }
+            childrenMap.computeIfAbsent(parentIdGetter.apply(node), k -> new ArrayList<T>()).add(node);
         }
-        return tlist;
+        return childrenMap;
     }
 
     List<Menu> returnList = new ArrayList<Menu>();
@@ -89,49 +79,22 @@ public class TreeUtils
         {
             return null;
         }
-        for (Iterator<Menu> iterator = list.iterator(); iterator.hasNext();)
+        Map<Long, List<Menu>> childrenMap = groupByParentId(list, Menu::getParentId);
+        for (Menu node : childrenMap.getOrDefault((long) typeId, Collections.emptyList()))
         {
-            Menu node = (Menu) iterator.next();
-            // 一、根据传入的某个父节点ID,遍历该父节点的所有子节点
-            if (node.getParentId() == typeId)
-            {
-                recursionFn(list, node, prefix);
-            }
-            // 二、遍历所有的父节点下的所有子节点
-            /*
-             * if (node.getParentId()==0) { recursionFn(list, node); }
-             */
+            recursionFn(childrenMap, node, prefix);
         }
         return returnList;
     }
 
-    private void recursionFn(List<Menu> list, Menu node, String p)
+    private void recursionFn(Map<Long, List<Menu>> childrenMap, Menu node, String p)
     {
+        returnList.add(node);
         // 得到子节点列表
-        List<Menu> childList = getChildList(list, node);
-        if (hasChild(list, node))
-        {
-            // 判断是否有子节点
-            returnList.add(node);
-            Iterator<Menu> it = childList.iterator();
-            while (it.hasNext())
-            {
-                Menu n = (Menu) it.next();
-                n.setMenuName(p + n.getMenuName());
-                recursionFn(list, n, p + p);
-            }
-        }
-        else
+        for (Menu n : childrenMap.getOrDefault(node.getMenuId(), Collections.emptyList()))
         {
-            returnList.add(node);
+            n.setMenuName(p + n.getMenuName());
+            recursionFn(childrenMap, n, p + p);
         }
     }
-
-    /**
-     * 判断是否有子节点
-     */
-    private static boolean hasChild(List<Menu> list, Menu t)
-    {
-        return getChildList(list, t).size() > 0;
-    }
 }
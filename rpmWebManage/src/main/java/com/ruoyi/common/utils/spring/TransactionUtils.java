@@ -0,0 +1,40 @@
+package com.ruoyi.common.utils.spring;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务工具类
+ * 
+ * @author ruoyi
+ */
+public final class TransactionUtils
+{
+    private TransactionUtils()
+    {
+    }
+
+    /**
+     * 当前事务提交后执行，没有事务时立即执行（用于缓存失效，避免并发加载读到提交前的数据）
+     * 
+     * @param action 执行的操作
+     */
+    public static void afterCommit(Runnable action)
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    action.run();
+                }
+            });
+        }
+        else
+        {
+            action.run();
+        }
+    }
+}
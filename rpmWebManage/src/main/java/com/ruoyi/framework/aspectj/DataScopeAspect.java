@@ -2,6 +2,8 @@ package com.ruoyi.framework.aspectj;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
@@ -9,9 +11,11 @@ import org.springframework.stereotype.Component;
 import com.ruoyi.common.constant.UserConstants;
 import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.common.utils.security.ShiroUtils;
+import com.ruoyi.common.utils.spring.SpringUtils;
 import com.ruoyi.common.utils.text.Convert;
 import com.ruoyi.framework.aspectj.lang.annotation.DataScope;
 import com.ruoyi.framework.context.PermissionContextHolder;
+import com.ruoyi.framework.shiro.service.RoleAuthCache;
 import com.ruoyi.framework.web.domain.BaseEntity;
 import com.ruoyi.project.system.role.domain.Role;
 import com.ruoyi.project.system.user.domain.User;
@@ -55,6 +59,16 @@ public class DataScopeAspect
      */
     public static final String DATA_SCOPE = "dataScope";
 
+    /**
+     * 数据权限SQL缓存的最大条目数，超过时清空
+     */
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    /**
+     * 数据权限SQL缓存，键包含角色授权缓存的版本号和角色ID，角色或菜单变更后旧条目不再命中
+     */
+    private static final Map<String, String> SCOPE_SQL_CACHE = new ConcurrentHashMap<String, String>();
+
     @Before("@annotation(controllerDataScope)")
     public void doBefore(JoinPoint point, DataScope controllerDataScope) throws Throwable
     {
@@ -78,7 +92,7 @@ public class DataScopeAspect
     }
 
     /**
-     * 数据范围过滤
+     * 数据范围过滤（角色的数据权限、状态和权限字符取自角色授权缓存，而非登录时的会话快照）
      * 
      * @param joinPoint 切点
      * @param user 用户
@@ -87,25 +101,71 @@ public class DataScopeAspect
      * @param permission 权限字符
      */
     public static void dataScopeFilter(JoinPoint joinPoint, User user, String deptAlias, String userAlias, String permission)
+    {
+        RoleAuthCache roleAuthCache = SpringUtils.getBean(RoleAuthCache.class);
+        // 先取版本号再取角色：取到的角色数据不早于该版本，同一版本下角色ID确定数据权限、状态和权限字符
+        long version = roleAuthCache.getVersion();
+        List<Role> roles = roleAuthCache.getRoles(user);
+        StringBuilder key = new StringBuilder();
+        key.append(version).append('|').append(user.getUserId()).append('|').append(user.getDeptId()).append('|');
+        for (Role role : roles)
+        {
+            key.append(role.getRoleId()).append(',');
+        }
+        key.append('|').append(deptAlias).append('|').append(userAlias).append('|').append(permission);
+        String sqlString = SCOPE_SQL_CACHE.get(key.toString());
+        if (sqlString == null)
+        {
+            sqlString = buildDataScopeSql(user, roles, deptAlias, userAlias, permission);
+            if (SCOPE_SQL_CACHE.size() >= MAX_CACHE_SIZE)
+            {
+                SCOPE_SQL_CACHE.clear();
+            }
+            SCOPE_SQL_CACHE.put(key.toString(), sqlString);
+        }
+
+        if (StringUtils.isNotBlank(sqlString))
+        {
+            Object params = joinPoint.getArgs()[0];
+            if (StringUtils.isNotNull(params) && params instanceof BaseEntity)
+            {
+                BaseEntity baseEntity = (BaseEntity) params;
+                baseEntity.getParams().put(DATA_SCOPE, " AND (" + sqlString.substring(4) + ")");
+            }
+        }
+    }
+
+    /**
+     * 拼接数据范围过滤SQL
+     * 
+     * @param user 用户
+     * @param roles 用户的角色
+     * @param deptAlias 部门别名
+     * @param userAlias 用户别名
+     * @param permission 权限字符
+     * @return 以" OR "开头的过滤条件，不过滤时返回空字符串
+     */
+    private static String buildDataScopeSql(User user, List<Role> roles, String deptAlias, String userAlias, String permission)
     {
         StringBuilder sqlString = new StringBuilder();
         List<String> conditions = new ArrayList<String>();
         List<String> scopeCustomIds = new ArrayList<String>();
-        user.getRoles().forEach(role -> {
-            if (DATA_SCOPE_CUSTOM.equals(role.getDataScope()) && StringUtils.equals(role.getStatus(), UserConstants.ROLE_NORMAL) && StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission)))
+        String[] permissions = Convert.toStrArray(permission);
+        roles.forEach(role -> {
+            if (DATA_SCOPE_CUSTOM.equals(role.getDataScope()) && StringUtils.equals(role.getStatus(), UserConstants.ROLE_NORMAL) && StringUtils.containsAny(role.getPermissions(), permissions))
             {
                 scopeCustomIds.add(Convert.toStr(role.getRoleId()));
             }
         });
 
-        for (Role role : user.getRoles())
+        for (Role role : roles)
         {
             String dataScope = role.getDataScope();
             if (conditions.contains(dataScope) || StringUtils.equals(role.getStatus(), UserConstants.ROLE_DISABLE))
             {
                 continue;
             }
-            if (!StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission)))
+            if (!StringUtils.containsAny(role.getPermissions(), permissions))
             {
                 continue;
             }
@@ -133,7 +193,8 @@ public class DataScopeAspect
             }
             else if (DATA_SCOPE_DEPT_AND_CHILD.equals(dataScope))
             {
-                sqlString.append(StringUtils.format(" OR {}.dept_id IN ( SELECT dept_id FROM sys_dept WHERE dept_id = {} or find_in_set( {} , ancestors ) )", deptAlias, user.getDeptId(), user.getDeptId()));
+                // 部门闭包表包含本部门（深度0）及全部下级部门，按上级部门ID走索引
+                sqlString.append(StringUtils.format(" OR {}.dept_id IN ( SELECT descendant_id FROM sys_dept_closure WHERE ancestor_id = {} ) ", deptAlias, user.getDeptId()));
             }
             else if (DATA_SCOPE_SELF.equals(dataScope))
             {
@@ -155,16 +216,7 @@ public class DataScopeAspect
         {
             sqlString.append(StringUtils.format(" OR {}.dept_id = 0 ", deptAlias));
         }
-
-        if (StringUtils.isNotBlank(sqlString.toString()))
-        {
-            Object params = joinPoint.getArgs()[0];
-            if (StringUtils.isNotNull(params) && params instanceof BaseEntity)
-            {
-                BaseEntity baseEntity = (BaseEntity) params;
-                baseEntity.getParams().put(DATA_SCOPE, " AND (" + sqlString.substring(4) + ")");
-            }
-        }
+        return sqlString.toString();
     }
 
     /**
@@ -1,7 +1,14 @@
 package com.ruoyi.framework.aspectj;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.ArrayUtils;
@@ -12,19 +19,22 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.multipart.MultipartFile;
-import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.JSONSerializer;
+import com.alibaba.fastjson.serializer.SerializeFilter;
+import com.alibaba.fastjson.serializer.SerializeWriter;
 import com.alibaba.fastjson.support.spring.PropertyPreFilters;
 import com.ruoyi.common.utils.ServletUtils;
 import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.common.utils.security.ShiroUtils;
 import com.ruoyi.framework.aspectj.lang.annotation.Log;
 import com.ruoyi.framework.aspectj.lang.enums.BusinessStatus;
-import com.ruoyi.framework.manager.AsyncManager;
-import com.ruoyi.framework.manager.factory.AsyncFactory;
+import com.ruoyi.framework.manager.OperLogWriter;
 import com.ruoyi.project.monitor.operlog.domain.OperLog;
 import com.ruoyi.project.system.user.domain.User;
 
@@ -45,6 +55,19 @@ public class LogAspect
     /** 计算操作消耗时间 */
     private static final ThreadLocal<Long> TIME_THREADLOCAL = new NamedThreadLocal<Long>("Cost Time");
 
+    /** 参数和响应结果的最大记录长度 */
+    private static final int MAX_LENGTH = 2000;
+
+    /** 注解 -> 排除敏感属性的过滤器 */
+    private static final Map<Log, SerializeFilter> EXCLUDE_FILTERS = new ConcurrentHashMap<Log, SerializeFilter>();
+
+    /** 是否在操作日志写入线程中序列化请求参数 */
+    @Value("${operlog.asyncSerialize:true}")
+    private boolean asyncSerialize;
+
+    @Autowired
+    private OperLogWriter operLogWriter;
+
     /**
      * 处理请求前执行
      */
@@ -81,6 +104,10 @@ public class LogAspect
     {
         try
         {
+            if (!isSampled(controllerLog, e))
+            {
+                return;
+            }
             // 获取当前的用户
             User currentUser = ShiroUtils.getSysUser();
 
@@ -113,11 +140,16 @@ public class LogAspect
             // 设置请求方式
             operLog.setRequestMethod(ServletUtils.getRequest().getMethod());
             // 处理设置注解上的参数
-            getControllerMethodDescription(joinPoint, controllerLog, operLog, jsonResult);
+            Runnable serialize = getControllerMethodDescription(joinPoint, controllerLog, operLog, jsonResult);
             // 设置消耗时间
             operLog.setCostTime(System.currentTimeMillis() - TIME_THREADLOCAL.get());
-            // 保存数据库
-            AsyncManager.me().execute(AsyncFactory.recordOper(operLog));
+            if (!asyncSerialize && serialize != null)
+            {
+                serialize.run();
+                serialize = null;
+            }
+            // 保存数据库（入队后由操作日志写入器序列化请求参数并批量写入）
+            operLogWriter.offer(operLog, serialize);
         }
         catch (Exception exp)
         {
@@ -136,9 +168,10 @@ public class LogAspect
      * 
      * @param log 日志
      * @param operLog 操作日志
+     * @return 请求参数的序列化任务，无需序列化时为空
      * @throws Exception
      */
-    public void getControllerMethodDescription(JoinPoint joinPoint, Log log, OperLog operLog, Object jsonResult) throws Exception
+    public Runnable getControllerMethodDescription(JoinPoint joinPoint, Log log, OperLog operLog, Object jsonResult) throws Exception
     {
         // 设置action动作
         operLog.setBusinessType(log.businessType().ordinal());
@@ -146,76 +179,143 @@ public class LogAspect
         operLog.setTitle(log.title());
         // 设置操作人类别
         operLog.setOperatorType(log.operatorType().ordinal());
+        // 是否需要保存response，参数和值
+        if (log.isSaveResponseData() && StringUtils.isNotNull(jsonResult))
+        {
+            // 响应结果可能引用请求结束后仍会被修改的对象，在请求线程内序列化
+            operLog.setJsonResult(toLimitedJSONString(jsonResult, null));
+        }
         // 是否需要保存request，参数和值
-        if (log.isSaveRequestData())
+        if (!log.isSaveRequestData())
         {
-            // 获取参数的信息，传入到数据库中。
-            setRequestValue(joinPoint, operLog, log.excludeParamNames());
+            return null;
         }
-        // 是否需要保存response，参数和值
-        if (log.isSaveResponseData() && StringUtils.isNotNull(jsonResult))
+        final SerializeFilter filter = excludePropertyPreFilter(log);
+        final Map<String, String[]> paramMap = copyParameterMap(ServletUtils.getRequest().getParameterMap());
+        if (StringUtils.isEmpty(paramMap))
         {
-            operLog.setJsonResult(StringUtils.substring(JSONObject.toJSONString(jsonResult), 0, 2000));
+            // 方法参数是可变对象，在请求线程内序列化
+            List<Object> args = filterArgs(joinPoint.getArgs());
+            if (StringUtils.isNotEmpty(args))
+            {
+                operLog.setOperParam(argsArrayToString(args, filter));
+            }
+            return null;
         }
+        // 请求参数复制后只含字符串，可推迟到写入线程序列化
+        return () -> operLog.setOperParam(toLimitedJSONString(paramMap, filter));
     }
 
     /**
-     * 获取请求的参数，放到log中
-     * 
-     * @param operLog
-     * @param request
+     * 复制请求参数，请求结束后request会被容器回收
      */
-    private void setRequestValue(JoinPoint joinPoint, OperLog operLog, String[] excludeParamNames)
+    private Map<String, String[]> copyParameterMap(Map<String, String[]> parameterMap)
     {
-        Map<String, String[]> map = ServletUtils.getRequest().getParameterMap();
-        if (StringUtils.isNotEmpty(map))
-        {
-            String params = JSONObject.toJSONString(map, excludePropertyPreFilter(excludeParamNames));
-            operLog.setOperParam(StringUtils.substring(params, 0, 2000));
-        }
-        else
+        Map<String, String[]> copy = new LinkedHashMap<String, String[]>(parameterMap.size());
+        for (Map.Entry<String, String[]> entry : parameterMap.entrySet())
         {
-            Object args = joinPoint.getArgs();
-            if (StringUtils.isNotNull(args))
-            {
-                String params = argsArrayToString(joinPoint.getArgs(), excludeParamNames);
-                operLog.setOperParam(StringUtils.substring(params, 0, 2000));
-            }
+            copy.put(entry.getKey(), entry.getValue() == null ? null : entry.getValue().clone());
         }
+        return copy;
     }
 
     /**
-     * 忽略敏感属性
+     * 忽略敏感属性，每个注解只构建一次
      */
-    public PropertyPreFilters.MySimplePropertyPreFilter excludePropertyPreFilter(String[] excludeParamNames)
+    public SerializeFilter excludePropertyPreFilter(Log log)
     {
-        return new PropertyPreFilters().addFilter().addExcludes(ArrayUtils.addAll(EXCLUDE_PROPERTIES, excludeParamNames));
+        return EXCLUDE_FILTERS.computeIfAbsent(log, key -> new PropertyPreFilters().addFilter()
+                .addExcludes(ArrayUtils.addAll(EXCLUDE_PROPERTIES, key.excludeParamNames())));
     }
 
     /**
      * 参数拼装
      */
-    private String argsArrayToString(Object[] paramsArray, String[] excludeParamNames)
+    private String argsArrayToString(List<Object> paramsArray, SerializeFilter filter)
     {
-        String params = "";
-        if (paramsArray != null && paramsArray.length > 0)
+        LimitedWriter writer = new LimitedWriter(MAX_LENGTH);
+        for (Object o : paramsArray)
+        {
+            if (writer.isFull())
+            {
+                break;
+            }
+            if (writer.length() > 0)
+            {
+                writer.separator();
+            }
+            writeJSON(writer, o, filter);
+        }
+        return writer.toString().trim();
+    }
+
+    /**
+     * 过滤不需要记录的方法参数
+     */
+    private List<Object> filterArgs(Object[] paramsArray)
+    {
+        List<Object> args = new ArrayList<Object>();
+        if (paramsArray != null)
         {
             for (Object o : paramsArray)
             {
                 if (StringUtils.isNotNull(o) && !isFilterObject(o))
                 {
-                    try
-                    {
-                        Object jsonObj = JSONObject.toJSONString(o, excludePropertyPreFilter(excludeParamNames));
-                        params += jsonObj.toString() + " ";
-                    }
-                    catch (Exception e)
-                    {
-                    }
+                    args.add(o);
                 }
             }
         }
-        return params.trim();
+        return args;
+    }
+
+    /**
+     * 序列化为JSON，达到长度上限后停止序列化
+     * 
+     * @param value 对象
+     * @param filter 过滤器，可为空
+     * @return 不超过长度上限的JSON
+     */
+    public static String toLimitedJSONString(Object value, SerializeFilter filter)
+    {
+        LimitedWriter writer = new LimitedWriter(MAX_LENGTH);
+        writeJSON(writer, value, filter);
+        return writer.toString();
+    }
+
+    private static void writeJSON(LimitedWriter writer, Object value, SerializeFilter filter)
+    {
+        SerializeWriter out = new SerializeWriter(writer);
+        try
+        {
+            JSONSerializer serializer = new JSONSerializer(out);
+            if (filter != null)
+            {
+                serializer.addFilter(filter);
+            }
+            serializer.write(value);
+        }
+        catch (Exception e)
+        {
+            // 达到长度上限时中断序列化，保留已写入的部分
+            if (!writer.isFull())
+            {
+                log.debug("操作日志参数序列化失败：{}", e.getMessage());
+            }
+        }
+        finally
+        {
+            // 写出缓冲区剩余内容并归还缓冲区
+            out.close();
+        }
+    }
+
+    /**
+     * 成功的调用按注解配置的比例采样，失败的调用全部记录
+     */
+    private boolean isSampled(Log log, Exception e)
+    {
+        double rate = log.sampleRate();
+        return e != null || rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
     }
 
     /**
@@ -252,4 +352,77 @@ public class LogAspect
         return o instanceof MultipartFile || o instanceof HttpServletRequest || o instanceof HttpServletResponse
                 || o instanceof BindingResult;
     }
+
+    /**
+     * 限制长度的字符输出，超过上限时抛出一次异常中断序列化，之后的输出直接丢弃
+     */
+    private static class LimitedWriter extends Writer
+    {
+        private final StringBuilder buffer = new StringBuilder();
+
+        private final int limit;
+
+        private boolean full;
+
+        private boolean aborted;
+
+        private LimitedWriter(int limit)
+        {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            if (aborted)
+            {
+                return;
+            }
+            int remaining = limit - buffer.length();
+            buffer.append(cbuf, off, Math.min(len, remaining));
+            if (len >= remaining)
+            {
+                full = true;
+            }
+            if (len > remaining)
+            {
+                aborted = true;
+                throw new IOException("length limit reached");
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        private void separator()
+        {
+            if (buffer.length() < limit)
+            {
+                buffer.append(' ');
+            }
+        }
+
+        private boolean isFull()
+        {
+            return full;
+        }
+
+        private int length()
+        {
+            return buffer.length();
+        }
+
+        @Override
+        public String toString()
+        {
+            return buffer.toString();
+        }
+    }
 }
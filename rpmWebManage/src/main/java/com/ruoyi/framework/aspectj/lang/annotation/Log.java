@@ -48,4 +48,9 @@ public @interface Log
      * 排除指定的请求参数
      */
     public String[] excludeParamNames() default {};
+
+    /**
+     * 成功调用的记录比例（0~1），高频接口可降低比例，失败的调用始终记录
+     */
+    public double sampleRate() default 1.0;
 }
@@ -29,6 +29,9 @@ public class RuoYiConfig
 
     /** 获取地址开关 */
     private static boolean addressEnabled;
+
+    /** 离线IP地址库路径 */
+    private static String addressDbPath;
     
     public String getName()
     {
@@ -90,6 +93,16 @@ public class RuoYiConfig
         RuoYiConfig.addressEnabled = addressEnabled;
     }
 
+    public static String getAddressDbPath()
+    {
+        return addressDbPath;
+    }
+
+    public void setAddressDbPath(String addressDbPath)
+    {
+        RuoYiConfig.addressDbPath = addressDbPath;
+    }
+
     /**
      * 获取导入上传路径
      */
@@ -21,7 +21,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import com.ruoyi.common.constant.Constants;
 import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.common.utils.security.CipherUtils;
 import com.ruoyi.common.utils.spring.SpringUtils;
@@ -30,6 +29,10 @@ import com.ruoyi.framework.shiro.realm.UserRealm;
 import com.ruoyi.framework.shiro.rememberMe.CustomCookieRememberMeManager;
 import com.ruoyi.framework.shiro.session.OnlineSessionDAO;
 import com.ruoyi.framework.shiro.session.OnlineSessionFactory;
+import com.ruoyi.framework.shiro.session.SharedSessionDAO;
+import com.ruoyi.framework.shiro.session.store.DatabaseSessionStore;
+import com.ruoyi.framework.shiro.session.store.LocalSessionStore;
+import com.ruoyi.framework.shiro.session.store.SessionStore;
 import com.ruoyi.framework.shiro.web.CustomShiroFilterFactoryBean;
 import com.ruoyi.framework.shiro.web.filter.LogoutFilter;
 import com.ruoyi.framework.shiro.web.filter.captcha.CaptchaValidateFilter;
@@ -72,6 +75,12 @@ public class ShiroConfig
     @Value("${shiro.session.kickoutAfter}")
     private boolean kickoutAfter;
 
+    /**
+     * 会话存储（ehcache本地缓存 memory进程内存储 database数据库共享存储）
+     */
+    @Value("${shiro.session.store:ehcache}")
+    private String sessionStore;
+
     /**
      * 验证码开关
      */
@@ -184,18 +193,33 @@ public class ShiroConfig
     public UserRealm userRealm(EhCacheManager cacheManager)
     {
         UserRealm userRealm = new UserRealm();
-        userRealm.setAuthorizationCacheName(Constants.SYS_AUTH_CACHE);
+        // 授权信息由RoleAuthCache按角色组合缓存，不再按用户缓存
+        userRealm.setAuthorizationCachingEnabled(false);
         userRealm.setCacheManager(cacheManager);
         return userRealm;
     }
 
+    /**
+     * 会话共享存储，database时多个节点通过数据库共享会话和用户会话列表
+     */
+    @Bean
+    public SessionStore sessionStore()
+    {
+        if ("database".equals(sessionStore))
+        {
+            return new DatabaseSessionStore();
+        }
+        return new LocalSessionStore();
+    }
+
     /**
      * 自定义sessionDAO会话
      */
     @Bean
     public OnlineSessionDAO sessionDAO()
     {
-        OnlineSessionDAO sessionDAO = new OnlineSessionDAO();
+        // ehcache时会话保存在本地缓存，其余使用会话存储
+        OnlineSessionDAO sessionDAO = "ehcache".equals(sessionStore) ? new OnlineSessionDAO() : new SharedSessionDAO();
         return sessionDAO;
     }
 
@@ -392,7 +416,7 @@ public class ShiroConfig
     public KickoutSessionFilter kickoutSessionFilter()
     {
         KickoutSessionFilter kickoutSessionFilter = new KickoutSessionFilter();
-        kickoutSessionFilter.setCacheManager(getEhCacheManager());
+        kickoutSessionFilter.setSessionStore(sessionStore());
         kickoutSessionFilter.setSessionManager(sessionManager());
         // 同一个用户最大的会话数，默认-1无限制；比如2的意思是同一个用户允许最多同时两个人登录
         kickoutSessionFilter.setMaxSession(maxSession);
@@ -1,8 +1,13 @@
 package com.ruoyi.framework.manager;
 
+import java.util.List;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import com.ruoyi.common.utils.Threads;
 import com.ruoyi.common.utils.spring.SpringUtils;
 
@@ -13,6 +18,8 @@ import com.ruoyi.common.utils.spring.SpringUtils;
  */
 public class AsyncManager
 {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncManager.class);
+
     /**
      * 操作延迟10毫秒
      */
@@ -23,6 +30,11 @@ public class AsyncManager
      */
     private ScheduledExecutorService executor = SpringUtils.getBean("scheduledExecutorService");
 
+    /**
+     * 停止线程池后需要执行的排空任务（如批量写入缓冲区）
+     */
+    private final List<Runnable> drainTasks = new CopyOnWriteArrayList<Runnable>();
+
     /**
      * 单例模式
      */
@@ -47,11 +59,45 @@ public class AsyncManager
         executor.schedule(task, OPERATE_DELAY_TIME, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * 周期性执行任务
+     * 
+     * @param task 任务
+     * @param delay 两次执行之间的间隔
+     * @param unit 时间单位
+     * @return 任务句柄
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay, TimeUnit unit)
+    {
+        return executor.scheduleWithFixedDelay(task, delay, delay, unit);
+    }
+
+    /**
+     * 注册停止时的排空任务，在线程池停止后依次执行
+     * 
+     * @param task 排空任务
+     */
+    public void addDrainTask(Runnable task)
+    {
+        drainTasks.add(task);
+    }
+
     /**
      * 停止任务线程池
      */
     public void shutdown()
     {
         Threads.shutdownAndAwaitTermination(executor);
+        for (Runnable task : drainTasks)
+        {
+            try
+            {
+                task.run();
+            }
+            catch (Exception e)
+            {
+                logger.error(e.getMessage(), e);
+            }
+        }
     }
 }
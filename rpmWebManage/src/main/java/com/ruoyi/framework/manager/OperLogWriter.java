@@ -0,0 +1,341 @@
+package com.ruoyi.framework.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.utils.AddressUtils;
+import com.ruoyi.framework.aspectj.lang.enums.BusinessStatus;
+import com.ruoyi.project.monitor.operlog.domain.OperLog;
+import com.ruoyi.project.monitor.operlog.manager.OperLogIndex;
+import com.ruoyi.project.monitor.operlog.service.IOperLogService;
+
+/**
+ * 操作日志写入器（有界队列缓冲，单个写入线程多行批量写入sys_oper_log）
+ *
+ * @author ruoyi
+ */
+@Component
+public class OperLogWriter
+{
+    private static final Logger logger = LoggerFactory.getLogger(OperLogWriter.class);
+
+    /** 队列饱和时丢弃新日志 */
+    public static final String POLICY_DROP = "drop";
+
+    /** 队列超过高水位后只按比例保留成功日志，失败日志始终保留 */
+    public static final String POLICY_SAMPLE = "sample";
+
+    /** 队列容量 */
+    @Value("${operlog.capacity:10000}")
+    private int capacity;
+
+    /** 单条多行插入语句包含的最大行数 */
+    @Value("${operlog.batchSize:200}")
+    private int batchSize;
+
+    /** 队列为空时写入线程的等待时间（毫秒） */
+    @Value("${operlog.flushInterval:500}")
+    private long flushInterval;
+
+    /** 饱和策略（drop丢弃 sample采样） */
+    @Value("${operlog.overflowPolicy:sample}")
+    private String overflowPolicy;
+
+    /** 采样策略下的高水位（队列占用比例） */
+    @Value("${operlog.highWatermark:0.8}")
+    private double highWatermark;
+
+    /** 采样策略下每N条成功日志保留1条 */
+    @Value("${operlog.sampleRate:10}")
+    private int sampleRate;
+
+    @Autowired
+    private IOperLogService operLogService;
+
+    @Autowired
+    private OperLogIndex operLogIndex;
+
+    private BlockingQueue<Entry> queue;
+
+    private int sampleThreshold;
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder sampled = new LongAdder();
+
+    private final LongAdder flushed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    /** 入队持有读锁，停止时持有写锁，停止后不会再有日志进入队列 */
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+
+    private Thread writer;
+
+    @PostConstruct
+    public void init()
+    {
+        capacity = Math.max(1, capacity);
+        batchSize = Math.max(1, batchSize);
+        // 小于1时按1处理，即超过高水位后也全部保留
+        sampleRate = Math.max(1, sampleRate);
+        queue = new ArrayBlockingQueue<Entry>(capacity);
+        sampleThreshold = (int) (capacity * highWatermark);
+        writer = new BasicThreadFactory.Builder().namingPattern("operlog-writer-%d").daemon(true).build().newThread(this::run);
+        writer.start();
+    }
+
+    /**
+     * 操作日志入队，不阻塞调用线程
+     *
+     * @param operLog 操作日志
+     * @return 是否入队
+     */
+    public boolean offer(OperLog operLog)
+    {
+        return offer(operLog, null);
+    }
+
+    /**
+     * 操作日志入队，不阻塞调用线程
+     *
+     * @param operLog 操作日志
+     * @param serialize 写入前在写入线程中执行的参数序列化任务，可为空
+     * @return 是否入队
+     */
+    public boolean offer(OperLog operLog, Runnable serialize)
+    {
+        runningLock.readLock().lock();
+        try
+        {
+            return enqueue(operLog, serialize);
+        }
+        finally
+        {
+            runningLock.readLock().unlock();
+        }
+    }
+
+    private boolean enqueue(OperLog operLog, Runnable serialize)
+    {
+        if (!running)
+        {
+            dropped.increment();
+            return false;
+        }
+        if (POLICY_SAMPLE.equals(overflowPolicy) && queue.size() >= sampleThreshold
+                && Integer.valueOf(BusinessStatus.SUCCESS.ordinal()).equals(operLog.getStatus()))
+        {
+            if (sampleCounter.incrementAndGet() % sampleRate != 0)
+            {
+                sampled.increment();
+                return false;
+            }
+        }
+        if (operLog.getOperTime() == null)
+        {
+            operLog.setOperTime(new Date());
+        }
+        if (!queue.offer(new Entry(operLog, serialize)))
+        {
+            dropped.increment();
+            return false;
+        }
+        enqueued.increment();
+        return true;
+    }
+
+    private void run()
+    {
+        List<Entry> batch = new ArrayList<Entry>(batchSize);
+        // 停止后继续写入，直到队列排空
+        while (running || !queue.isEmpty())
+        {
+            try
+            {
+                Entry first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first != null)
+                {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * 停止接收新日志，等待写入线程写完队列中剩余的日志
+     */
+    public void shutdown()
+    {
+        runningLock.writeLock().lock();
+        try
+        {
+            running = false;
+        }
+        finally
+        {
+            runningLock.writeLock().unlock();
+        }
+        try
+        {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive())
+        {
+            // 写入线程仍在写入，不在此并发写入
+            logger.warn("操作日志写入线程未在10秒内结束，队列中还有{}条", queue.size());
+            return;
+        }
+        // 写入线程被中断退出时由当前线程写入剩余日志
+        List<Entry> batch = new ArrayList<Entry>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0)
+        {
+            write(batch);
+            batch.clear();
+        }
+        logger.info("操作日志队列已排空，累计写入{}条，丢弃{}条", flushed.sum(), dropped.sum() + sampled.sum());
+    }
+
+    private void write(List<Entry> batch)
+    {
+        List<OperLog> operLogs = new ArrayList<OperLog>(batch.size());
+        for (Entry entry : batch)
+        {
+            if (entry.serialize != null)
+            {
+                try
+                {
+                    entry.serialize.run();
+                }
+                catch (Exception e)
+                {
+                    logger.warn("操作日志参数序列化失败：{}", e.getMessage());
+                }
+            }
+            // 查询操作地点
+            entry.operLog.setOperLocation(AddressUtils.getRealAddressByIP(entry.operLog.getOperIp()));
+            operLogs.add(entry.operLog);
+        }
+        try
+        {
+            operLogService.insertOperlogBatch(operLogs);
+        }
+        catch (DataIntegrityViolationException e)
+        {
+            // 个别日志违反约束（如字段超长）时整批失败，改为逐条写入，只丢弃写不进的日志
+            logger.error("操作日志批量写入违反约束，{}条改为逐条写入", operLogs.size(), e);
+            operLogs = writeEach(operLogs);
+        }
+        catch (Exception e)
+        {
+            failed.add(operLogs.size());
+            logger.error("操作日志批量写入失败，丢弃{}条", operLogs.size(), e);
+            return;
+        }
+        flushed.add(operLogs.size());
+        try
+        {
+            // 批量插入回填主键后加入全文索引
+            operLogIndex.add(operLogs);
+        }
+        catch (Exception e)
+        {
+            logger.error("操作日志加入全文索引失败", e);
+        }
+    }
+
+    /**
+     * 逐条写入
+     *
+     * @return 写入成功的日志
+     */
+    private List<OperLog> writeEach(List<OperLog> operLogs)
+    {
+        List<OperLog> written = new ArrayList<OperLog>(operLogs.size());
+        for (OperLog operLog : operLogs)
+        {
+            try
+            {
+                operLogService.insertOperlogBatch(Collections.singletonList(operLog));
+                written.add(operLog);
+            }
+            catch (Exception e)
+            {
+                failed.increment();
+                logger.error("操作日志写入失败，丢弃{}：{}", operLog.getOperUrl(), e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 获取操作日志写入统计信息
+     *
+     * @return 入队、丢弃、采样丢弃、写入和写入失败的行数
+     */
+    public Map<String, Object> getStatistics()
+    {
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("queueDepth", queue.size());
+        stats.put("capacity", capacity);
+        stats.put("overflowPolicy", overflowPolicy);
+        stats.put("enqueued", enqueued.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("sampled", sampled.sum());
+        stats.put("flushed", flushed.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    /**
+     * 队列中的操作日志
+     */
+    private static class Entry
+    {
+        private final OperLog operLog;
+
+        private final Runnable serialize;
+
+        private Entry(OperLog operLog, Runnable serialize)
+        {
+            this.operLog = operLog;
+            this.serialize = serialize;
+        }
+    }
+}
@@ -25,11 +25,15 @@ public class ShutdownManager
     @Autowired(required = false)
     private EhCacheManager ehCacheManager;
 
+    @Autowired(required = false)
+    private OperLogWriter operLogWriter;
+
     @PreDestroy
     public void destroy()
     {
         shutdownSpringSessionValidationScheduler();
         shutdownAsyncManager();
+        shutdownOperLogWriter();
         shutdownEhCacheManager();
     }
 
@@ -68,6 +72,25 @@ public class ShutdownManager
         }
     }
 
+    /**
+     * 停止操作日志写入，排空队列中的日志
+     */
+    private void shutdownOperLogWriter()
+    {
+        try
+        {
+            logger.info("====关闭操作日志写入====");
+            if (operLogWriter != null)
+            {
+                operLogWriter.shutdown();
+            }
+        }
+        catch (Exception e)
+        {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
     private void shutdownEhCacheManager()
     {
         try
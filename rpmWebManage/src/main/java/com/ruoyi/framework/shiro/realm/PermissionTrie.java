@@ -0,0 +1,196 @@
+package com.ruoyi.framework.shiro.realm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预编译的权限字典树，判定规则与Shiro WildcardPermission一致（不区分大小写）
+ *
+ * 权限按冒号分段逐级建树，段内逗号分隔的多个值展开为多条路径，*为通配节点；
+ * 检查时按段查找，不再为每次检查解析字符串并逐条比较用户的全部权限。
+ * 分段方式与WildcardPermission相同：末尾的空段被忽略，段和值不去除空格，Shiro无法解析的权限交由Shiro判定。
+ *
+ * @author ruoyi
+ */
+public final class PermissionTrie
+{
+    private static final String WILDCARD = "*";
+
+    /** 已解析的待检查权限缓存上限，待检查的权限来自代码和页面，数量有限 */
+    private static final int MAX_PARSED = 4096;
+
+    /** 格式不合法的待检查权限 */
+    private static final String[] INVALID = new String[0];
+
+    private static final Map<String, String[]> PARSED = new ConcurrentHashMap<String, String[]>();
+
+    private final Node root = new Node();
+
+    /** 拥有的权限中有Shiro无法解析的，Shiro对每次检查都会抛出异常 */
+    private final boolean malformed;
+
+    /**
+     * 构建权限字典树
+     *
+     * @param permissions 权限字符串集合
+     */
+    public PermissionTrie(Collection<String> permissions)
+    {
+        boolean malformed = false;
+        for (String permission : permissions)
+        {
+            List<List<String>> parts = split(permission);
+            if (parts == null)
+            {
+                malformed = true;
+            }
+            else
+            {
+                add(root, parts, 0);
+            }
+        }
+        this.malformed = malformed;
+    }
+
+    /**
+     * 指定权限能否由字典树判定。以下情况须由Shiro判定：段内有多个值（要求同一条权限全部包含，字典树展开后无法区分），
+     * 待检查权限或拥有的权限格式不合法（Shiro抛出异常）
+     *
+     * @param permission 权限字符串
+     * @return 结果
+     */
+    public boolean decides(String permission)
+    {
+        return !malformed && permission != null && permission.indexOf(',') < 0 && parse(permission) != INVALID;
+    }
+
+    /**
+     * 是否拥有指定权限，调用前须经decides确认可由字典树判定
+     *
+     * @param permission 权限字符串
+     * @return 结果
+     */
+    public boolean implies(String permission)
+    {
+        return matches(root, parse(permission), 0);
+    }
+
+    /**
+     * 解析待检查的权限，段内不含逗号
+     */
+    private static String[] parse(String permission)
+    {
+        String[] parts = PARSED.get(permission);
+        if (parts == null)
+        {
+            List<List<String>> split = split(permission);
+            parts = split == null ? INVALID : new String[split.size()];
+            for (int i = 0; i < parts.length; i++)
+            {
+                parts[i] = split.get(i).get(0);
+            }
+            if (PARSED.size() < MAX_PARSED)
+            {
+                PARSED.put(permission, parts);
+            }
+        }
+        return parts;
+    }
+
+    private static boolean matches(Node node, String[] parts, int index)
+    {
+        // 拥有的权限段数更少时，蕴含其后的所有段
+        if (node.terminal)
+        {
+            return true;
+        }
+        if (index == parts.length)
+        {
+            // 拥有的权限剩余段必须全部为通配
+            for (Node n = node.wildcard; n != null; n = n.wildcard)
+            {
+                if (n.terminal)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Node child = node.children == null ? null : node.children.get(parts[index]);
+        if (child != null && matches(child, parts, index + 1))
+        {
+            return true;
+        }
+        return node.wildcard != null && matches(node.wildcard, parts, index + 1);
+    }
+
+    private static void add(Node node, List<List<String>> parts, int index)
+    {
+        if (index == parts.size())
+        {
+            node.terminal = true;
+            return;
+        }
+        for (String value : parts.get(index))
+        {
+            Node child;
+            if (WILDCARD.equals(value))
+            {
+                if (node.wildcard == null)
+                {
+                    node.wildcard = new Node();
+                }
+                child = node.wildcard;
+            }
+            else
+            {
+                if (node.children == null)
+                {
+                    node.children = new HashMap<String, Node>(4);
+                }
+                child = node.children.computeIfAbsent(value, k -> new Node());
+            }
+            add(child, parts, index + 1);
+        }
+    }
+
+    /**
+     * 拆分权限字符串，规则与WildcardPermission.setParts相同，Shiro无法解析时返回null
+     */
+    private static List<List<String>> split(String permission)
+    {
+        String wildcardString = permission == null ? "" : permission.trim();
+        if (wildcardString.isEmpty())
+        {
+            return null;
+        }
+        List<List<String>> parts = new ArrayList<List<String>>();
+        for (String part : wildcardString.toLowerCase().split(":"))
+        {
+            List<String> values = Arrays.asList(part.split(","));
+            if (values.isEmpty())
+            {
+                return null;
+            }
+            // 段内包含通配时整段视为通配
+            parts.add(values.contains(WILDCARD) ? Collections.singletonList(WILDCARD) : values);
+        }
+        return parts.isEmpty() ? null : parts;
+    }
+
+    private static class Node
+    {
+        /** 拥有的权限在此结束 */
+        private boolean terminal;
+
+        private Map<String, Node> children;
+
+        private Node wildcard;
+    }
+}
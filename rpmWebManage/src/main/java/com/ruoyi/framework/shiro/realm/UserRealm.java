@@ -1,7 +1,5 @@
 package com.ruoyi.framework.shiro.realm;
 
-import java.util.HashSet;
-import java.util.Set;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
@@ -11,12 +9,11 @@ import org.apache.shiro.authc.LockedAccountException;
 import org.apache.shiro.authc.SimpleAuthenticationInfo;
 import org.apache.shiro.authc.UnknownAccountException;
 import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.AuthorizationInfo;
-import org.apache.shiro.authz.SimpleAuthorizationInfo;
-import org.apache.shiro.cache.Cache;
+import org.apache.shiro.authz.UnauthorizedException;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
-import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,10 +23,8 @@ import com.ruoyi.common.exception.user.UserBlockedException;
 import com.ruoyi.common.exception.user.UserNotExistsException;
 import com.ruoyi.common.exception.user.UserPasswordNotMatchException;
 import com.ruoyi.common.exception.user.UserPasswordRetryLimitExceedException;
-import com.ruoyi.common.utils.security.ShiroUtils;
 import com.ruoyi.framework.shiro.service.LoginService;
-import com.ruoyi.project.system.menu.service.IMenuService;
-import com.ruoyi.project.system.role.service.IRoleService;
+import com.ruoyi.framework.shiro.service.RoleAuthCache;
 import com.ruoyi.project.system.user.domain.User;
 
 /**
@@ -42,42 +37,54 @@ public class UserRealm extends AuthorizingRealm
     private static final Logger log = LoggerFactory.getLogger(UserRealm.class);
 
     @Autowired
-    private IMenuService menuService;
-
-    @Autowired
-    private IRoleService roleService;
+    private RoleAuthCache roleAuthCache;
 
     @Autowired
     private LoginService loginService;
 
     /**
-     * 授权
+     * 授权（按角色组合缓存，角色相同的用户共用同一份授权信息）
      */
     @Override
     protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection arg0)
     {
-        User user = ShiroUtils.getSysUser();
-        // 角色列表
-        Set<String> roles = new HashSet<String>();
-        // 功能列表
-        Set<String> menus = new HashSet<String>();
-        SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
-        // 管理员拥有所有权限
-        if (user.isAdmin())
+        return roleAuthCache.getAuthorizationInfo((User) arg0.getPrimaryPrincipal());
+    }
+
+    /**
+     * 权限检查使用角色组合预编译的权限字典树，段内含多个值或格式不合法的权限仍由Shiro判定
+     */
+    @Override
+    public boolean isPermitted(PrincipalCollection principals, String permission)
+    {
+        if (principals == null)
         {
-            info.addRole("admin");
-            info.addStringPermission("*:*:*");
+            return super.isPermitted(principals, permission);
         }
-        else
+        PermissionTrie permissionTrie = roleAuthCache.getPermissionTrie((User) principals.getPrimaryPrincipal());
+        if (!permissionTrie.decides(permission))
         {
-            roles = roleService.selectRoleKeys(user.getUserId());
-            menus = menuService.selectPermsByUserId(user.getUserId());
-            // 角色加入AuthorizationInfo认证对象
-            info.setRoles(roles);
-            // 权限加入AuthorizationInfo认证对象
-            info.setStringPermissions(menus);
+            return super.isPermitted(principals, permission);
+        }
+        return permissionTrie.implies(permission);
+    }
+
+    @Override
+    public void checkPermission(PrincipalCollection principals, String permission) throws AuthorizationException
+    {
+        if (!isPermitted(principals, permission))
+        {
+            throw new UnauthorizedException("Subject does not have permission [" + permission + "]");
+        }
+    }
+
+    @Override
+    public void checkPermissions(PrincipalCollection principals, String... permissions) throws AuthorizationException
+    {
+        for (String permission : permissions)
+        {
+            checkPermission(principals, permission);
         }
-        return info;
     }
 
     /**
@@ -137,22 +144,17 @@ public class UserRealm extends AuthorizingRealm
      */
     public void clearCachedAuthorizationInfo(Object principal)
     {
-        SimplePrincipalCollection principals = new SimplePrincipalCollection(principal, getName());
-        this.clearCachedAuthorizationInfo(principals);
+        if (principal instanceof User)
+        {
+            roleAuthCache.evictUsers(((User) principal).getUserId());
+        }
     }
 
     /**
-     * 清理所有用户授权信息缓存
+     * 清理所有用户授权信息缓存（缓存版本号递增，无需逐个移除）
      */
     public void clearAllCachedAuthorizationInfo()
     {
-        Cache<Object, AuthorizationInfo> cache = getAuthorizationCache();
-        if (cache != null)
-        {
-            for (Object key : cache.keys())
-            {
-                cache.remove(key);
-            }
-        }
+        roleAuthCache.evictAll();
     }
 }
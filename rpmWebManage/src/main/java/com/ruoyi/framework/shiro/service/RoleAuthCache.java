@@ -0,0 +1,314 @@
+package com.ruoyi.framework.shiro.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.constant.UserConstants;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.TreeUtils;
+import com.ruoyi.common.utils.spring.TransactionUtils;
+import com.ruoyi.framework.shiro.realm.PermissionTrie;
+import com.ruoyi.project.system.menu.domain.Menu;
+import com.ruoyi.project.system.menu.mapper.MenuMapper;
+import com.ruoyi.project.system.role.domain.Role;
+import com.ruoyi.project.system.role.mapper.RoleMapper;
+import com.ruoyi.project.system.user.domain.User;
+
+/**
+ * 角色授权缓存（按角色组合缓存菜单树和权限，角色相同的用户共用同一份不可变数据）
+ *
+ * 缓存条目记录加载时的版本号：角色、菜单变更时版本号递增，全部条目失效；
+ * 用户角色变更时只移除该用户的角色组合。失效在事务提交后执行，避免并发加载读到提交前的数据。
+ *
+ * @author ruoyi
+ */
+@Component
+public class RoleAuthCache
+{
+    /** 管理员的角色组合键 */
+    private static final String ADMIN_KEY = "admin";
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Autowired
+    private MenuMapper menuMapper;
+
+    /** 缓存版本号 */
+    private final AtomicLong version = new AtomicLong();
+
+    /** 用户ID -> 用户角色组合 */
+    private final ConcurrentHashMap<Long, UserRoles> userRoles = new ConcurrentHashMap<Long, UserRoles>();
+
+    /** 角色组合键 -> 授权数据 */
+    private final ConcurrentHashMap<String, RoleSetAuth> roleSets = new ConcurrentHashMap<String, RoleSetAuth>();
+
+    /**
+     * 获取用户的授权信息
+     *
+     * @param user 用户信息
+     * @return 授权信息（不可修改）
+     */
+    public AuthorizationInfo getAuthorizationInfo(User user)
+    {
+        return getRoleSetAuth(user).authorizationInfo;
+    }
+
+    /**
+     * 获取用户的权限字典树
+     *
+     * @param user 用户信息
+     * @return 权限字典树（多个用户共用）
+     */
+    public PermissionTrie getPermissionTrie(User user)
+    {
+        return getRoleSetAuth(user).permissionTrie;
+    }
+
+    /**
+     * 获取用户的菜单树
+     *
+     * @param user 用户信息
+     * @return 菜单树（多个用户共用，不可修改）
+     */
+    public List<Menu> getMenus(User user)
+    {
+        return getRoleSetAuth(user).menus;
+    }
+
+    /**
+     * 获取用户的角色（按角色ID升序，含数据权限、状态和正常角色的权限字符），管理员返回空列表
+     *
+     * @param user 用户信息
+     * @return 角色列表（多个用户共用，不可修改）
+     */
+    public List<Role> getRoles(User user)
+    {
+        return getRoleSetAuth(user).roles;
+    }
+
+    /**
+     * 获取用户的角色组合键（角色ID升序，逗号分隔）
+     *
+     * @param user 用户信息
+     * @return 角色组合键
+     */
+    public String getRoleSetKey(User user)
+    {
+        return user.isAdmin() ? ADMIN_KEY : getUserRoles(user.getUserId()).key;
+    }
+
+    /**
+     * 获取缓存版本号，角色或菜单变更后递增
+     */
+    public long getVersion()
+    {
+        return version.get();
+    }
+
+    /**
+     * 用户角色变更，事务提交后移除这些用户的角色组合
+     *
+     * @param userIds 用户ID
+     */
+    public void evictUsers(Long... userIds)
+    {
+        TransactionUtils.afterCommit(() -> {
+            for (Long userId : userIds)
+            {
+                userRoles.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * 角色或菜单变更，事务提交后全部失效
+     */
+    public void evictAll()
+    {
+        TransactionUtils.afterCommit(() -> {
+            version.incrementAndGet();
+            userRoles.clear();
+            roleSets.clear();
+        });
+    }
+
+    private RoleSetAuth getRoleSetAuth(User user)
+    {
+        long current = version.get();
+        UserRoles roles = user.isAdmin() ? null : getUserRoles(user.getUserId());
+        String key = roles == null ? ADMIN_KEY : roles.key;
+        RoleSetAuth auth = roleSets.get(key);
+        if (auth != null && auth.version == current)
+        {
+            return auth;
+        }
+        // 相同角色组合同时只加载一次
+        return roleSets.compute(key, (k, old) -> old != null && old.version == current ? old : loadRoleSet(roles, current));
+    }
+
+    private UserRoles getUserRoles(Long userId)
+    {
+        long current = version.get();
+        UserRoles roles = userRoles.get(userId);
+        if (roles != null && roles.version == current)
+        {
+            return roles;
+        }
+        return userRoles.compute(userId, (k, old) -> old != null && old.version == current ? old : loadUserRoles(userId, current));
+    }
+
+    private UserRoles loadUserRoles(Long userId, long version)
+    {
+        List<Role> roles = roleMapper.selectRolesByUserId(userId);
+        Set<Long> roleIds = new TreeSet<Long>();
+        List<Long> normalRoleIds = new ArrayList<Long>();
+        Set<String> roleKeys = new HashSet<String>();
+        for (Role role : roles)
+        {
+            if (StringUtils.isNotNull(role))
+            {
+                roleIds.add(role.getRoleId());
+                roleKeys.addAll(Arrays.asList(role.getRoleKey().trim().split(",")));
+                if (UserConstants.ROLE_NORMAL.equals(role.getStatus()))
+                {
+                    normalRoleIds.add(role.getRoleId());
+                }
+            }
+        }
+        return new UserRoles(version, StringUtils.join(roleIds, ","), roles, normalRoleIds, roleKeys);
+    }
+
+    private RoleSetAuth loadRoleSet(UserRoles roles, long version)
+    {
+        SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+        List<Menu> menus;
+        List<Role> roleList = new ArrayList<Role>();
+        if (roles == null)
+        {
+            // 管理员拥有所有权限
+            info.setRoles(Collections.singleton("admin"));
+            info.setStringPermissions(Collections.singleton("*:*:*"));
+            menus = menuMapper.selectMenuNormalAll();
+        }
+        else
+        {
+            Set<String> perms = new HashSet<String>();
+            if (roles.normalRoleIds.isEmpty())
+            {
+                menus = new ArrayList<Menu>();
+            }
+            else
+            {
+                for (String perm : menuMapper.selectPermsByRoleIds(roles.normalRoleIds))
+                {
+                    if (StringUtils.isNotEmpty(perm))
+                    {
+                        perms.addAll(Arrays.asList(perm.trim().split(",")));
+                    }
+                }
+                menus = menuMapper.selectMenusByRoleIds(roles.normalRoleIds);
+            }
+            roleList = loadRolePermissions(roles.roles);
+            info.setRoles(Collections.unmodifiableSet(roles.roleKeys));
+            info.setStringPermissions(Collections.unmodifiableSet(perms));
+        }
+        return new RoleSetAuth(version, info, Collections.unmodifiableList(TreeUtils.getChildPerms(menus, 0)),
+                Collections.unmodifiableList(roleList));
+    }
+
+    /**
+     * 设置正常角色的权限字符（供数据权限按权限字符匹配角色），按角色ID排序
+     */
+    private List<Role> loadRolePermissions(List<Role> roles)
+    {
+        List<Role> roleList = new ArrayList<Role>(roles.size());
+        for (Role role : roles)
+        {
+            if (StringUtils.isNotNull(role))
+            {
+                if (UserConstants.ROLE_NORMAL.equals(role.getStatus()))
+                {
+                    Set<String> rolePerms = new HashSet<String>();
+                    for (String perm : menuMapper.selectPermsByRoleId(role.getRoleId()))
+                    {
+                        if (StringUtils.isNotEmpty(perm))
+                        {
+                            rolePerms.addAll(Arrays.asList(perm.trim().split(",")));
+                        }
+                    }
+                    role.setPermissions(Collections.unmodifiableSet(rolePerms));
+                }
+                roleList.add(role);
+            }
+        }
+        roleList.sort(Comparator.comparing(Role::getRoleId));
+        return roleList;
+    }
+
+    /**
+     * 用户的角色组合
+     */
+    private static class UserRoles
+    {
+        private final long version;
+
+        /** 全部角色ID升序拼接 */
+        private final String key;
+
+        /** 全部角色 */
+        private final List<Role> roles;
+
+        /** 正常状态的角色ID */
+        private final List<Long> normalRoleIds;
+
+        /** 角色权限字符 */
+        private final Set<String> roleKeys;
+
+        private UserRoles(long version, String key, List<Role> roles, List<Long> normalRoleIds, Set<String> roleKeys)
+        {
+            this.version = version;
+            this.key = key;
+            this.roles = roles;
+            this.normalRoleIds = normalRoleIds;
+            this.roleKeys = roleKeys;
+        }
+    }
+
+    /**
+     * 角色组合的授权数据
+     */
+    private static class RoleSetAuth
+    {
+        private final long version;
+
+        private final AuthorizationInfo authorizationInfo;
+
+        private final List<Menu> menus;
+
+        private final PermissionTrie permissionTrie;
+
+        /** 角色及其权限字符 */
+        private final List<Role> roles;
+
+        private RoleSetAuth(long version, AuthorizationInfo authorizationInfo, List<Menu> menus, List<Role> roles)
+        {
+            this.version = version;
+            this.authorizationInfo = authorizationInfo;
+            this.menus = menus;
+            this.roles = roles;
+            this.permissionTrie = new PermissionTrie(authorizationInfo.getStringPermissions());
+        }
+    }
+}
@@ -1,14 +1,13 @@
 package com.ruoyi.framework.shiro.session;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Date;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
 import org.apache.shiro.session.mgt.eis.EnterpriseCacheSessionDAO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import com.ruoyi.framework.manager.AsyncManager;
-import com.ruoyi.framework.manager.factory.AsyncFactory;
 import com.ruoyi.project.monitor.online.domain.OnlineSession;
 import com.ruoyi.project.monitor.online.domain.UserOnline;
 import com.ruoyi.project.monitor.online.service.IUserOnlineService;
@@ -37,6 +36,9 @@ public class OnlineSessionDAO extends EnterpriseCacheSessionDAO
     @Autowired
     private OnlineSessionFactory onlineSessionFactory;
 
+    @Autowired
+    private OnlineSessionSynchronizer onlineSessionSynchronizer;
+
     public OnlineSessionDAO()
     {
         super();
@@ -106,7 +108,7 @@ public class OnlineSessionDAO extends EnterpriseCacheSessionDAO
         {
             onlineSession.resetAttributeChanged();
         }
-        AsyncManager.me().execute(AsyncFactory.syncSessionToDb(onlineSession));
+        onlineSessionSynchronizer.save(onlineSession);
     }
 
     /**
@@ -121,6 +123,6 @@ public class OnlineSessionDAO extends EnterpriseCacheSessionDAO
             return;
         }
         onlineSession.setStatus(OnlineSession.OnlineStatus.off_line);
-        onlineService.deleteOnlineById(String.valueOf(onlineSession.getId()));
+        onlineSessionSynchronizer.remove(Collections.singletonList(String.valueOf(onlineSession.getId())));
     }
 }
@@ -0,0 +1,150 @@
+package com.ruoyi.framework.shiro.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.utils.AddressUtils;
+import com.ruoyi.framework.manager.AsyncManager;
+import com.ruoyi.project.monitor.online.domain.OnlineSession;
+import com.ruoyi.project.monitor.online.domain.UserOnline;
+import com.ruoyi.project.monitor.online.mapper.UserOnlineMapper;
+
+/**
+ * 在线会话同步（同一会话只保留最新快照，按周期批量写入和删除sys_user_online）
+ *
+ * @author ruoyi
+ */
+@Component
+public class OnlineSessionSynchronizer
+{
+    private static final Logger log = LoggerFactory.getLogger(OnlineSessionSynchronizer.class);
+
+    /** 单条批量语句包含的最大会话数 */
+    private static final int BATCH_SIZE = 500;
+
+    /** 批量写入周期（秒） */
+    @Value("${shiro.session.syncFlushInterval:5}")
+    private long flushInterval;
+
+    @Autowired
+    private UserOnlineMapper userOnlineMapper;
+
+    /** 会话ID -> 待写入的会话快照 */
+    private final Map<String, UserOnline> pending = new ConcurrentHashMap<String, UserOnline>();
+
+    /** 待删除的会话ID */
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init()
+    {
+        AsyncManager.me().scheduleWithFixedDelay(this::flush, flushInterval, TimeUnit.SECONDS);
+        AsyncManager.me().addDrainTask(this::flush);
+    }
+
+    /**
+     * 记录会话快照，同一会话在下次写入前重复记录只保留最新的一份
+     *
+     * @param session 在线会话
+     */
+    public void save(OnlineSession session)
+    {
+        String sessionId = String.valueOf(session.getId());
+        if (removed.contains(sessionId))
+        {
+            return;
+        }
+        UserOnline online = new UserOnline();
+        online.setSessionId(sessionId);
+        online.setDeptName(session.getDeptName());
+        online.setLoginName(session.getLoginName());
+        online.setStartTimestamp(session.getStartTimestamp());
+        online.setLastAccessTime(session.getLastAccessTime());
+        online.setExpireTime(session.getTimeout());
+        online.setIpaddr(session.getHost());
+        online.setBrowser(session.getBrowser());
+        online.setOs(session.getOs());
+        online.setStatus(session.getStatus());
+        pending.put(sessionId, online);
+    }
+
+    /**
+     * 记录待删除的会话，并丢弃尚未写入的快照
+     *
+     * @param sessionIds 会话ID集合
+     */
+    public void remove(Collection<String> sessionIds)
+    {
+        for (String sessionId : sessionIds)
+        {
+            removed.add(sessionId);
+            pending.remove(sessionId);
+        }
+    }
+
+    /**
+     * 将待写入和待删除的会话批量同步到数据库
+     */
+    public synchronized void flush()
+    {
+        try
+        {
+            List<UserOnline> batch = new ArrayList<UserOnline>(Math.min(pending.size(), BATCH_SIZE));
+            for (String sessionId : pending.keySet())
+            {
+                UserOnline online = pending.remove(sessionId);
+                if (online == null)
+                {
+                    continue;
+                }
+                // 地址查询在同步线程中进行，不占用请求线程
+                online.setLoginLocation(AddressUtils.getRealAddressByIP(online.getIpaddr()));
+                batch.add(online);
+                if (batch.size() >= BATCH_SIZE)
+                {
+                    userOnlineMapper.saveOnlineBatch(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty())
+            {
+                userOnlineMapper.saveOnlineBatch(batch);
+            }
+            List<String> ids = new ArrayList<String>(Math.min(removed.size(), BATCH_SIZE));
+            for (String sessionId : removed)
+            {
+                ids.add(sessionId);
+                if (ids.size() >= BATCH_SIZE)
+                {
+                    deleteBatch(ids);
+                }
+            }
+            if (!ids.isEmpty())
+            {
+                deleteBatch(ids);
+            }
+        }
+        catch (Exception e)
+        {
+            // 会话快照按同步周期重新生成，写入失败不回放
+            log.error("在线会话批量同步失败", e);
+        }
+    }
+
+    private void deleteBatch(List<String> ids)
+    {
+        userOnlineMapper.deleteOnlineByIds(ids);
+        removed.removeAll(ids);
+        ids.clear();
+    }
+}
@@ -0,0 +1,250 @@
+package com.ruoyi.framework.shiro.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import com.ruoyi.framework.shiro.session.store.SessionStore;
+import com.ruoyi.project.monitor.online.domain.OnlineSession;
+import com.ruoyi.project.monitor.online.domain.SessionStoreEntry;
+
+/**
+ * 共享会话DAO（会话序列化后保存在SessionStore中，多个应用节点共享）
+ *
+ * 本地近缓存保存反序列化后的会话，超过检查间隔后先比较版本号，版本未变不重新加载；
+ * 只有访问时间变化的会话按写回间隔写入，并以版本号比较写入，其他节点已修改时放弃本次写回。
+ *
+ * @author ruoyi
+ */
+public class SharedSessionDAO extends OnlineSessionDAO
+{
+    private static final Logger log = LoggerFactory.getLogger(SharedSessionDAO.class);
+
+    /** 会话在存储中的键前缀 */
+    private static final String KEY_PREFIX = "shiro-session:";
+
+    /** 近缓存最大会话数 */
+    @Value("${shiro.session.nearCacheSize:10000}")
+    private int nearCacheSize;
+
+    /** 近缓存的版本检查间隔（毫秒） */
+    @Value("${shiro.session.versionCheckInterval:1000}")
+    private long versionCheckInterval;
+
+    /** 只有访问时间变化的会话写回存储的间隔（秒） */
+    @Value("${shiro.session.touchWriteInterval:60}")
+    private long touchWriteInterval;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    private Map<Serializable, CachedSession> nearCache;
+
+    @PostConstruct
+    public void init()
+    {
+        nearCache = Collections.synchronizedMap(new LinkedHashMap<Serializable, CachedSession>(256, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Serializable, CachedSession> eldest)
+            {
+                return size() > nearCacheSize;
+            }
+        });
+    }
+
+    @Override
+    public Serializable create(Session session)
+    {
+        Serializable sessionId = generateSessionId(session);
+        assignSessionId(session, sessionId);
+        write((OnlineSession) session, null);
+        return sessionId;
+    }
+
+    @Override
+    public Session readSession(Serializable sessionId) throws UnknownSessionException
+    {
+        Session session = doReadSession(sessionId);
+        if (session == null)
+        {
+            throw new UnknownSessionException("There is no session with id [" + sessionId + "]");
+        }
+        return session;
+    }
+
+    @Override
+    protected Session doReadSession(Serializable sessionId)
+    {
+        if (sessionId == null)
+        {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        CachedSession cached = nearCache.get(sessionId);
+        if (cached != null)
+        {
+            if (now - cached.checkedAt < versionCheckInterval)
+            {
+                return cached.session;
+            }
+            Long version = sessionStore.getVersion(key(sessionId));
+            if (version == null)
+            {
+                nearCache.remove(sessionId);
+                return null;
+            }
+            if (version == cached.version)
+            {
+                cached.checkedAt = now;
+                return cached.session;
+            }
+        }
+        SessionStoreEntry entry = sessionStore.get(key(sessionId));
+        OnlineSession session = entry == null ? null : deserialize(entry.getStoreValue());
+        if (session == null)
+        {
+            nearCache.remove(sessionId);
+            return null;
+        }
+        nearCache.put(sessionId, new CachedSession(session, entry.getVersion()));
+        return session;
+    }
+
+    @Override
+    public void update(Session session) throws UnknownSessionException
+    {
+        OnlineSession onlineSession = (OnlineSession) session;
+        CachedSession cached = nearCache.get(session.getId());
+        if (cached != null && cached.session == onlineSession && cached.isOnlyTouched(onlineSession))
+        {
+            if (onlineSession.getLastAccessTime().getTime() - cached.accessTime < TimeUnit.SECONDS.toMillis(touchWriteInterval))
+            {
+                return;
+            }
+            write(onlineSession, cached.version);
+            return;
+        }
+        write(onlineSession, null);
+    }
+
+    @Override
+    public void delete(Session session)
+    {
+        nearCache.remove(session.getId());
+        sessionStore.delete(key(session.getId()));
+        doDelete(session);
+    }
+
+    @Override
+    public Collection<Session> getActiveSessions()
+    {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 写入存储
+     *
+     * @param session 会话
+     * @param expectedVersion 期望的版本号，为null时直接覆盖
+     */
+    private void write(OnlineSession session, Long expectedVersion)
+    {
+        byte[] value = serialize(session);
+        // 过期会话由存储按存活时间清理，多保留一个写回间隔，避免访问时间未写回时被提前清理
+        long ttl = session.getTimeout() < 0 ? 0 : session.getTimeout() + TimeUnit.SECONDS.toMillis(touchWriteInterval);
+        Long version = expectedVersion == null ? sessionStore.put(key(session.getId()), value, ttl)
+                : sessionStore.replace(key(session.getId()), expectedVersion, value, ttl);
+        if (version == null)
+        {
+            nearCache.remove(session.getId());
+            return;
+        }
+        nearCache.put(session.getId(), new CachedSession(session, version));
+    }
+
+    private static String key(Serializable sessionId)
+    {
+        return KEY_PREFIX + sessionId;
+    }
+
+    private static byte[] serialize(OnlineSession session)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+        {
+            out.writeObject(session);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("会话序列化失败", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OnlineSession deserialize(byte[] value)
+    {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(value)))
+        {
+            return (OnlineSession) in.readObject();
+        }
+        catch (IOException | ClassNotFoundException | ClassCastException e)
+        {
+            log.warn("会话反序列化失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 近缓存中的会话，记录写入或加载时的状态用于判断是否只有访问时间变化
+     */
+    private static class CachedSession
+    {
+        private final OnlineSession session;
+
+        private final long version;
+
+        private final int attributeVersion;
+
+        private final long timeout;
+
+        private final boolean stopped;
+
+        private final long accessTime;
+
+        private volatile long checkedAt;
+
+        private CachedSession(OnlineSession session, long version)
+        {
+            this.session = session;
+            this.version = version;
+            this.attributeVersion = session.getAttributeVersion();
+            this.timeout = session.getTimeout();
+            this.stopped = session.getStopTimestamp() != null;
+            this.accessTime = session.getLastAccessTime() == null ? 0 : session.getLastAccessTime().getTime();
+            this.checkedAt = System.currentTimeMillis();
+        }
+
+        private boolean isOnlyTouched(OnlineSession current)
+        {
+            return attributeVersion == current.getAttributeVersion() && timeout == current.getTimeout()
+                    && stopped == (current.getStopTimestamp() != null);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ruoyi.framework.shiro.session.store;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.ruoyi.framework.manager.AsyncManager;
+import com.ruoyi.project.monitor.online.domain.SessionStoreEntry;
+import com.ruoyi.project.monitor.online.mapper.SessionStoreMapper;
+
+/**
+ * 数据库会话存储（sys_session_store），多个应用节点连接同一数据库时共享会话
+ *
+ * 条件写入通过版本号比较实现，列表操作在版本冲突时重试
+ *
+ * @author ruoyi
+ */
+public class DatabaseSessionStore implements SessionStore
+{
+    private static final Logger log = LoggerFactory.getLogger(DatabaseSessionStore.class);
+
+    /** 列表操作版本冲突时的最大重试次数 */
+    private static final int MAX_RETRIES = 10;
+
+    /** 单次清理删除的最大行数 */
+    private static final int PURGE_BATCH = 1000;
+
+    @Autowired
+    private SessionStoreMapper sessionStoreMapper;
+
+    @PostConstruct
+    public void init()
+    {
+        AsyncManager.me().scheduleWithFixedDelay(this::purgeExpired, 5, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public SessionStoreEntry get(String key)
+    {
+        return sessionStoreMapper.selectEntry(key, System.currentTimeMillis());
+    }
+
+    @Override
+    public Long getVersion(String key)
+    {
+        return sessionStoreMapper.selectVersion(key, System.currentTimeMillis());
+    }
+
+    @Override
+    public long put(String key, byte[] value, long ttlMillis)
+    {
+        SessionStoreEntry entry = newEntry(key, value, ttlMillis);
+        sessionStoreMapper.upsertEntry(entry);
+        return entry.getVersion();
+    }
+
+    @Override
+    public Long replace(String key, Long expectedVersion, byte[] value, long ttlMillis)
+    {
+        SessionStoreEntry entry = newEntry(key, value, ttlMillis);
+        long now = System.currentTimeMillis();
+        int rows;
+        if (expectedVersion == null)
+        {
+            // 已过期的条目视为不存在
+            sessionStoreMapper.deleteExpired(key, now, 1);
+            rows = sessionStoreMapper.insertEntryIfAbsent(entry);
+        }
+        else
+        {
+            rows = sessionStoreMapper.updateEntryIfVersion(entry, expectedVersion, now);
+        }
+        return rows > 0 ? entry.getVersion() : null;
+    }
+
+    @Override
+    public void delete(String key)
+    {
+        sessionStoreMapper.deleteEntry(key);
+    }
+
+    @Override
+    public List<String> admit(String key, String member, int max, boolean evictNewest)
+    {
+        for (int i = 0; i < MAX_RETRIES; i++)
+        {
+            SessionStoreEntry current = get(key);
+            List<String> members = SessionMembers.decode(current == null ? null : current.getStoreValue());
+            if (members.contains(member))
+            {
+                return Collections.emptyList();
+            }
+            List<String> evicted = SessionMembers.admit(members, member, max, evictNewest);
+            if (replace(key, current == null ? null : current.getVersion(), SessionMembers.encode(members), 0) != null)
+            {
+                return evicted;
+            }
+        }
+        log.warn("会话列表[{}]写入冲突，放弃加入成员{}", key, member);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void removeMember(String key, String member)
+    {
+        for (int i = 0; i < MAX_RETRIES; i++)
+        {
+            SessionStoreEntry current = get(key);
+            if (current == null)
+            {
+                return;
+            }
+            List<String> members = SessionMembers.decode(current.getStoreValue());
+            if (!members.remove(member))
+            {
+                return;
+            }
+            if (replace(key, current.getVersion(), SessionMembers.encode(members), 0) != null)
+            {
+                return;
+            }
+        }
+        log.warn("会话列表[{}]写入冲突，放弃移除成员{}", key, member);
+    }
+
+    /**
+     * 分批清理已过期的条目
+     */
+    public void purgeExpired()
+    {
+        try
+        {
+            long now = System.currentTimeMillis();
+            int rows;
+            do
+            {
+                rows = sessionStoreMapper.deleteExpired(null, now, PURGE_BATCH);
+            }
+            while (rows >= PURGE_BATCH);
+        }
+        catch (Exception e)
+        {
+            log.error("清理过期会话存储失败", e);
+        }
+    }
+
+    private static SessionStoreEntry newEntry(String key, byte[] value, long ttlMillis)
+    {
+        long expireTime = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        return new SessionStoreEntry(key, ThreadLocalRandom.current().nextLong(), value, expireTime);
+    }
+}
@@ -0,0 +1,132 @@
+package com.ruoyi.framework.shiro.session.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import com.ruoyi.framework.manager.AsyncManager;
+import com.ruoyi.project.monitor.online.domain.SessionStoreEntry;
+
+/**
+ * 进程内会话存储（单节点部署和测试使用，不在节点间共享）
+ *
+ * 条目不可变，列表操作读取当前条目后以比较并替换写入新条目，不加锁
+ *
+ * @author ruoyi
+ */
+public class LocalSessionStore implements SessionStore
+{
+    private final ConcurrentHashMap<String, SessionStoreEntry> entries = new ConcurrentHashMap<String, SessionStoreEntry>();
+
+    @PostConstruct
+    public void init()
+    {
+        AsyncManager.me().scheduleWithFixedDelay(this::purgeExpired, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public SessionStoreEntry get(String key)
+    {
+        SessionStoreEntry entry = entries.get(key);
+        return entry == null || entry.isExpired(System.currentTimeMillis()) ? null : entry;
+    }
+
+    @Override
+    public Long getVersion(String key)
+    {
+        SessionStoreEntry entry = get(key);
+        return entry == null ? null : entry.getVersion();
+    }
+
+    @Override
+    public long put(String key, byte[] value, long ttlMillis)
+    {
+        SessionStoreEntry entry = newEntry(key, value, ttlMillis);
+        entries.put(key, entry);
+        return entry.getVersion();
+    }
+
+    @Override
+    public Long replace(String key, Long expectedVersion, byte[] value, long ttlMillis)
+    {
+        SessionStoreEntry entry = newEntry(key, value, ttlMillis);
+        long now = System.currentTimeMillis();
+        SessionStoreEntry result = entries.compute(key, (k, current) -> {
+            boolean absent = current == null || current.isExpired(now);
+            if (expectedVersion == null ? absent : !absent && current.getVersion() == expectedVersion)
+            {
+                return entry;
+            }
+            return current;
+        });
+        return result == entry ? entry.getVersion() : null;
+    }
+
+    @Override
+    public void delete(String key)
+    {
+        entries.remove(key);
+    }
+
+    @Override
+    public List<String> admit(String key, String member, int max, boolean evictNewest)
+    {
+        while (true)
+        {
+            SessionStoreEntry current = entries.get(key);
+            boolean absent = current == null || current.isExpired(System.currentTimeMillis());
+            List<String> members = absent ? new ArrayList<String>() : SessionMembers.decode(current.getStoreValue());
+            if (members.contains(member))
+            {
+                return Collections.emptyList();
+            }
+            List<String> evicted = SessionMembers.admit(members, member, max, evictNewest);
+            SessionStoreEntry entry = newEntry(key, SessionMembers.encode(members), 0);
+            // 条目未重写equals，按引用比较，其他线程已修改时重新读取
+            if (current == null ? entries.putIfAbsent(key, entry) == null : entries.replace(key, current, entry))
+            {
+                return evicted;
+            }
+        }
+    }
+
+    @Override
+    public void removeMember(String key, String member)
+    {
+        while (true)
+        {
+            SessionStoreEntry current = entries.get(key);
+            if (current == null)
+            {
+                return;
+            }
+            List<String> members = SessionMembers.decode(current.getStoreValue());
+            if (!members.remove(member))
+            {
+                return;
+            }
+            if (members.isEmpty() ? entries.remove(key, current) : entries.replace(key, current, newEntry(key, SessionMembers.encode(members), 0)))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 清理已过期的条目
+     */
+    public void purgeExpired()
+    {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private static SessionStoreEntry newEntry(String key, byte[] value, long ttlMillis)
+    {
+        long expireTime = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        return new SessionStoreEntry(key, ThreadLocalRandom.current().nextLong(), value, expireTime);
+    }
+}
@@ -0,0 +1,53 @@
+package com.ruoyi.framework.shiro.session.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 会话存储中的成员列表（按加入顺序倒序，换行分隔）
+ *
+ * @author ruoyi
+ */
+final class SessionMembers
+{
+    private SessionMembers()
+    {
+    }
+
+    static List<String> decode(byte[] value)
+    {
+        if (value == null || value.length == 0)
+        {
+            return new ArrayList<String>();
+        }
+        return new ArrayList<String>(Arrays.asList(new String(value, StandardCharsets.UTF_8).split("\n")));
+    }
+
+    static byte[] encode(List<String> members)
+    {
+        return String.join("\n", members).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 将成员加入列表头部，超出上限时移出成员
+     *
+     * @return 被移出的成员
+     */
+    static List<String> admit(List<String> members, String member, int max, boolean evictNewest)
+    {
+        if (members.contains(member))
+        {
+            return Collections.emptyList();
+        }
+        members.add(0, member);
+        List<String> evicted = new ArrayList<String>();
+        while (members.size() > max)
+        {
+            evicted.add(evictNewest ? members.remove(0) : members.remove(members.size() - 1));
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ruoyi.framework.shiro.session.store;
+
+import java.util.List;
+import com.ruoyi.project.monitor.online.domain.SessionStoreEntry;
+
+/**
+ * 会话键值存储，多个应用节点使用同一后端时共享会话
+ *
+ * 每次写入生成新的版本号，读取方以版本号判断本地缓存是否过期
+ *
+ * @author ruoyi
+ */
+public interface SessionStore
+{
+    /**
+     * 读取条目
+     *
+     * @param key 键
+     * @return 条目，不存在或已过期返回null
+     */
+    public SessionStoreEntry get(String key);
+
+    /**
+     * 读取条目的版本号
+     *
+     * @param key 键
+     * @return 版本号，不存在或已过期返回null
+     */
+    public Long getVersion(String key);
+
+    /**
+     * 写入条目，已存在时覆盖
+     *
+     * @param key 键
+     * @param value 值
+     * @param ttlMillis 存活时间（毫秒），不大于0表示不过期
+     * @return 新版本号
+     */
+    public long put(String key, byte[] value, long ttlMillis);
+
+    /**
+     * 版本号一致时写入条目
+     *
+     * @param key 键
+     * @param expectedVersion 期望的当前版本号，为null表示要求键不存在
+     * @param value 值
+     * @param ttlMillis 存活时间（毫秒），不大于0表示不过期
+     * @return 新版本号，版本号不一致返回null
+     */
+    public Long replace(String key, Long expectedVersion, byte[] value, long ttlMillis);
+
+    /**
+     * 删除条目
+     *
+     * @param key 键
+     */
+    public void delete(String key);
+
+    /**
+     * 原子地将成员加入列表头部，超出上限时按顺序移出成员
+     *
+     * @param key 列表键
+     * @param member 成员
+     * @param max 列表最大长度
+     * @param evictNewest 是否从头部（最新加入的）移出，否则从尾部（最早加入的）移出
+     * @return 被移出的成员，成员已在列表中时返回空集合
+     */
+    public List<String> admit(String key, String member, int max, boolean evictNewest);
+
+    /**
+     * 原子地从列表中移除成员
+     *
+     * @param key 列表键
+     * @param member 成员
+     */
+    public void removeMember(String key, String member);
+}
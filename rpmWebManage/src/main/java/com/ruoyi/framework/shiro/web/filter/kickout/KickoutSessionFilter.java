@@ -2,14 +2,11 @@ package com.ruoyi.framework.shiro.web.filter.kickout;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.List;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import org.apache.shiro.cache.Cache;
-import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.mgt.DefaultSessionKey;
 import org.apache.shiro.session.mgt.SessionManager;
@@ -20,6 +17,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ruoyi.common.constant.ShiroConstants;
 import com.ruoyi.common.utils.ServletUtils;
 import com.ruoyi.common.utils.security.ShiroUtils;
+import com.ruoyi.framework.shiro.session.store.SessionStore;
 import com.ruoyi.framework.web.domain.AjaxResult;
 import com.ruoyi.project.system.user.domain.User;
 
@@ -48,7 +46,7 @@ public class KickoutSessionFilter extends AccessControlFilter
     private String kickoutUrl;
 
     private SessionManager sessionManager;
-    private Cache<String, Deque<Serializable>> cache;
+    private SessionStore sessionStore;
 
     @Override
     protected boolean isAccessAllowed(ServletRequest servletRequest, ServletResponse servletResponse, Object o)
@@ -74,31 +72,20 @@ public class KickoutSessionFilter extends AccessControlFilter
             String loginName = user.getLoginName();
             Serializable sessionId = session.getId();
 
-            // 读取缓存用户 没有就存入
-            Deque<Serializable> deque = cache.get(loginName);
-            if (deque == null)
+            // 如果sessionId尚未加入且用户没有被踢出，原子地将sessionId放入用户会话列表，超出最大会话数的sessionId同时移出
+            // 已加入的会话不再访问会话列表，其他会话登录时由其踢出本会话
+            List<String> kickoutSessionIds = null;
+            if (session.getAttribute(ShiroConstants.SESSION_ADMITTED) == null && session.getAttribute("kickout") == null)
             {
-                // 初始化队列
-                deque = new ArrayDeque<Serializable>();
-            }
-
-            // 如果队列里没有此sessionId，且用户没有被踢出；放入队列
-            if (!deque.contains(sessionId) && session.getAttribute("kickout") == null)
-            {
-                // 将sessionId存入队列
-                deque.push(sessionId);
-                // 将用户的sessionId队列缓存
-                cache.put(loginName, deque);
+                // 是否踢出后来登录的，默认是false；即后者登录的用户踢出前者登录的用户；
+                kickoutSessionIds = sessionStore.admit(ShiroConstants.SYS_USERCACHE + ":" + loginName, String.valueOf(sessionId), maxSession, kickoutAfter);
+                session.setAttribute(ShiroConstants.SESSION_ADMITTED, true);
             }
 
-            // 如果队列里的sessionId数超出最大会话数，开始踢人
-            while (deque.size() > maxSession)
+            // 对移出的sessionId开始踢人
+            for (int i = 0; kickoutSessionIds != null && i < kickoutSessionIds.size(); i++)
             {
-                // 是否踢出后来登录的，默认是false；即后者登录的用户踢出前者登录的用户；
-                Serializable kickoutSessionId = kickoutAfter ? deque.removeFirst() : deque.removeLast();
-                // 踢出后再更新下缓存队列
-                cache.put(loginName, deque);
-
+                Serializable kickoutSessionId = kickoutSessionIds.get(i);
                 try
                 {
                     // 获取被踢出的sessionId的session对象
@@ -167,10 +154,8 @@ public class KickoutSessionFilter extends AccessControlFilter
         this.sessionManager = sessionManager;
     }
 
-    // 设置Cache的key的前缀
-    public void setCacheManager(CacheManager cacheManager)
+    public void setSessionStore(SessionStore sessionStore)
     {
-        // 必须和ehcache缓存配置中的缓存name一致
-        this.cache = cacheManager.getCache(ShiroConstants.SYS_USERCACHE);
+        this.sessionStore = sessionStore;
     }
 }
@@ -14,9 +14,8 @@ import org.apache.shiro.web.session.mgt.DefaultWebSessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.ruoyi.common.constant.ShiroConstants;
-import com.ruoyi.common.utils.StringUtils;
-import com.ruoyi.common.utils.bean.BeanUtils;
 import com.ruoyi.common.utils.spring.SpringUtils;
+import com.ruoyi.framework.shiro.session.OnlineSessionSynchronizer;
 import com.ruoyi.project.monitor.online.domain.OnlineSession;
 import com.ruoyi.project.monitor.online.domain.UserOnline;
 import com.ruoyi.project.monitor.online.service.UserOnlineServiceImpl;
@@ -30,6 +29,15 @@ public class OnlineWebSessionManager extends DefaultWebSessionManager
 {
     private static final Logger log = LoggerFactory.getLogger(OnlineWebSessionManager.class);
 
+    /** 每批检查的过期会话数 */
+    private static final int VALIDATION_BATCH = 500;
+
+    /**
+     * 最早可能有会话过期的时间，由上次检查后剩余会话中最早的最后访问时间得出；
+     * 之后写入的会话最后访问时间都不早于检查时间，未到该时间时无需查询数据库
+     */
+    private volatile long nextExpireTime;
+
     @Override
     public void setAttribute(SessionKey sessionKey, Object attributeKey, Object value) throws InvalidSessionException
     {
@@ -37,7 +45,10 @@ public class OnlineWebSessionManager extends DefaultWebSessionManager
         if (value != null && needMarkAttributeChanged(attributeKey))
         {
             OnlineSession session = getOnlineSession(sessionKey);
-            session.markAttributeChanged();
+            if (session != null)
+            {
+                session.markAttributeChanged();
+            }
         }
     }
 
@@ -71,22 +82,22 @@ public class OnlineWebSessionManager extends DefaultWebSessionManager
         if (removed != null)
         {
             OnlineSession s = getOnlineSession(sessionKey);
-            s.markAttributeChanged();
+            if (s != null)
+            {
+                s.markAttributeChanged();
+            }
         }
 
         return removed;
     }
 
+    /**
+     * 获取缓存中的会话对象本身（不复制），属性变更标识直接记录在该对象上供OnlineSessionDao同步
+     */
     public OnlineSession getOnlineSession(SessionKey sessionKey)
     {
-        OnlineSession session = null;
-        Object obj = doGetSession(sessionKey);
-        if (StringUtils.isNotNull(obj))
-        {
-            session = new OnlineSession();
-            BeanUtils.copyBeanProp(session, obj);
-        }
-        return session;
+        Session session = doGetSession(sessionKey);
+        return session instanceof OnlineSession ? (OnlineSession) session : null;
     }
 
     /**
@@ -108,48 +119,60 @@ public class OnlineWebSessionManager extends DefaultWebSessionManager
             // 永不过期不进行处理
             return;
         }
-        Date expiredDate = DateUtils.addMilliseconds(new Date(), 0 - timeout);
+        Date now = new Date();
+        if (now.getTime() < nextExpireTime)
+        {
+            // 尚无会话可能过期，不查询数据库
+            log.debug("No sessions due before {}.", nextExpireTime);
+            return;
+        }
+        Date expiredDate = DateUtils.addMilliseconds(now, 0 - timeout);
         UserOnlineServiceImpl userOnlineService = SpringUtils.getBean(UserOnlineServiceImpl.class);
-        List<UserOnline> userOnlineList = userOnlineService.selectOnlineByExpired(expiredDate);
-        // 批量过期删除
-        List<String> needOfflineIdList = new ArrayList<String>();
-        for (UserOnline userOnline : userOnlineList)
+        OnlineSessionSynchronizer onlineSessionSynchronizer = SpringUtils.getBean(OnlineSessionSynchronizer.class);
+        // 按最后访问时间、会话ID分批检查，每批过期会话交给会话同步分批删除
+        UserOnline after = null;
+        List<UserOnline> userOnlineList;
+        do
         {
-            try
+            userOnlineList = userOnlineService.selectOnlineByExpired(expiredDate, after, VALIDATION_BATCH);
+            List<String> needOfflineIdList = new ArrayList<String>();
+            for (UserOnline userOnline : userOnlineList)
             {
-                SessionKey key = new DefaultSessionKey(userOnline.getSessionId());
-                Session session = retrieveSession(key);
-                if (session != null)
+                try
                 {
-                    throw new InvalidSessionException();
+                    SessionKey key = new DefaultSessionKey(userOnline.getSessionId());
+                    Session session = retrieveSession(key);
+                    if (session != null)
+                    {
+                        throw new InvalidSessionException();
+                    }
                 }
-            }
-            catch (InvalidSessionException e)
-            {
-                if (log.isDebugEnabled())
+                catch (InvalidSessionException e)
                 {
-                    boolean expired = (e instanceof ExpiredSessionException);
-                    String msg = "Invalidated session with id [" + userOnline.getSessionId() + "]"
-                            + (expired ? " (expired)" : " (stopped)");
-                    log.debug(msg);
+                    if (log.isDebugEnabled())
+                    {
+                        boolean expired = (e instanceof ExpiredSessionException);
+                        String msg = "Invalidated session with id [" + userOnline.getSessionId() + "]"
+                                + (expired ? " (expired)" : " (stopped)");
+                        log.debug(msg);
+                    }
+                    invalidCount++;
+                    needOfflineIdList.add(userOnline.getSessionId());
+                    userOnlineService.removeUserCache(userOnline.getLoginName(), userOnline.getSessionId());
                 }
-                invalidCount++;
-                needOfflineIdList.add(userOnline.getSessionId());
-                userOnlineService.removeUserCache(userOnline.getLoginName(), userOnline.getSessionId());
             }
-
-        }
-        if (needOfflineIdList.size() > 0)
-        {
-            try
+            if (needOfflineIdList.size() > 0)
             {
-                userOnlineService.batchDeleteOnline(needOfflineIdList);
-            }
-            catch (Exception e)
-            {
-                log.error("batch delete db session error.", e);
+                // 与会话同步共用批量删除
+                onlineSessionSynchronizer.remove(needOfflineIdList);
             }
+            after = userOnlineList.isEmpty() ? null : userOnlineList.get(userOnlineList.size() - 1);
         }
+        while (userOnlineList.size() >= VALIDATION_BATCH);
+
+        // 剩余会话中最早的到期时间，没有剩余会话时之后写入的会话最早在一个超时周期后到期
+        Date oldestAccessTime = userOnlineService.selectOldestAccessTime(expiredDate);
+        nextExpireTime = (oldestAccessTime != null ? oldestAccessTime.getTime() : now.getTime()) + timeout;
 
         if (log.isInfoEnabled())
         {
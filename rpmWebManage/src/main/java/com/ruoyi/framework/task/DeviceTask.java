@@ -1,11 +1,15 @@
 package com.ruoyi.framework.task;
 
-import com.ruoyi.project.system.devices.domain.RpmDevices;
+import com.ruoyi.project.system.devices.manager.DeviceStateRecorder;
 import com.ruoyi.project.system.devices.service.IRpmDevicesService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author lan
@@ -16,20 +20,28 @@ import java.util.List;
 @Component("deviceTask")
 public class DeviceTask {
 
+    private static final Logger log = LoggerFactory.getLogger(DeviceTask.class);
+
     @Autowired
     private IRpmDevicesService rpmDevicesService;
 
-    // 获取设备列表 根据设备最后在线时间 最后上报时间 和现在时间间隔超过20分钟 则调整设备状态为离线
+    @Autowired
+    private DeviceStateRecorder deviceStateRecorder;
+
+    // 离线判定阈值（分钟）
+    @Value("${device.offline.threshold:20}")
+    private long offlineThreshold;
+
+    // 最后在线时间和现在时间间隔超过阈值的在线设备 按注册表判定后按主键批量调整为离线
     public void resetDeviceStatus() {
-        List<RpmDevices> rpmDevicesList = rpmDevicesService.selectRpmDevicesList();
-        for (RpmDevices rpmDevices : rpmDevicesList) {
-            if (rpmDevices.getLastSeen() != null) {
-                long time = System.currentTimeMillis() - rpmDevices.getLastSeen().getTime();
-                if (time > 20 * 60 * 1000) {
-                    rpmDevices.setStatus(0L);
-                    rpmDevicesService.updateRpmDevices(rpmDevices);
-                }
-            }
-        }
+        long start = System.currentTimeMillis();
+        Date lastSeen = new Date(start - TimeUnit.MINUTES.toMillis(offlineThreshold));
+        int rows = rpmDevicesService.updateRpmDevicesOffline(lastSeen);
+        log.info("设备离线检测完成，置为离线{}台，耗时{}毫秒", rows, System.currentTimeMillis() - start);
+    }
+
+    // 按保留天数清理设备状态变更记录与小时、天汇总
+    public void purgeDeviceHistory() {
+        deviceStateRecorder.purge();
     }
 }
@@ -0,0 +1,38 @@
+package com.ruoyi.framework.task;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.ruoyi.project.monitor.operlog.manager.OperLogIndex;
+import com.ruoyi.project.monitor.retention.service.ILogRetentionService;
+
+/**
+ * 日志保留定时任务
+ *
+ * @author ruoyi
+ */
+@Component("logTask")
+public class LogTask
+{
+    @Autowired
+    private ILogRetentionService logRetentionService;
+
+    @Autowired
+    private OperLogIndex operLogIndex;
+
+    /**
+     * 维护操作日志和登录日志的月份分区，并清理超过保留期的日志
+     */
+    public void purgeLogs()
+    {
+        logRetentionService.purgeOperLog();
+        logRetentionService.purgeLogininfor();
+    }
+
+    /**
+     * 全文索引未就绪（启动时构建中断）时从中断处继续构建，已就绪时跳过
+     */
+    public void rebuildOperLogIndex()
+    {
+        operLogIndex.rebuild();
+    }
+}
@@ -3,6 +3,7 @@ package com.ruoyi.framework.web.controller;
 import java.beans.PropertyEditorSupport;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.WebDataBinder;
@@ -14,8 +15,10 @@ import com.ruoyi.common.utils.PageUtils;
 import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.common.utils.security.ShiroUtils;
 import com.ruoyi.common.utils.sql.SqlUtil;
+import com.ruoyi.common.utils.text.Convert;
 import com.ruoyi.framework.web.domain.AjaxResult;
 import com.ruoyi.framework.web.domain.AjaxResult.Type;
+import com.ruoyi.framework.web.domain.BaseEntity;
 import com.ruoyi.framework.web.page.PageDomain;
 import com.ruoyi.framework.web.page.TableDataInfo;
 import com.ruoyi.framework.web.page.TableSupport;
@@ -55,6 +58,31 @@ public class BaseController
         PageUtils.startPage();
     }
 
+    /**
+     * 设置请求分页数据
+     * 
+     * @param count 是否执行count查询
+     */
+    protected void startPage(boolean count)
+    {
+        PageUtils.startPage(count);
+    }
+
+    /**
+     * 列表未指定时间范围时默认只查询最近的天数（导出不受影响）
+     * 
+     * @param entity 查询条件
+     * @param days 天数，不大于0时不限制
+     */
+    protected void startRecentDays(BaseEntity entity, int days)
+    {
+        Map<String, Object> params = entity.getParams();
+        if (days > 0 && StringUtils.isEmpty(Convert.toStr(params.get("beginTime"))) && StringUtils.isEmpty(Convert.toStr(params.get("endTime"))))
+        {
+            params.put("beginTime", DateUtils.parseDateToStr(DateUtils.YYYY_MM_DD_HH_MM_SS, DateUtils.addDays(new Date(), -days)));
+        }
+    }
+
     /**
      * 设置请求排序数据
      */
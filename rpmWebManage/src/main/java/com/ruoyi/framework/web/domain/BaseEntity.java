@@ -7,6 +7,8 @@ import java.util.Map;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.text.Convert;
 
 /**
  * Entity基类
@@ -115,4 +117,18 @@ public class BaseEntity implements Serializable
     {
         this.params = params;
     }
+
+    /**
+     * 请求参数未指定时设置默认值
+     * 
+     * @param key 参数名
+     * @param value 默认值
+     */
+    public void defaultParam(String key, Object value)
+    {
+        if (StringUtils.isEmpty(Convert.toStr(getParams().get(key))))
+        {
+            getParams().put(key, value);
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.ruoyi.project.monitor.logininfor.controller;
 import java.util.List;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -29,6 +30,10 @@ public class LogininforController extends BaseController
 {
     private String prefix = "monitor/logininfor";
 
+    /** 列表未指定时间范围时默认查询的最近天数，只扫描最近的分区 */
+    @Value("${logininfor.queryDays:30}")
+    private int queryDays;
+
     @Autowired
     private ILogininforService logininforService;
 
@@ -47,6 +52,7 @@ public class LogininforController extends BaseController
     @ResponseBody
     public TableDataInfo list(Logininfor logininfor)
     {
+        startRecentDays(logininfor, queryDays);
         startPage();
         List<Logininfor> list = logininforService.selectLogininforList(logininfor);
         return getDataTable(list);
@@ -2,6 +2,7 @@ package com.ruoyi.project.monitor.logininfor.service;
 
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.ruoyi.common.utils.text.Convert;
 import com.ruoyi.project.monitor.logininfor.domain.Logininfor;
@@ -15,6 +16,10 @@ import com.ruoyi.project.monitor.logininfor.mapper.LogininforMapper;
 @Service
 public class LogininforServiceImpl implements ILogininforService
 {
+    /** 默认检索方式（contains包含 prefix前缀 exact精确），前缀和精确检索可以使用索引 */
+    @Value("${logininfor.searchMode:contains}")
+    private String searchMode;
+
     @Autowired
     private LogininforMapper logininforMapper;
 
@@ -38,6 +43,7 @@ public class LogininforServiceImpl implements ILogininforService
     @Override
     public List<Logininfor> selectLogininforList(Logininfor logininfor)
     {
+        logininfor.defaultParam("searchMode", searchMode);
         return logininforMapper.selectLogininforList(logininfor);
     }
 
@@ -38,7 +38,10 @@ public class OnlineSession extends SimpleSession
     private OnlineStatus status = OnlineStatus.on_line;
 
     /** 属性是否改变 优化session数据同步 */
-    private transient boolean attributeChanged = false;
+    private transient volatile boolean attributeChanged = false;
+
+    /** 属性修改次数 共享会话存储据此判断是否需要写回 */
+    private transient volatile int attributeVersion = 0;
 
     @Override
     public String getHost()
@@ -127,6 +130,11 @@ public class OnlineSession extends SimpleSession
         return attributeChanged;
     }
 
+    public int getAttributeVersion()
+    {
+        return attributeVersion;
+    }
+
     public String getAvatar()
     {
         return avatar;
@@ -137,16 +145,25 @@ public class OnlineSession extends SimpleSession
         this.avatar = avatar;
     }
 
+    /**
+     * 修改属性时先增加属性修改次数，会话管理器随后调用的SessionDAO.update据此写回共享存储
+     */
     @Override
     public void setAttribute(Object key, Object value)
     {
         super.setAttribute(key, value);
+        this.attributeVersion++;
     }
 
     @Override
     public Object removeAttribute(Object key)
     {
-        return super.removeAttribute(key);
+        Object removed = super.removeAttribute(key);
+        if (removed != null)
+        {
+            this.attributeVersion++;
+        }
+        return removed;
     }
 
     @Override
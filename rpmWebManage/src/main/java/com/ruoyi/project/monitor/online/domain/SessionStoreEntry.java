@@ -0,0 +1,90 @@
+package com.ruoyi.project.monitor.online.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 会话存储条目 sys_session_store
+ *
+ * @author ruoyi
+ */
+public class SessionStoreEntry
+{
+    /** 键 */
+    private String storeKey;
+
+    /** 版本号，每次写入更换 */
+    private long version;
+
+    /** 值（二进制序列化） */
+    private byte[] storeValue;
+
+    /** 过期时间（毫秒时间戳） */
+    private long expireTime;
+
+    public SessionStoreEntry()
+    {
+    }
+
+    public SessionStoreEntry(String storeKey, long version, byte[] storeValue, long expireTime)
+    {
+        this.storeKey = storeKey;
+        this.version = version;
+        this.storeValue = storeValue;
+        this.expireTime = expireTime;
+    }
+
+    public String getStoreKey()
+    {
+        return storeKey;
+    }
+
+    public void setStoreKey(String storeKey)
+    {
+        this.storeKey = storeKey;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(long version)
+    {
+        this.version = version;
+    }
+
+    public byte[] getStoreValue()
+    {
+        return storeValue;
+    }
+
+    public void setStoreValue(byte[] storeValue)
+    {
+        this.storeValue = storeValue;
+    }
+
+    public long getExpireTime()
+    {
+        return expireTime;
+    }
+
+    public void setExpireTime(long expireTime)
+    {
+        this.expireTime = expireTime;
+    }
+
+    public boolean isExpired(long now)
+    {
+        return expireTime <= now;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this,ToStringStyle.MULTI_LINE_STYLE)
+            .append("storeKey", getStoreKey())
+            .append("version", getVersion())
+            .append("expireTime", getExpireTime())
+            .toString();
+    }
+}
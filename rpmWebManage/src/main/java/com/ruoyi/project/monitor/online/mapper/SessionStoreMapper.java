@@ -0,0 +1,74 @@
+package com.ruoyi.project.monitor.online.mapper;
+
+import org.apache.ibatis.annotations.Param;
+import com.ruoyi.project.monitor.online.domain.SessionStoreEntry;
+
+/**
+ * 会话存储 数据层
+ *
+ * @author ruoyi
+ */
+public interface SessionStoreMapper
+{
+    /**
+     * 查询未过期的条目
+     *
+     * @param storeKey 键
+     * @param now 当前时间（毫秒时间戳）
+     * @return 条目
+     */
+    public SessionStoreEntry selectEntry(@Param("storeKey") String storeKey, @Param("now") long now);
+
+    /**
+     * 查询未过期条目的版本号
+     *
+     * @param storeKey 键
+     * @param now 当前时间（毫秒时间戳）
+     * @return 版本号，不存在返回null
+     */
+    public Long selectVersion(@Param("storeKey") String storeKey, @Param("now") long now);
+
+    /**
+     * 写入条目，已存在时覆盖
+     *
+     * @param entry 条目
+     * @return 结果
+     */
+    public int upsertEntry(SessionStoreEntry entry);
+
+    /**
+     * 键不存在时写入条目
+     *
+     * @param entry 条目
+     * @return 写入行数，已存在返回0
+     */
+    public int insertEntryIfAbsent(SessionStoreEntry entry);
+
+    /**
+     * 版本号一致时更新条目
+     *
+     * @param entry 条目（含新版本号）
+     * @param expectedVersion 期望的当前版本号
+     * @param now 当前时间（毫秒时间戳）
+     * @return 更新行数，版本号不一致返回0
+     */
+    public int updateEntryIfVersion(@Param("entry") SessionStoreEntry entry, @Param("expectedVersion") long expectedVersion, @Param("now") long now);
+
+    /**
+     * 删除条目
+     *
+     * @param storeKey 键
+     * @return 结果
+     */
+    public int deleteEntry(String storeKey);
+
+    /**
+     * 删除已过期的条目
+     *
+     * @param storeKey 键，为空时删除所有过期条目
+     * @param now 当前时间（毫秒时间戳）
+     * @param limit 最多删除行数
+     * @return 删除行数
+     */
+    public int deleteExpired(@Param("storeKey") String storeKey, @Param("now") long now, @Param("limit") int limit);
+}
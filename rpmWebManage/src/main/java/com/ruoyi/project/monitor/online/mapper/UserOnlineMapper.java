@@ -1,6 +1,8 @@
 package com.ruoyi.project.monitor.online.mapper;
 
+import java.util.Date;
 import java.util.List;
+import org.apache.ibatis.annotations.Param;
 import com.ruoyi.project.monitor.online.domain.UserOnline;
 
 /**
@@ -34,6 +36,22 @@ public interface UserOnlineMapper
      */
     public int saveOnline(UserOnline online);
 
+    /**
+     * 批量保存会话信息
+     * 
+     * @param onlines 会话信息集合
+     * @return 结果
+     */
+    public int saveOnlineBatch(List<UserOnline> onlines);
+
+    /**
+     * 批量删除会话信息
+     * 
+     * @param sessionIds 会话ID集合
+     * @return 结果
+     */
+    public int deleteOnlineByIds(List<String> sessionIds);
+
     /**
      * 查询会话集合
      * 
@@ -43,10 +61,22 @@ public interface UserOnlineMapper
     public List<UserOnline> selectUserOnlineList(UserOnline userOnline);
 
     /**
-     * 查询过期会话集合
+     * 按最后访问时间、会话ID顺序分批查询过期会话集合
      * 
      * @param lastAccessTime 过期时间
+     * @param afterTime 上一批最后一条的最后访问时间，为空时从头查询
+     * @param afterId 上一批最后一条的会话ID
+     * @param limit 查询条数
      * @return 会话集合
      */
-    public List<UserOnline> selectOnlineByExpired(String lastAccessTime);
+    public List<UserOnline> selectOnlineByExpired(@Param("lastAccessTime") String lastAccessTime, @Param("afterTime") String afterTime,
+            @Param("afterId") String afterId, @Param("limit") int limit);
+
+    /**
+     * 查询未过期会话中最早的最后访问时间
+     * 
+     * @param lastAccessTime 过期时间
+     * @return 最后访问时间，没有未过期会话时返回null
+     */
+    public Date selectOldestAccessTime(String lastAccessTime);
 }
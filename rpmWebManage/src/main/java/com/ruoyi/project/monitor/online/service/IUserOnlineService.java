@@ -66,10 +66,20 @@ public interface IUserOnlineService
     public void removeUserCache(String loginName, String sessionId);
 
     /**
-     * 查询会话集合
+     * 分批查询过期会话集合
      * 
      * @param expiredDate 有效期
+     * @param after 上一批的最后一条会话，为null时从头查询
+     * @param limit 查询条数
      * @return 会话集合
      */
-    public List<UserOnline> selectOnlineByExpired(Date expiredDate);
+    public List<UserOnline> selectOnlineByExpired(Date expiredDate, UserOnline after, int limit);
+
+    /**
+     * 查询未过期会话中最早的最后访问时间
+     * 
+     * @param expiredDate 有效期
+     * @return 最后访问时间，没有未过期会话时返回null
+     */
+    public Date selectOldestAccessTime(Date expiredDate);
 }
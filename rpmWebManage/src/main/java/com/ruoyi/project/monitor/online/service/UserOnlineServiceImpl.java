@@ -1,11 +1,7 @@
 package com.ruoyi.project.monitor.online.service;
 
-import java.io.Serializable;
 import java.util.Date;
-import java.util.Deque;
 import java.util.List;
-import org.apache.shiro.cache.Cache;
-import org.apache.shiro.cache.ehcache.EhCacheManager;
 import org.apache.shiro.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,6 +9,7 @@ import com.ruoyi.common.constant.ShiroConstants;
 import com.ruoyi.common.utils.DateUtils;
 import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.framework.shiro.session.OnlineSessionDAO;
+import com.ruoyi.framework.shiro.session.store.SessionStore;
 import com.ruoyi.project.monitor.online.domain.UserOnline;
 import com.ruoyi.project.monitor.online.mapper.UserOnlineMapper;
 
@@ -31,7 +28,7 @@ public class UserOnlineServiceImpl implements IUserOnlineService
     private OnlineSessionDAO onlineSessionDAO;
 
     @Autowired
-    private EhCacheManager ehCacheManager;
+    private SessionStore sessionStore;
 
     /**
      * 通过会话序号查询信息
@@ -70,13 +67,9 @@ public class UserOnlineServiceImpl implements IUserOnlineService
     @Override
     public void batchDeleteOnline(List<String> sessions)
     {
-        for (String sessionId : sessions)
+        if (sessions.size() > 0)
         {
-            UserOnline userOnline = selectOnlineById(sessionId);
-            if (StringUtils.isNotNull(userOnline))
-            {
-                userOnlineDao.deleteOnlineById(sessionId);
-            }
+            userOnlineDao.deleteOnlineByIds(sessions);
         }
     }
 
@@ -116,6 +109,8 @@ public class UserOnlineServiceImpl implements IUserOnlineService
             return;
         }
         session.setTimeout(1000);
+        // 写回会话DAO，共享会话存储时其他节点同样可见
+        onlineSessionDAO.update(session);
         userOnlineDao.deleteOnlineById(sessionId);
     }
 
@@ -128,24 +123,33 @@ public class UserOnlineServiceImpl implements IUserOnlineService
     @Override
     public void removeUserCache(String loginName, String sessionId)
     {
-        Cache<String, Deque<Serializable>> cache = ehCacheManager.getCache(ShiroConstants.SYS_USERCACHE);
-        Deque<Serializable> deque = cache.get(loginName);
-        if (StringUtils.isEmpty(deque) || deque.size() == 0)
-        {
-            return;
-        }
-        deque.remove(sessionId);
+        sessionStore.removeMember(ShiroConstants.SYS_USERCACHE + ":" + loginName, sessionId);
     }
 
     /**
-     * 查询会话集合
+     * 分批查询过期会话集合
      * 
-     * @param online 会话信息
+     * @param expiredDate 有效期
+     * @param after 上一批的最后一条会话
+     * @param limit 查询条数
      */
     @Override
-    public List<UserOnline> selectOnlineByExpired(Date expiredDate)
+    public List<UserOnline> selectOnlineByExpired(Date expiredDate, UserOnline after, int limit)
     {
         String lastAccessTime = DateUtils.parseDateToStr(DateUtils.YYYY_MM_DD_HH_MM_SS, expiredDate);
-        return userOnlineDao.selectOnlineByExpired(lastAccessTime);
+        String afterTime = after == null ? null : DateUtils.parseDateToStr(DateUtils.YYYY_MM_DD_HH_MM_SS, after.getLastAccessTime());
+        String afterId = after == null ? null : after.getSessionId();
+        return userOnlineDao.selectOnlineByExpired(lastAccessTime, afterTime, afterId, limit);
+    }
+
+    /**
+     * 查询未过期会话中最早的最后访问时间
+     * 
+     * @param expiredDate 有效期
+     */
+    @Override
+    public Date selectOldestAccessTime(Date expiredDate)
+    {
+        return userOnlineDao.selectOldestAccessTime(DateUtils.parseDateToStr(DateUtils.YYYY_MM_DD_HH_MM_SS, expiredDate));
     }
 }
@@ -3,6 +3,7 @@ package com.ruoyi.project.monitor.operlog.controller;
 import java.util.List;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,13 +11,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
+import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.common.utils.poi.ExcelUtil;
 import com.ruoyi.framework.aspectj.lang.annotation.Log;
 import com.ruoyi.framework.aspectj.lang.enums.BusinessType;
+import com.ruoyi.framework.manager.OperLogWriter;
 import com.ruoyi.framework.web.controller.BaseController;
 import com.ruoyi.framework.web.domain.AjaxResult;
+import com.ruoyi.framework.web.page.PageDomain;
 import com.ruoyi.framework.web.page.TableDataInfo;
+import com.ruoyi.framework.web.page.TableSupport;
 import com.ruoyi.project.monitor.operlog.domain.OperLog;
+import com.ruoyi.project.monitor.operlog.manager.OperLogIndex;
 import com.ruoyi.project.monitor.operlog.service.IOperLogService;
 
 /**
@@ -30,9 +36,19 @@ public class OperlogController extends BaseController
 {
     private String prefix = "monitor/operlog";
 
+    /** 列表未指定时间范围时默认查询的最近天数，只扫描最近的分区 */
+    @Value("${operlog.queryDays:30}")
+    private int queryDays;
+
     @Autowired
     private IOperLogService operLogService;
 
+    @Autowired
+    private OperLogWriter operLogWriter;
+
+    @Autowired
+    private OperLogIndex operLogIndex;
+
     @RequiresPermissions("monitor:operlog:view")
     @GetMapping()
     public String operlog()
@@ -45,11 +61,44 @@ public class OperlogController extends BaseController
     @ResponseBody
     public TableDataInfo list(OperLog operLog)
     {
+        startRecentDays(operLog, queryDays);
+        if (StringUtils.isNotEmpty(operLog.getSearchValue()))
+        {
+            // 关键字检索优先走全文索引，按相关度排序
+            PageDomain pageDomain = TableSupport.buildPageRequest();
+            List<OperLog> list = operLogService.searchOperLog(operLog, pageDomain.getPageNum(), pageDomain.getPageSize());
+            if (list != null)
+            {
+                return getDataTable(list);
+            }
+        }
         startPage();
         List<OperLog> list = operLogService.selectOperLogList(operLog);
         return getDataTable(list);
     }
 
+    /**
+     * 获取操作日志写入统计信息
+     */
+    @RequiresPermissions("monitor:operlog:list")
+    @GetMapping("/writer/stats")
+    @ResponseBody
+    public AjaxResult writerStats()
+    {
+        return AjaxResult.success(operLogWriter.getStatistics());
+    }
+
+    /**
+     * 获取全文索引统计信息
+     */
+    @RequiresPermissions("monitor:operlog:list")
+    @GetMapping("/index/stats")
+    @ResponseBody
+    public AjaxResult indexStats()
+    {
+        return AjaxResult.success(operLogIndex.getStatistics());
+    }
+
     @Log(title = "操作日志", businessType = BusinessType.EXPORT)
     @RequiresPermissions("monitor:operlog:export")
     @PostMapping("/export")
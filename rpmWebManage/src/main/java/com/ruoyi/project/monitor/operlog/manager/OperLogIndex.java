@@ -0,0 +1,921 @@
+package com.ruoyi.project.monitor.operlog.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.utils.DateUtils;
+import com.ruoyi.project.monitor.operlog.domain.OperLog;
+import com.ruoyi.project.monitor.operlog.mapper.OperLogMapper;
+
+/**
+ * 操作日志全文索引（内存倒排索引，由操作日志写入器增量维护，启动时从表中后台构建）
+ *
+ * 英文和数字按连续字符切词并转为小写，中文按单字和相邻两字切词；
+ * 查询词取交集，最后一个英文词（不少于3个字符）按前缀匹配，按词的稀有程度和命中字段加权排序，同分时新日志在前。
+ *
+ * 索引只收录最近若干天、不超过上限条数的日志，开始时间早于收录范围的检索返回null，由调用方查询数据库；
+ * 删除和清理的日志先标记删除，保留期清理后整理索引回收内存。
+ *
+ * @author ruoyi
+ */
+@Component
+public class OperLogIndex
+{
+    private static final Logger log = LoggerFactory.getLogger(OperLogIndex.class);
+
+    /** 命中字段权重：系统模块 */
+    private static final int WEIGHT_TITLE = 8;
+
+    /** 命中字段权重：操作人员 */
+    private static final int WEIGHT_OPER_NAME = 4;
+
+    /** 命中字段权重：请求地址和主机地址 */
+    private static final int WEIGHT_URL = 2;
+
+    /** 命中字段权重：请求参数 */
+    private static final int WEIGHT_PARAM = 1;
+
+    /** 单个字段最多索引的词数 */
+    private static final int MAX_FIELD_TERMS = 64;
+
+    /** 单个英文词最大长度，超出部分截断 */
+    private static final int MAX_WORD_LENGTH = 32;
+
+    /** 按前缀匹配的最小词长，更短的词只做完全匹配 */
+    private static final int MIN_PREFIX_LENGTH = 3;
+
+    /** 前缀匹配最多展开的词数 */
+    private static final int MAX_PREFIX_EXPANSION = 32;
+
+    /** 单次查询最多返回到的位置（偏移量加每页条数） */
+    private static final int MAX_WINDOW = 10000;
+
+    /** 过滤条件词的前缀，切词结果不会包含该字符 */
+    private static final char FILTER_PREFIX = '\u0001';
+
+    /** 是否启用全文索引 */
+    @Value("${operlog.index.enabled:true}")
+    private boolean enabled;
+
+    /** 重建时每批读取的行数 */
+    @Value("${operlog.index.rebuildBatch:5000}")
+    private int rebuildBatch;
+
+    /** 收录最近的天数（0不限制） */
+    @Value("${operlog.index.days:90}")
+    private int days;
+
+    /** 最多收录的日志条数（0不限制），超出时移出最早的日志 */
+    @Value("${operlog.index.maxDocuments:1000000}")
+    private int maxDocuments;
+
+    /** 请求参数最多索引的词数 */
+    @Value("${operlog.index.maxParamTerms:32}")
+    private int maxParamTerms;
+
+    @Autowired
+    private OperLogMapper operLogMapper;
+
+    /** 提供查询的索引 */
+    private volatile Segment live = new Segment();
+
+    /** 重建中的索引，重建中断后下次从已读取的位置继续 */
+    private Segment building;
+
+    /** 切换索引、删除和清空时持有 */
+    private final Object swapLock = new Object();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /** 完成过一次重建后索引才覆盖全表 */
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init()
+    {
+        if (enabled)
+        {
+            new BasicThreadFactory.Builder().namingPattern("operlog-index-%d").daemon(true).build().newThread(this::rebuild).start();
+        }
+    }
+
+    /**
+     * 索引是否可以代替数据库检索
+     */
+    public boolean isReady()
+    {
+        return enabled && ready;
+    }
+
+    /**
+     * 索引已写入数据库的操作日志，主键按写入顺序递增，已索引的主键会被跳过
+     *
+     * @param operLogs 操作日志集合
+     */
+    public void add(List<OperLog> operLogs)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        Segment target;
+        synchronized (swapLock)
+        {
+            target = live;
+        }
+        target.add(operLogs);
+    }
+
+    /**
+     * 删除操作日志
+     *
+     * @param operIds 操作日志主键
+     */
+    public void delete(Long[] operIds)
+    {
+        synchronized (swapLock)
+        {
+            live.delete(operIds);
+            if (building != null)
+            {
+                building.delete(operIds);
+            }
+        }
+    }
+
+    /**
+     * 保留期清理后调用：删除早于清理时间和收录天数的日志，并整理索引回收已删除日志占用的内存
+     *
+     * @param cutoff 清理时间，早于该时间的日志已从表中删除
+     */
+    public void purge(Date cutoff)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int before = cutoff == null ? Integer.MIN_VALUE : toSeconds(cutoff);
+        int windowStart = windowStart();
+        Segment segment;
+        synchronized (swapLock)
+        {
+            segment = live;
+            if (building != null)
+            {
+                building.purge(before, windowStart);
+            }
+        }
+        segment.purge(before, windowStart);
+        log.info("操作日志索引整理完成，{}条，{}个词，耗时{}毫秒", segment.size, segment.terms.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 清空索引并放弃进行中的重建
+     */
+    public void clear()
+    {
+        synchronized (swapLock)
+        {
+            live = new Segment();
+            building = null;
+        }
+    }
+
+    /**
+     * 从表中构建收录范围内的索引，完成后替换当前索引；只在索引未就绪时执行，同一时间只有一个构建，中断后再次调用从中断处继续
+     */
+    public void rebuild()
+    {
+        if (!enabled || ready)
+        {
+            return;
+        }
+        if (!rebuildLock.tryLock())
+        {
+            log.info("操作日志索引正在重建");
+            return;
+        }
+        try
+        {
+            long start = System.currentTimeMillis();
+            Segment target;
+            synchronized (swapLock)
+            {
+                target = building;
+            }
+            if (target == null)
+            {
+                target = newSegment();
+                synchronized (swapLock)
+                {
+                    building = target;
+                }
+            }
+            List<OperLog> rows;
+            while ((rows = operLogMapper.selectOperLogAfter(target.lastId, rebuildBatch)).size() >= rebuildBatch)
+            {
+                target.add(rows);
+            }
+            synchronized (swapLock)
+            {
+                if (building != target)
+                {
+                    log.info("操作日志已清空，放弃本次索引重建");
+                    return;
+                }
+                // 写入器在持锁期间只能等待，补齐最后一批后切换，切换后写入新索引的日志按主键去重
+                target.add(rows);
+                while (!(rows = operLogMapper.selectOperLogAfter(target.lastId, rebuildBatch)).isEmpty())
+                {
+                    target.add(rows);
+                }
+                live = target;
+                building = null;
+                ready = true;
+            }
+            log.info("操作日志索引重建完成，{}条，{}个词，耗时{}毫秒", target.size, target.terms.size(), System.currentTimeMillis() - start);
+        }
+        catch (Exception e)
+        {
+            log.error("操作日志索引重建中断，下次从主键{}之后继续", building == null ? 0 : building.lastId, e);
+        }
+        finally
+        {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 检索操作日志
+     *
+     * @param text 检索内容
+     * @param status 操作状态，为空不过滤
+     * @param businessTypes 业务类型，为空不过滤
+     * @param beginTime 开始时间，为空不过滤
+     * @param endTime 结束时间，为空不过滤
+     * @param offset 偏移量
+     * @param limit 条数
+     * @return 命中结果，检索内容无法切词或开始时间早于收录范围时返回null
+     */
+    public Hits search(String text, Integer status, Integer[] businessTypes, Date beginTime, Date endTime, int offset, int limit)
+    {
+        List<String> words = tokenize(text, true);
+        if (words.isEmpty())
+        {
+            return null;
+        }
+        List<String> filters = new ArrayList<String>();
+        if (status != null)
+        {
+            filters.add(FILTER_PREFIX + "s" + status);
+        }
+        List<String> types = new ArrayList<String>();
+        if (businessTypes != null)
+        {
+            for (Integer businessType : businessTypes)
+            {
+                types.add(FILTER_PREFIX + "b" + businessType);
+            }
+        }
+        int begin = beginTime == null ? Integer.MIN_VALUE : toSeconds(beginTime);
+        int end = endTime == null ? Integer.MAX_VALUE : toSeconds(endTime);
+        Segment segment = live;
+        if (begin < segment.floor)
+        {
+            // 早于收录范围的日志不在索引中
+            return null;
+        }
+        return segment.search(words, filters, types, begin, end, offset, Math.min(offset + limit, MAX_WINDOW) - offset);
+    }
+
+    /**
+     * 获取索引统计信息
+     *
+     * @return 文档数、删除数、词数和重建状态
+     */
+    public Map<String, Object> getStatistics()
+    {
+        Segment segment = live;
+        Segment rebuilding = building;
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("documents", segment.size);
+        stats.put("deleted", segment.deleted.cardinality());
+        stats.put("terms", segment.terms.size());
+        stats.put("lastId", segment.lastId);
+        stats.put("coverageBegin", segment.floor == Integer.MIN_VALUE ? null : new Date(segment.floor * 1000L));
+        stats.put("maxDocuments", maxDocuments);
+        stats.put("rebuilding", rebuildLock.isLocked());
+        stats.put("rebuildLastId", rebuilding == null ? null : rebuilding.lastId);
+        return stats;
+    }
+
+    /**
+     * 切词
+     *
+     * @param text 文本
+     * @param query 是否为查询，查询时连续两个以上的中文只取相邻两字
+     * @return 按出现顺序去重的词
+     */
+    static List<String> tokenize(String text, boolean query)
+    {
+        Set<String> terms = new LinkedHashSet<String>();
+        if (text == null)
+        {
+            return new ArrayList<String>();
+        }
+        StringBuilder word = new StringBuilder();
+        char previous = 0;
+        int run = 0;
+        for (int i = 0, n = text.length(); i <= n; i++)
+        {
+            char c = i < n ? text.charAt(i) : ' ';
+            boolean ideographic = Character.isIdeographic(c);
+            if (!ideographic && run > 0)
+            {
+                if (query && run == 1)
+                {
+                    addTerm(terms, String.valueOf(previous));
+                }
+                run = 0;
+            }
+            if (ideographic)
+            {
+                flushWord(terms, word);
+                if (!query)
+                {
+                    addTerm(terms, String.valueOf(c));
+                }
+                if (run > 0)
+                {
+                    addTerm(terms, new String(new char[] { previous, c }));
+                }
+                previous = c;
+                run++;
+            }
+            else if (Character.isLetterOrDigit(c))
+            {
+                if (word.length() < MAX_WORD_LENGTH)
+                {
+                    word.append(Character.toLowerCase(c));
+                }
+            }
+            else
+            {
+                flushWord(terms, word);
+            }
+        }
+        return new ArrayList<String>(terms);
+    }
+
+    private static void flushWord(Set<String> terms, StringBuilder word)
+    {
+        if (word.length() > 0)
+        {
+            addTerm(terms, word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void addTerm(Set<String> terms, String term)
+    {
+        terms.add(term);
+    }
+
+    /**
+     * 创建重建用的索引，从收录天数内最早的日志开始读取
+     */
+    private Segment newSegment()
+    {
+        Segment segment = new Segment();
+        if (days > 0)
+        {
+            Date begin = DateUtils.addDays(new Date(), -days);
+            segment.lastId = operLogMapper.selectOperLogMinIdSince(begin) - 1;
+            segment.floor = toSeconds(begin);
+        }
+        return segment;
+    }
+
+    /**
+     * 收录范围的开始时间（秒），不限制时为Integer.MIN_VALUE
+     */
+    private int windowStart()
+    {
+        return days > 0 ? toSeconds(DateUtils.addDays(new Date(), -days)) : Integer.MIN_VALUE;
+    }
+
+    private static int toSeconds(Date date)
+    {
+        return (int) (date.getTime() / 1000);
+    }
+
+    /**
+     * 命中结果
+     */
+    public static class Hits
+    {
+        private final long total;
+
+        private final List<Long> operIds;
+
+        private Hits(long total, List<Long> operIds)
+        {
+            this.total = total;
+            this.operIds = operIds;
+        }
+
+        public long getTotal()
+        {
+            return total;
+        }
+
+        public List<Long> getOperIds()
+        {
+            return operIds;
+        }
+    }
+
+    /**
+     * 词的倒排表，文档序号升序，权重为命中字段权重之和
+     */
+    private static class Postings
+    {
+        private int[] docs = new int[4];
+
+        private byte[] weights = new byte[4];
+
+        private int size;
+
+        private void add(int doc, int weight)
+        {
+            if (size == docs.length)
+            {
+                int capacity = size + (size >> 1);
+                docs = Arrays.copyOf(docs, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            docs[size] = doc;
+            weights[size] = (byte) weight;
+            size++;
+        }
+
+        /**
+         * 去除已删除的文档并按新序号重新编号，数组收缩到实际大小
+         *
+         * @param remap 旧序号 -> 新序号，已删除为-1
+         */
+        private void retain(int[] remap)
+        {
+            int count = 0;
+            for (int i = 0; i < size; i++)
+            {
+                int doc = remap[docs[i]];
+                if (doc >= 0)
+                {
+                    docs[count] = doc;
+                    weights[count] = weights[i];
+                    count++;
+                }
+            }
+            size = count;
+            int capacity = Math.max(4, count);
+            if (docs.length > capacity)
+            {
+                docs = Arrays.copyOf(docs, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+        }
+
+        /**
+         * 从from开始查找第一个不小于doc的位置（倍增后二分）
+         */
+        private int advance(int from, int doc)
+        {
+            int bound = 1;
+            while (from + bound < size && docs[from + bound] < doc)
+            {
+                bound <<= 1;
+            }
+            int index = Arrays.binarySearch(docs, from, Math.min(from + bound + 1, size), doc);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        /**
+         * 合并多个倒排表，同一文档取最大权重
+         */
+        private static Postings union(List<Postings> list)
+        {
+            Postings merged = new Postings();
+            PriorityQueue<int[]> heap = new PriorityQueue<int[]>(Comparator.comparingInt(cursor -> list.get(cursor[0]).docs[cursor[1]]));
+            for (int i = 0; i < list.size(); i++)
+            {
+                heap.add(new int[] { i, 0 });
+            }
+            while (!heap.isEmpty())
+            {
+                int[] cursor = heap.poll();
+                Postings postings = list.get(cursor[0]);
+                int doc = postings.docs[cursor[1]];
+                int weight = postings.weights[cursor[1]];
+                if (merged.size > 0 && merged.docs[merged.size - 1] == doc)
+                {
+                    merged.weights[merged.size - 1] = (byte) Math.max(merged.weights[merged.size - 1], weight);
+                }
+                else
+                {
+                    merged.add(doc, weight);
+                }
+                if (++cursor[1] < postings.size)
+                {
+                    heap.add(cursor);
+                }
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * 一份完整的索引：文档序号即追加顺序，主键和时间按序号存放
+     */
+    private class Segment
+    {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private final TreeMap<String, Postings> terms = new TreeMap<String, Postings>();
+
+        private long[] ids = new long[1024];
+
+        private int[] times = new int[1024];
+
+        private final BitSet deleted = new BitSet();
+
+        private volatile int size;
+
+        /** 已索引的最大主键 */
+        private volatile long lastId;
+
+        /** 收录范围的开始时间（秒），不早于该时间的日志都在索引中 */
+        private volatile int floor = Integer.MIN_VALUE;
+
+        /** 按条数上限移出日志的位置，之前的文档都已删除 */
+        private int trimmed;
+
+        private void add(List<OperLog> operLogs)
+        {
+            lock.writeLock().lock();
+            try
+            {
+                for (OperLog operLog : operLogs)
+                {
+                    if (operLog.getOperId() == null || operLog.getOperId() <= lastId || operLog.getOperTime() == null)
+                    {
+                        continue;
+                    }
+                    addDocument(operLog);
+                }
+                trim();
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 超过条数上限时按追加顺序删除最早的日志，并提高收录范围的开始时间
+         */
+        private void trim()
+        {
+            if (maxDocuments <= 0)
+            {
+                return;
+            }
+            int excess = size - deleted.cardinality() - maxDocuments;
+            while (excess > 0 && trimmed < size)
+            {
+                if (!deleted.get(trimmed))
+                {
+                    deleted.set(trimmed);
+                    floor = Math.max(floor, times[trimmed] + 1);
+                    excess--;
+                }
+                trimmed++;
+            }
+        }
+
+        /**
+         * 删除早于清理时间和收录范围的日志，然后整理
+         *
+         * @param before 清理时间（秒）
+         * @param windowStart 收录范围的开始时间（秒）
+         */
+        private void purge(int before, int windowStart)
+        {
+            lock.writeLock().lock();
+            try
+            {
+                int threshold = Math.max(before, windowStart);
+                for (int doc = 0; doc < size; doc++)
+                {
+                    if (times[doc] < threshold)
+                    {
+                        deleted.set(doc);
+                    }
+                }
+                floor = Math.max(floor, windowStart);
+                compact();
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 去除已删除的文档，重新编号后收缩倒排表，去掉不再出现的词
+         */
+        private void compact()
+        {
+            if (deleted.isEmpty())
+            {
+                return;
+            }
+            int[] remap = new int[size];
+            int count = 0;
+            for (int doc = 0; doc < size; doc++)
+            {
+                if (deleted.get(doc))
+                {
+                    remap[doc] = -1;
+                    continue;
+                }
+                remap[doc] = count;
+                ids[count] = ids[doc];
+                times[count] = times[doc];
+                count++;
+            }
+            for (Iterator<Postings> it = terms.values().iterator(); it.hasNext();)
+            {
+                Postings postings = it.next();
+                postings.retain(remap);
+                if (postings.size == 0)
+                {
+                    it.remove();
+                }
+            }
+            int capacity = Math.max(1024, count + (count >> 2));
+            if (ids.length > capacity)
+            {
+                ids = Arrays.copyOf(ids, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+            deleted.clear();
+            trimmed = 0;
+            size = count;
+        }
+
+        private void addDocument(OperLog operLog)
+        {
+            Map<String, Integer> fields = new LinkedHashMap<String, Integer>();
+            collect(fields, operLog.getTitle(), WEIGHT_TITLE, MAX_FIELD_TERMS);
+            collect(fields, operLog.getOperName(), WEIGHT_OPER_NAME, MAX_FIELD_TERMS);
+            collect(fields, operLog.getOperUrl(), WEIGHT_URL, MAX_FIELD_TERMS);
+            collect(fields, operLog.getOperIp(), WEIGHT_URL, MAX_FIELD_TERMS);
+            collect(fields, operLog.getOperParam(), WEIGHT_PARAM, maxParamTerms);
+            fields.put(FILTER_PREFIX + "s" + operLog.getStatus(), 0);
+            fields.put(FILTER_PREFIX + "b" + operLog.getBusinessType(), 0);
+            if (size == ids.length)
+            {
+                ids = Arrays.copyOf(ids, size + (size >> 1));
+                times = Arrays.copyOf(times, ids.length);
+            }
+            int doc = size;
+            ids[doc] = operLog.getOperId();
+            times[doc] = toSeconds(operLog.getOperTime());
+            for (Map.Entry<String, Integer> field : fields.entrySet())
+            {
+                terms.computeIfAbsent(field.getKey(), key -> new Postings()).add(doc, field.getValue());
+            }
+            lastId = operLog.getOperId();
+            size = doc + 1;
+        }
+
+        private void collect(Map<String, Integer> fields, String value, int weight, int maxTerms)
+        {
+            List<String> words = tokenize(value, false);
+            for (String word : words.subList(0, Math.min(words.size(), maxTerms)))
+            {
+                fields.merge(word, weight, (a, b) -> a | b);
+            }
+        }
+
+        private void delete(Long[] operIds)
+        {
+            lock.writeLock().lock();
+            try
+            {
+                for (Long operId : operIds)
+                {
+                    int doc = operId == null ? -1 : Arrays.binarySearch(ids, 0, size, operId);
+                    if (doc >= 0)
+                    {
+                        deleted.set(doc);
+                    }
+                }
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private Hits search(List<String> words, List<String> filters, List<String> types, int begin, int end, int offset, int limit)
+        {
+            lock.readLock().lock();
+            try
+            {
+                int count = size - deleted.cardinality();
+                List<Postings> scored = new ArrayList<Postings>();
+                List<Double> idf = new ArrayList<Double>();
+                for (int i = 0; i < words.size(); i++)
+                {
+                    String word = words.get(i);
+                    boolean prefix = i == words.size() - 1 && word.charAt(0) < 128 && word.length() >= MIN_PREFIX_LENGTH;
+                    Postings postings = prefix ? prefix(word) : terms.get(word);
+                    if (postings == null)
+                    {
+                        return new Hits(0, Collections.emptyList());
+                    }
+                    scored.add(postings);
+                    idf.add(Math.log(1 + (double) count / postings.size));
+                }
+                List<Postings> required = new ArrayList<Postings>(scored);
+                for (String filter : filters)
+                {
+                    Postings postings = terms.get(filter);
+                    if (postings == null)
+                    {
+                        return new Hits(0, Collections.emptyList());
+                    }
+                    required.add(postings);
+                }
+                List<Postings> any = new ArrayList<Postings>();
+                if (!types.isEmpty())
+                {
+                    for (String type : types)
+                    {
+                        Postings postings = terms.get(type);
+                        if (postings != null)
+                        {
+                            any.add(postings);
+                        }
+                    }
+                    if (any.isEmpty())
+                    {
+                        return new Hits(0, Collections.emptyList());
+                    }
+                    if (any.size() == 1)
+                    {
+                        required.add(any.remove(0));
+                    }
+                }
+                return intersect(scored, idf, required, any, begin, end, offset, limit);
+            }
+            finally
+            {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 前缀匹配，完全相同的词优先，展开的词过多时只取排在前面的
+         */
+        private Postings prefix(String word)
+        {
+            SortedMap<String, Postings> matched = terms.subMap(word, word + Character.MAX_VALUE);
+            if (matched.size() <= 1)
+            {
+                return matched.isEmpty() ? null : matched.values().iterator().next();
+            }
+            List<Postings> list = new ArrayList<Postings>();
+            for (Postings postings : matched.values())
+            {
+                list.add(postings);
+                if (list.size() >= MAX_PREFIX_EXPANSION)
+                {
+                    break;
+                }
+            }
+            return Postings.union(list);
+        }
+
+        /**
+         * 从最短的倒排表出发逐个文档求交集（any中至少命中一个），保留得分最高的offset+limit个
+         */
+        private Hits intersect(List<Postings> scored, List<Double> idf, List<Postings> required, List<Postings> any, int begin, int end,
+                int offset, int limit)
+        {
+            required.sort(Comparator.comparingInt(postings -> postings.size));
+            Postings lead = required.get(0);
+            int[] cursors = new int[required.size()];
+            int[] anyCursors = new int[any.size()];
+            int window = offset + limit;
+            // 小顶堆：{得分, 文档序号}，同分时序号小（较早）的先出堆
+            PriorityQueue<double[]> top = new PriorityQueue<double[]>(Math.max(1, window),
+                    Comparator.<double[]>comparingDouble(hit -> hit[0]).thenComparingDouble(hit -> hit[1]));
+            long total = 0;
+            outer:
+            for (int i = 0; i < lead.size; i++)
+            {
+                int doc = lead.docs[i];
+                if (deleted.get(doc) || times[doc] < begin || times[doc] > end)
+                {
+                    continue;
+                }
+                for (int j = 1; j < required.size(); j++)
+                {
+                    Postings postings = required.get(j);
+                    cursors[j] = postings.advance(cursors[j], doc);
+                    if (cursors[j] >= postings.size)
+                    {
+                        break outer;
+                    }
+                    if (postings.docs[cursors[j]] != doc)
+                    {
+                        continue outer;
+                    }
+                }
+                if (!any.isEmpty() && !containsAny(any, anyCursors, doc))
+                {
+                    continue;
+                }
+                total++;
+                if (window <= 0)
+                {
+                    continue;
+                }
+                double score = 0;
+                for (int k = 0; k < scored.size(); k++)
+                {
+                    Postings postings = scored.get(k);
+                    int index = postings == lead ? i : postings.advance(0, doc);
+                    score += idf.get(k) * postings.weights[index];
+                }
+                if (top.size() < window)
+                {
+                    top.add(new double[] { score, doc });
+                }
+                else if (score > top.peek()[0] || (score == top.peek()[0] && doc > top.peek()[1]))
+                {
+                    top.poll();
+                    top.add(new double[] { score, doc });
+                }
+            }
+            List<double[]> ranked = new ArrayList<double[]>(top);
+            ranked.sort(top.comparator().reversed());
+            List<Long> operIds = new ArrayList<Long>();
+            for (int i = offset; i < ranked.size(); i++)
+            {
+                operIds.add(ids[(int) ranked.get(i)[1]]);
+            }
+            return new Hits(total, operIds);
+        }
+
+        private boolean containsAny(List<Postings> any, int[] cursors, int doc)
+        {
+            boolean found = false;
+            for (int i = 0; i < any.size(); i++)
+            {
+                Postings postings = any.get(i);
+                cursors[i] = postings.advance(cursors[i], doc);
+                found |= cursors[i] < postings.size && postings.docs[cursors[i]] == doc;
+            }
+            return found;
+        }
+    }
+}
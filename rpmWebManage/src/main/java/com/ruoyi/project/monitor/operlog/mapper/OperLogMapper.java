@@ -1,6 +1,8 @@
 package com.ruoyi.project.monitor.operlog.mapper;
 
+import java.util.Date;
 import java.util.List;
+import org.apache.ibatis.annotations.Param;
 import com.ruoyi.project.monitor.operlog.domain.OperLog;
 
 /**
@@ -17,6 +19,13 @@ public interface OperLogMapper
      */
     public void insertOperlog(OperLog operLog);
 
+    /**
+     * 批量新增操作日志
+     * 
+     * @param operLogs 操作日志集合
+     */
+    public void insertOperlogBatch(List<OperLog> operLogs);
+
     /**
      * 查询系统操作日志集合
      * 
@@ -40,6 +49,31 @@ public interface OperLogMapper
      * @return 操作日志对象
      */
     public OperLog selectOperLogById(Long operId);
+
+    /**
+     * 按主键批量查询操作日志
+     * 
+     * @param operIds 操作ID
+     * @return 操作日志集合
+     */
+    public List<OperLog> selectOperLogByIds(Long[] operIds);
+
+    /**
+     * 按主键顺序查询指定主键之后的操作日志（只包含全文索引需要的字段）
+     * 
+     * @param operId 起始主键（不含）
+     * @param limit 条数
+     * @return 操作日志集合
+     */
+    public List<OperLog> selectOperLogAfter(@Param("operId") long operId, @Param("limit") int limit);
+
+    /**
+     * 查询指定时间及之后最早的操作日志主键
+     * 
+     * @param beginTime 开始时间
+     * @return 主键，没有日志时返回最大主键加一
+     */
+    public long selectOperLogMinIdSince(Date beginTime);
     
     /**
      * 清空操作日志
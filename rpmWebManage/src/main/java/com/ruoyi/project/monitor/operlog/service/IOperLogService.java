@@ -17,6 +17,13 @@ public interface IOperLogService
      */
     public void insertOperlog(OperLog operLog);
 
+    /**
+     * 批量新增操作日志
+     * 
+     * @param operLogs 操作日志集合
+     */
+    public void insertOperlogBatch(List<OperLog> operLogs);
+
     /**
      * 查询系统操作日志集合
      * 
@@ -25,6 +32,16 @@ public interface IOperLogService
      */
     public List<OperLog> selectOperLogList(OperLog operLog);
 
+    /**
+     * 通过全文索引检索操作日志
+     * 
+     * @param operLog 操作日志对象，关键字为searchValue
+     * @param pageNum 页码
+     * @param pageSize 每页条数
+     * @return 当前页的操作日志（含总数），索引不可用时返回null
+     */
+    public List<OperLog> searchOperLog(OperLog operLog, int pageNum, int pageSize);
+
     /**
      * 批量删除系统操作日志
      * 
@@ -1,10 +1,17 @@
 package com.ruoyi.project.monitor.operlog.service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.github.pagehelper.Page;
+import com.ruoyi.common.utils.DateUtils;
+import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.common.utils.text.Convert;
 import com.ruoyi.project.monitor.operlog.domain.OperLog;
+import com.ruoyi.project.monitor.operlog.manager.OperLogIndex;
 import com.ruoyi.project.monitor.operlog.mapper.OperLogMapper;
 
 /**
@@ -15,9 +22,16 @@ import com.ruoyi.project.monitor.operlog.mapper.OperLogMapper;
 @Service
 public class OperLogServiceImpl implements IOperLogService
 {
+    /** 默认检索方式（contains包含 prefix前缀 exact精确），前缀和精确检索可以使用索引 */
+    @Value("${operlog.searchMode:contains}")
+    private String searchMode;
+
     @Autowired
     private OperLogMapper operLogMapper;
 
+    @Autowired
+    private OperLogIndex operLogIndex;
+
     /**
      * 新增操作日志
      * 
@@ -29,6 +43,17 @@ public class OperLogServiceImpl implements IOperLogService
         operLogMapper.insertOperlog(operLog);
     }
 
+    /**
+     * 批量新增操作日志
+     * 
+     * @param operLogs 操作日志集合
+     */
+    @Override
+    public void insertOperlogBatch(List<OperLog> operLogs)
+    {
+        operLogMapper.insertOperlogBatch(operLogs);
+    }
+
     /**
      * 查询系统操作日志集合
      * 
@@ -38,9 +63,62 @@ public class OperLogServiceImpl implements IOperLogService
     @Override
     public List<OperLog> selectOperLogList(OperLog operLog)
     {
+        operLog.defaultParam("searchMode", searchMode);
         return operLogMapper.selectOperLogList(operLog);
     }
 
+    /**
+     * 通过全文索引检索操作日志
+     * 
+     * @param operLog 操作日志对象，关键字为searchValue
+     * @param pageNum 页码
+     * @param pageSize 每页条数
+     * @return 当前页的操作日志（含总数），索引不可用时返回null
+     */
+    @Override
+    public List<OperLog> searchOperLog(OperLog operLog, int pageNum, int pageSize)
+    {
+        if (!operLogIndex.isReady())
+        {
+            return null;
+        }
+        operLog.defaultParam("searchMode", searchMode);
+        // 模块、人员和地址条件一并作为检索词
+        String text = StringUtils.join(new String[] { operLog.getSearchValue(), operLog.getTitle(), operLog.getOperName(), operLog.getOperIp() }, ' ');
+        Integer[] businessTypes = operLog.getBusinessTypes();
+        if (operLog.getBusinessType() != null)
+        {
+            businessTypes = new Integer[] { operLog.getBusinessType() };
+        }
+        OperLogIndex.Hits hits = operLogIndex.search(text, operLog.getStatus(), businessTypes,
+                DateUtils.parseDate(operLog.getParams().get("beginTime")), DateUtils.parseDate(operLog.getParams().get("endTime")),
+                (Math.max(pageNum, 1) - 1) * pageSize, pageSize);
+        if (hits == null)
+        {
+            return null;
+        }
+        Page<OperLog> page = new Page<OperLog>(pageNum, pageSize);
+        page.setTotal(hits.getTotal());
+        if (!hits.getOperIds().isEmpty())
+        {
+            Map<Long, OperLog> rows = new HashMap<Long, OperLog>();
+            for (OperLog row : operLogMapper.selectOperLogByIds(hits.getOperIds().toArray(new Long[0])))
+            {
+                rows.put(row.getOperId(), row);
+            }
+            // 按索引得分顺序返回，已被清理的日志跳过
+            for (Long operId : hits.getOperIds())
+            {
+                OperLog row = rows.get(operId);
+                if (row != null)
+                {
+                    page.add(row);
+                }
+            }
+        }
+        return page;
+    }
+
     /**
      * 批量删除系统操作日志
      * 
@@ -50,7 +128,9 @@ public class OperLogServiceImpl implements IOperLogService
     @Override
     public int deleteOperLogByIds(String ids)
     {
-        return operLogMapper.deleteOperLogByIds(Convert.toStrArray(ids));
+        int rows = operLogMapper.deleteOperLogByIds(Convert.toStrArray(ids));
+        operLogIndex.delete(Convert.toLongArray(ids));
+        return rows;
     }
 
     /**
@@ -72,5 +152,6 @@ public class OperLogServiceImpl implements IOperLogService
     public void cleanOperLog()
     {
         operLogMapper.cleanOperLog();
+        operLogIndex.clear();
     }
 }
@@ -0,0 +1,53 @@
+package com.ruoyi.project.monitor.retention.mapper;
+
+import java.util.Date;
+import java.util.List;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 日志表分区维护 数据层
+ *
+ * 表名、列名和分区名只能来自代码中的常量或按规则生成，不接收外部输入
+ *
+ * @author ruoyi
+ */
+public interface LogPartitionMapper
+{
+    /**
+     * 查询表的分区名称
+     *
+     * @param tableName 表名
+     * @return 分区名称集合，未分区的表返回空集合
+     */
+    public List<String> selectPartitionNames(@Param("tableName") String tableName);
+
+    /**
+     * 从最大值分区中拆分出新分区
+     *
+     * @param tableName 表名
+     * @param partitionName 新分区名称
+     * @param lessThan 新分区上界（TO_DAYS值）
+     * @return 结果
+     */
+    public int addPartition(@Param("tableName") String tableName, @Param("partitionName") String partitionName, @Param("lessThan") long lessThan);
+
+    /**
+     * 删除分区及其中的数据
+     *
+     * @param tableName 表名
+     * @param partitionName 分区名称
+     * @return 结果
+     */
+    public int dropPartition(@Param("tableName") String tableName, @Param("partitionName") String partitionName);
+
+    /**
+     * 分批删除指定时间之前的数据
+     *
+     * @param tableName 表名
+     * @param timeColumn 时间列
+     * @param before 截止时间
+     * @param limit 单批删除行数
+     * @return 删除行数
+     */
+    public int deleteBefore(@Param("tableName") String tableName, @Param("timeColumn") String timeColumn, @Param("before") Date before, @Param("limit") int limit);
+}
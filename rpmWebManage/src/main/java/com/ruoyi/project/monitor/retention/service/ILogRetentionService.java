@@ -0,0 +1,23 @@
+package com.ruoyi.project.monitor.retention.service;
+
+/**
+ * 日志保留 服务层
+ *
+ * @author ruoyi
+ */
+public interface ILogRetentionService
+{
+    /**
+     * 维护操作日志分区并清理超过保留期的操作日志
+     *
+     * @return 清理的行数（按分区删除的不计入）
+     */
+    public int purgeOperLog();
+
+    /**
+     * 维护登录日志分区并清理超过保留期的登录日志
+     *
+     * @return 清理的行数（按分区删除的不计入）
+     */
+    public int purgeLogininfor();
+}
@@ -0,0 +1,187 @@
+package com.ruoyi.project.monitor.retention.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.ruoyi.project.monitor.operlog.manager.OperLogIndex;
+import com.ruoyi.project.monitor.retention.mapper.LogPartitionMapper;
+
+/**
+ * 日志保留 服务层处理
+ *
+ * 日志表按月RANGE分区（pYYYYMM，上界为次月1日的TO_DAYS值，p_future接收其余数据），
+ * 提前从p_future拆分出后续月份的分区，整月超过保留期的分区直接删除；
+ * 分区内残留的过期数据以及未分区的表按时间分批删除。
+ *
+ * @author ruoyi
+ */
+@Service
+public class LogRetentionServiceImpl implements ILogRetentionService
+{
+    private static final Logger log = LoggerFactory.getLogger(LogRetentionServiceImpl.class);
+
+    /** 接收超出已建分区数据的最大值分区 */
+    private static final String FUTURE_PARTITION = "p_future";
+
+    /** 按月分区的名称格式 */
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p\\d{6}");
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /** 提前创建的月份分区数（不含当月） */
+    private static final int AHEAD_MONTHS = 2;
+
+    /** 单批删除行数，避免长事务和大范围锁 */
+    private static final int DELETE_BATCH = 5000;
+
+    /** 0000-00-00至1970-01-01的天数，用于换算MySQL的TO_DAYS值 */
+    private static final long TO_DAYS_EPOCH = 719528L;
+
+    /** 操作日志保留月数（不含当月） */
+    @Value("${operlog.retentionMonths:6}")
+    private int operLogRetentionMonths;
+
+    /** 登录日志保留月数（不含当月） */
+    @Value("${logininfor.retentionMonths:6}")
+    private int logininforRetentionMonths;
+
+    @Autowired
+    private LogPartitionMapper logPartitionMapper;
+
+    @Autowired
+    private OperLogIndex operLogIndex;
+
+    /**
+     * 维护操作日志分区并清理超过保留期的操作日志
+     *
+     * @return 清理的行数（按分区删除的不计入）
+     */
+    @Override
+    public int purgeOperLog()
+    {
+        int deleted = purge("sys_oper_log", "oper_time", operLogRetentionMonths);
+        // 按分区删除和分批删除的日志都从全文索引中删除
+        operLogIndex.purge(cutoff(operLogRetentionMonths));
+        return deleted;
+    }
+
+    /**
+     * 维护登录日志分区并清理超过保留期的登录日志
+     *
+     * @return 清理的行数（按分区删除的不计入）
+     */
+    @Override
+    public int purgeLogininfor()
+    {
+        return purge("sys_logininfor", "login_time", logininforRetentionMonths);
+    }
+
+    private int purge(String tableName, String timeColumn, int retentionMonths)
+    {
+        long start = System.currentTimeMillis();
+        YearMonth current = YearMonth.now();
+        YearMonth cutoffMonth = current.minusMonths(retentionMonths);
+        List<String> partitions = logPartitionMapper.selectPartitionNames(tableName);
+        int dropped = 0;
+        if (partitions.contains(FUTURE_PARTITION))
+        {
+            createPartitions(tableName, partitions, current);
+            dropped = dropPartitions(tableName, partitions, cutoffMonth);
+        }
+        Date cutoff = cutoff(retentionMonths);
+        int deleted = 0;
+        int rows;
+        do
+        {
+            rows = logPartitionMapper.deleteBefore(tableName, timeColumn, cutoff, DELETE_BATCH);
+            deleted += rows;
+        }
+        while (rows >= DELETE_BATCH);
+        log.info("{}清理完成，删除分区{}个，删除{}之前的数据{}行，耗时{}毫秒", tableName, dropped, cutoffMonth, deleted,
+                System.currentTimeMillis() - start);
+        return deleted;
+    }
+
+    /**
+     * 从p_future依次拆分出当月及之后的月份分区，只追加在已有月份分区之后
+     */
+    private void createPartitions(String tableName, List<String> partitions, YearMonth current)
+    {
+        YearMonth latest = null;
+        for (String partition : partitions)
+        {
+            if (MONTH_PARTITION.matcher(partition).matches())
+            {
+                YearMonth month = YearMonth.parse(partition.substring(1), MONTH_FORMAT);
+                latest = latest == null || month.isAfter(latest) ? month : latest;
+            }
+        }
+        for (int i = 0; i <= AHEAD_MONTHS; i++)
+        {
+            YearMonth month = current.plusMonths(i);
+            if (latest != null && !month.isAfter(latest))
+            {
+                continue;
+            }
+            String partitionName = "p" + month.format(MONTH_FORMAT);
+            try
+            {
+                logPartitionMapper.addPartition(tableName, partitionName, toDays(month.plusMonths(1).atDay(1)));
+                log.info("{}新增分区{}", tableName, partitionName);
+            }
+            catch (Exception e)
+            {
+                log.error("{}新增分区{}失败", tableName, partitionName, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 删除整月早于保留期的月份分区
+     */
+    private int dropPartitions(String tableName, List<String> partitions, YearMonth cutoffMonth)
+    {
+        int dropped = 0;
+        for (String partition : partitions)
+        {
+            if (!MONTH_PARTITION.matcher(partition).matches()
+                    || !YearMonth.parse(partition.substring(1), MONTH_FORMAT).isBefore(cutoffMonth))
+            {
+                continue;
+            }
+            try
+            {
+                logPartitionMapper.dropPartition(tableName, partition);
+                dropped++;
+            }
+            catch (Exception e)
+            {
+                log.error("{}删除分区{}失败，改为分批删除", tableName, partition, e);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * 保留期的开始时间，早于该时间的日志被清理
+     */
+    private static Date cutoff(int retentionMonths)
+    {
+        return Date.from(YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static long toDays(LocalDate date)
+    {
+        return date.toEpochDay() + TO_DAYS_EPOCH;
+    }
+}
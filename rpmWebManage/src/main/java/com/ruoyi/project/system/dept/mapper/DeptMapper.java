@@ -114,4 +114,40 @@ public interface DeptMapper
      * @return 子部门数
      */
     public int selectNormalChildrenDeptById(Long deptId);
+
+    /**
+     * 替换全部下级部门的祖级列表前缀
+     * 
+     * @param deptId 部门ID
+     * @param newAncestors 新的祖级列表
+     * @param oldAncestors 旧的祖级列表
+     * @return 结果
+     */
+    public int updateDescendantAncestors(@Param("deptId") Long deptId, @Param("newAncestors") String newAncestors, @Param("oldAncestors") String oldAncestors);
+
+    /**
+     * 新增部门闭包关系（自身及全部上级部门）
+     * 
+     * @param deptId 部门ID
+     * @param parentId 父部门ID
+     * @return 结果
+     */
+    public int insertDeptClosure(@Param("deptId") Long deptId, @Param("parentId") Long parentId);
+
+    /**
+     * 删除子树与子树外上级部门的闭包关系
+     * 
+     * @param deptId 子树根部门ID
+     * @return 结果
+     */
+    public int deleteDeptClosureLinks(Long deptId);
+
+    /**
+     * 新增子树与新上级部门及其全部上级的闭包关系
+     * 
+     * @param deptId 子树根部门ID
+     * @param parentId 新的父部门ID
+     * @return 结果
+     */
+    public int insertDeptClosureLinks(@Param("deptId") Long deptId, @Param("parentId") Long parentId);
 }
@@ -1,7 +1,10 @@
 package com.ruoyi.project.system.dept.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -122,8 +125,10 @@ public class DeptServiceImpl implements IDeptService
      */
     public List<Ztree> initZtree(List<Dept> deptList, List<String> roleDeptList)
     {
-        List<Ztree> ztrees = new ArrayList<Ztree>();
+        List<Ztree> ztrees = new ArrayList<Ztree>(deptList.size());
         boolean isCheck = StringUtils.isNotNull(roleDeptList);
+        // 已选部门转为哈希集合，避免每个节点遍历一次列表
+        Set<String> roleDepts = isCheck ? new HashSet<String>(roleDeptList) : Collections.emptySet();
         for (Dept dept : deptList)
         {
             if (UserConstants.DEPT_NORMAL.equals(dept.getStatus()))
@@ -135,7 +140,7 @@ public class DeptServiceImpl implements IDeptService
                 ztree.setTitle(dept.getDeptName());
                 if (isCheck)
                 {
-                    ztree.setChecked(roleDeptList.contains(dept.getDeptId() + dept.getDeptName()));
+                    ztree.setChecked(roleDepts.contains(dept.getDeptId() + dept.getDeptName()));
                 }
                 ztrees.add(ztree);
             }
@@ -189,6 +194,7 @@ public class DeptServiceImpl implements IDeptService
      * @return 结果
      */
     @Override
+    @Transactional
     public int insertDept(Dept dept)
     {
         Dept info = deptMapper.selectDeptById(dept.getParentId());
@@ -199,7 +205,10 @@ public class DeptServiceImpl implements IDeptService
         }
         dept.setCreateBy(ShiroUtils.getLoginName());
         dept.setAncestors(info.getAncestors() + "," + dept.getParentId());
-        return deptMapper.insertDept(dept);
+        int rows = deptMapper.insertDept(dept);
+        // 闭包表记录新部门与全部上级部门的关系
+        deptMapper.insertDeptClosure(dept.getDeptId(), dept.getParentId());
+        return rows;
     }
 
     /**
@@ -219,7 +228,13 @@ public class DeptServiceImpl implements IDeptService
             String newAncestors = newParentDept.getAncestors() + "," + newParentDept.getDeptId();
             String oldAncestors = oldDept.getAncestors();
             dept.setAncestors(newAncestors);
-            updateDeptChildren(dept.getDeptId(), newAncestors, oldAncestors);
+            if (!StringUtils.equals(newAncestors, oldAncestors))
+            {
+                updateDeptChildren(dept.getDeptId(), newAncestors, oldAncestors);
+                // 子树整体移动：断开子树与原上级部门的关系，再连接到新的上级部门
+                deptMapper.deleteDeptClosureLinks(dept.getDeptId());
+                deptMapper.insertDeptClosureLinks(dept.getDeptId(), newParentDept.getDeptId());
+            }
         }
         dept.setUpdateBy(ShiroUtils.getLoginName());
         int result = deptMapper.updateDept(dept);
@@ -253,15 +268,8 @@ public class DeptServiceImpl implements IDeptService
      */
     public void updateDeptChildren(Long deptId, String newAncestors, String oldAncestors)
     {
-        List<Dept> children = deptMapper.selectChildrenDeptById(deptId);
-        for (Dept child : children)
-        {
-            child.setAncestors(child.getAncestors().replaceFirst(oldAncestors, newAncestors));
-        }
-        if (children.size() > 0)
-        {
-            deptMapper.updateDeptChildren(children);
-        }
+        // 按闭包表一次更新全部下级部门的祖级列表前缀
+        deptMapper.updateDescendantAncestors(deptId, newAncestors, oldAncestors);
     }
 
     /**
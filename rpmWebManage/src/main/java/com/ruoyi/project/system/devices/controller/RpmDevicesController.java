@@ -3,12 +3,20 @@ package com.ruoyi.project.system.devices.controller;
 import java.util.List;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.ruoyi.common.exception.ServiceException;
+import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.framework.aspectj.lang.annotation.Log;
 import com.ruoyi.framework.aspectj.lang.enums.BusinessType;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateRollup;
 import com.ruoyi.project.system.devices.domain.RpmDevices;
+import com.ruoyi.project.system.devices.manager.DevicePushGateway;
+import com.ruoyi.project.system.devices.manager.DeviceStatusWatcher;
 import com.ruoyi.project.system.devices.service.IRpmDevicesService;
 import com.ruoyi.framework.web.controller.BaseController;
 import com.ruoyi.framework.web.domain.AjaxResult;
@@ -30,6 +38,12 @@ public class RpmDevicesController extends BaseController
     @Autowired
     private IRpmDevicesService rpmDevicesService;
 
+    @Autowired
+    private DeviceStatusWatcher deviceStatusWatcher;
+
+    @Autowired
+    private DevicePushGateway devicePushGateway;
+
     @RequiresPermissions("system:devices:view")
     @GetMapping()
     public String devices()
@@ -92,6 +106,17 @@ public class RpmDevicesController extends BaseController
         return toAjax(rpmDevicesService.insertRpmDevices(rpmDevices));
     }
 
+    /**
+     * 客户端批量新增设备信息
+     */
+    @Log(title = "客户端批量新增用户的设备信息", businessType = BusinessType.INSERT)
+    @PostMapping("/client-add-batch")
+    @ResponseBody
+    public AjaxResult clientAddBatch(@RequestBody List<RpmDevices> list)
+    {
+        return AjaxResult.success(rpmDevicesService.insertRpmDevicesBatch(list));
+    }
+
     /**
      * 修改存储用户的设备信息
      */
@@ -130,6 +155,111 @@ public class RpmDevicesController extends BaseController
         return AjaxResult.success(rpmDevices);
     }
 
+    /**
+     * 长轮询设备状态，携带已知版本号（参数version或请求头If-None-Match），
+     * 状态未变更时挂起请求，超时返回304
+     * @param uuid
+     * @param version 客户端已知的版本号
+     * @param ifNoneMatch 上次响应的ETag
+     * @return
+     */
+    @GetMapping("/watch/{uuid}")
+    @ResponseBody
+    public DeferredResult<ResponseEntity<AjaxResult>> watch(@PathVariable("uuid") String uuid,
+            @RequestParam(value = "version", required = false) Long version,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch)
+    {
+        RpmDevices rpmDevices = rpmDevicesService.selectRpmDevicesByUuid(uuid);
+        if (rpmDevices == null)
+        {
+            DeferredResult<ResponseEntity<AjaxResult>> result = new DeferredResult<ResponseEntity<AjaxResult>>();
+            result.setResult(ResponseEntity.ok(AjaxResult.error("设备不存在")));
+            return result;
+        }
+        if (version == null && StringUtils.isNotEmpty(ifNoneMatch))
+        {
+            String etag = StringUtils.strip(StringUtils.removeStart(ifNoneMatch.trim(), "W/"), "\"");
+            version = StringUtils.isNumeric(etag) ? Long.valueOf(etag) : null;
+        }
+        return deviceStatusWatcher.watch(rpmDevices, version);
+    }
+
+    /**
+     * 订阅设备状态推送（SSE），锁定/解锁等状态变更实时下发
+     * @param uuid
+     * @return
+     */
+    @GetMapping(value = "/push/{uuid}", produces = "text/event-stream")
+    public SseEmitter push(@PathVariable("uuid") String uuid)
+    {
+        RpmDevices rpmDevices = rpmDevicesService.selectRpmDevicesByUuid(uuid);
+        if (rpmDevices == null)
+        {
+            SseEmitter emitter = new SseEmitter();
+            emitter.completeWithError(new ServiceException("设备不存在"));
+            return emitter;
+        }
+        return devicePushGateway.subscribe(rpmDevices);
+    }
+
+    /**
+     * 获取设备注册表统计信息
+     */
+    @RequiresPermissions("system:devices:view")
+    @GetMapping("/registry/stats")
+    @ResponseBody
+    public AjaxResult registryStats()
+    {
+        return AjaxResult.success(rpmDevicesService.selectRegistryStatistics());
+    }
+
+    /**
+     * 获取设备心跳合并写入统计信息
+     */
+    @RequiresPermissions("system:devices:view")
+    @GetMapping("/heartbeat/stats")
+    @ResponseBody
+    public AjaxResult heartbeatStats()
+    {
+        return AjaxResult.success(rpmDevicesService.selectHeartbeatStatistics());
+    }
+
+    /**
+     * 获取设备状态推送统计信息
+     */
+    @RequiresPermissions("system:devices:view")
+    @GetMapping("/push/stats")
+    @ResponseBody
+    public AjaxResult pushStats()
+    {
+        return AjaxResult.success(rpmDevicesService.selectPushStatistics());
+    }
+
+    /**
+     * 查询设备状态汇总列表（bucketType：H小时 D天）
+     */
+    @RequiresPermissions("system:devices:view")
+    @PostMapping("/history/rollup")
+    @ResponseBody
+    public TableDataInfo historyRollup(RpmDeviceStateRollup rollup)
+    {
+        startPage();
+        List<RpmDeviceStateRollup> list = rpmDevicesService.selectStateRollupList(rollup);
+        return getDataTable(list);
+    }
+
+    /**
+     * 按设备合计时间范围内的在线时长、锁定时长和锁定次数
+     */
+    @RequiresPermissions("system:devices:view")
+    @PostMapping("/history/summary")
+    @ResponseBody
+    public TableDataInfo historySummary(RpmDeviceStateRollup rollup)
+    {
+        startPage();
+        List<RpmDeviceStateRollup> list = rpmDevicesService.selectStateRollupSummary(rollup);
+        return getDataTable(list);
+    }
 
     /**
      * 修改保存存储用户的设备信息
@@ -143,13 +273,22 @@ public class RpmDevicesController extends BaseController
         return toAjax(rpmDevicesService.updateRpmDevices(rpmDevices));
     }
 
-    @Log(title = "客户端更新用户的设备信息", businessType = BusinessType.UPDATE)
+    @Log(title = "客户端更新用户的设备信息", businessType = BusinessType.UPDATE, sampleRate = 0.1)
     @PostMapping("/client-edit")
     @ResponseBody
     public AjaxResult clientEditSave(@RequestBody RpmDevices rpmDevices)
     {
         return toAjax(rpmDevicesService.updateRpmDevices(rpmDevices));
     }
+
+    @Log(title = "客户端批量更新用户的设备信息", businessType = BusinessType.UPDATE)
+    @PostMapping("/client-edit-batch")
+    @ResponseBody
+    public AjaxResult clientEditBatch(@RequestBody List<RpmDevices> list)
+    {
+        return AjaxResult.success(rpmDevicesService.updateRpmDevicesBatch(list));
+    }
+
     @Log(title = "客户端紧急解锁", businessType = BusinessType.UPDATE)
     @PostMapping("/client-emerge-unlock")
     @ResponseBody
@@ -170,6 +309,17 @@ public class RpmDevicesController extends BaseController
         return toAjax(rpmDevicesService.deleteRpmDevicesByIds(ids));
     }
 
+    /**
+     * 批量设置设备状态
+     */
+    @Log(title = "存储用户的设备信息", businessType = BusinessType.UPDATE)
+    @PostMapping("/changeStatusBatch")
+    @ResponseBody
+    public AjaxResult changeStatusBatch(String ids, Long deviceStatus)
+    {
+        return AjaxResult.success(rpmDevicesService.updateRpmDevicesStatusBatch(ids, deviceStatus));
+    }
+
     /**
      * 切换设备状态
      */
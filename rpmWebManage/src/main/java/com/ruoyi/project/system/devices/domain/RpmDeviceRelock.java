@@ -0,0 +1,62 @@
+package com.ruoyi.project.system.devices.domain;
+
+import java.io.Serializable;
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 设备待重新锁定对象 rpm_device_relock
+ * 
+ * @author Lan
+ */
+public class RpmDeviceRelock implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    /** 设备ID */
+    private Long deviceId;
+
+    /** 重新锁定时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date relockTime;
+
+    public RpmDeviceRelock()
+    {
+    }
+
+    public RpmDeviceRelock(Long deviceId, Date relockTime)
+    {
+        this.deviceId = deviceId;
+        this.relockTime = relockTime;
+    }
+
+    public void setDeviceId(Long deviceId)
+    {
+        this.deviceId = deviceId;
+    }
+
+    public Long getDeviceId()
+    {
+        return deviceId;
+    }
+
+    public void setRelockTime(Date relockTime)
+    {
+        this.relockTime = relockTime;
+    }
+
+    public Date getRelockTime()
+    {
+        return relockTime;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this,ToStringStyle.MULTI_LINE_STYLE)
+            .append("deviceId", getDeviceId())
+            .append("relockTime", getRelockTime())
+            .toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.ruoyi.project.system.devices.domain;
+
+import java.io.Serializable;
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 设备状态变更记录对象 rpm_device_state_log（只追加）
+ * 
+ * @author Lan
+ */
+public class RpmDeviceStateLog implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    /** 状态类型：在线状态 */
+    public static final String TYPE_ONLINE = "0";
+
+    /** 状态类型：锁定状态 */
+    public static final String TYPE_LOCK = "1";
+
+    /** 状态类型：客户端上报锁定事件 */
+    public static final String TYPE_LOCK_EVENT = "2";
+
+    /** 记录ID */
+    private Long id;
+
+    /** 设备ID */
+    private Long deviceId;
+
+    /** 状态类型（0在线状态 1锁定状态 2锁定事件） */
+    private String stateType;
+
+    /** 状态值（在线状态 1在线 0离线；锁定状态 1锁定 0解锁） */
+    private Integer stateValue;
+
+    /** 发生时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date eventTime;
+
+    public RpmDeviceStateLog()
+    {
+    }
+
+    public RpmDeviceStateLog(Long deviceId, String stateType, Integer stateValue, Date eventTime)
+    {
+        this.deviceId = deviceId;
+        this.stateType = stateType;
+        this.stateValue = stateValue;
+        this.eventTime = eventTime;
+    }
+
+    public void setId(Long id)
+    {
+        this.id = id;
+    }
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public void setDeviceId(Long deviceId)
+    {
+        this.deviceId = deviceId;
+    }
+
+    public Long getDeviceId()
+    {
+        return deviceId;
+    }
+
+    public void setStateType(String stateType)
+    {
+        this.stateType = stateType;
+    }
+
+    public String getStateType()
+    {
+        return stateType;
+    }
+
+    public void setStateValue(Integer stateValue)
+    {
+        this.stateValue = stateValue;
+    }
+
+    public Integer getStateValue()
+    {
+        return stateValue;
+    }
+
+    public void setEventTime(Date eventTime)
+    {
+        this.eventTime = eventTime;
+    }
+
+    public Date getEventTime()
+    {
+        return eventTime;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this,ToStringStyle.MULTI_LINE_STYLE)
+            .append("id", getId())
+            .append("deviceId", getDeviceId())
+            .append("stateType", getStateType())
+            .append("stateValue", getStateValue())
+            .append("eventTime", getEventTime())
+            .toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.ruoyi.project.system.devices.domain;
+
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import com.ruoyi.framework.web.domain.BaseEntity;
+
+/**
+ * 设备状态汇总对象 rpm_device_state_rollup（按小时、按天预聚合）
+ * 
+ * @author Lan
+ */
+public class RpmDeviceStateRollup extends BaseEntity
+{
+    private static final long serialVersionUID = 1L;
+
+    /** 汇总粒度：小时 */
+    public static final String BUCKET_HOUR = "H";
+
+    /** 汇总粒度：天 */
+    public static final String BUCKET_DAY = "D";
+
+    /** 设备ID */
+    private Long deviceId;
+
+    /** 汇总粒度（H小时 D天） */
+    private String bucketType;
+
+    /** 时间段起点 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date bucketTime;
+
+    /** 在线时长（秒） */
+    private Long onlineSeconds;
+
+    /** 锁定时长（秒） */
+    private Long lockedSeconds;
+
+    /** 锁定事件次数 */
+    private Long lockCount;
+
+    /** 状态变更次数 */
+    private Long transitionCount;
+
+    public void setDeviceId(Long deviceId)
+    {
+        this.deviceId = deviceId;
+    }
+
+    public Long getDeviceId()
+    {
+        return deviceId;
+    }
+
+    public void setBucketType(String bucketType)
+    {
+        this.bucketType = bucketType;
+    }
+
+    public String getBucketType()
+    {
+        return bucketType;
+    }
+
+    public void setBucketTime(Date bucketTime)
+    {
+        this.bucketTime = bucketTime;
+    }
+
+    public Date getBucketTime()
+    {
+        return bucketTime;
+    }
+
+    public void setOnlineSeconds(Long onlineSeconds)
+    {
+        this.onlineSeconds = onlineSeconds;
+    }
+
+    public Long getOnlineSeconds()
+    {
+        return onlineSeconds;
+    }
+
+    public void setLockedSeconds(Long lockedSeconds)
+    {
+        this.lockedSeconds = lockedSeconds;
+    }
+
+    public Long getLockedSeconds()
+    {
+        return lockedSeconds;
+    }
+
+    public void setLockCount(Long lockCount)
+    {
+        this.lockCount = lockCount;
+    }
+
+    public Long getLockCount()
+    {
+        return lockCount;
+    }
+
+    public void setTransitionCount(Long transitionCount)
+    {
+        this.transitionCount = transitionCount;
+    }
+
+    public Long getTransitionCount()
+    {
+        return transitionCount;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this,ToStringStyle.MULTI_LINE_STYLE)
+            .append("deviceId", getDeviceId())
+            .append("bucketType", getBucketType())
+            .append("bucketTime", getBucketTime())
+            .append("onlineSeconds", getOnlineSeconds())
+            .append("lockedSeconds", getLockedSeconds())
+            .append("lockCount", getLockCount())
+            .append("transitionCount", getTransitionCount())
+            .toString();
+    }
+}
@@ -0,0 +1,163 @@
+package com.ruoyi.project.system.devices.manager;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.ruoyi.framework.manager.AsyncManager;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+import com.ruoyi.project.system.devices.mapper.RpmDevicesMapper;
+
+/**
+ * 设备心跳合并写入（每台设备只保留最新的在线时间，按周期批量写入last_seen）
+ *
+ * @author Lan
+ */
+@Component
+public class DeviceHeartbeatCoalescer
+{
+    private static final Logger log = LoggerFactory.getLogger(DeviceHeartbeatCoalescer.class);
+
+    /** 单条批量更新语句包含的最大设备数 */
+    private static final int BATCH_SIZE = 500;
+
+    /** 批量写入周期（秒） */
+    @Value("${device.heartbeat.flushInterval:10}")
+    private long flushInterval;
+
+    @Autowired
+    private RpmDevicesMapper rpmDevicesMapper;
+
+    /** 设备ID -> 最新在线时间 */
+    private final ConcurrentHashMap<Long, Date> pending = new ConcurrentHashMap<Long, Date>();
+
+    private final LongAdder received = new LongAdder();
+
+    private final LongAdder flushedRows = new LongAdder();
+
+    private final AtomicLong flushCount = new AtomicLong();
+
+    private volatile long lastFlushMillis;
+
+    private volatile long maxFlushMillis;
+
+    @PostConstruct
+    public void init()
+    {
+        AsyncManager.me().scheduleWithFixedDelay(this::flush, flushInterval, TimeUnit.SECONDS);
+        AsyncManager.me().addDrainTask(this::flush);
+    }
+
+    /**
+     * 记录一次设备心跳
+     *
+     * @param deviceId 设备ID
+     * @param lastSeen 在线时间
+     */
+    public void touch(Long deviceId, Date lastSeen)
+    {
+        if (deviceId == null || lastSeen == null)
+        {
+            return;
+        }
+        received.increment();
+        merge(deviceId, lastSeen);
+    }
+
+    /**
+     * 合并在线时间，保留较新的一个
+     */
+    private void merge(Long deviceId, Date lastSeen)
+    {
+        pending.merge(deviceId, lastSeen, (oldValue, newValue) -> newValue.after(oldValue) ? newValue : oldValue);
+    }
+
+    /**
+     * 将待写入的在线时间批量写入数据库
+     */
+    public synchronized void flush()
+    {
+        if (pending.isEmpty())
+        {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<RpmDevices> batch = new ArrayList<RpmDevices>(Math.min(pending.size(), BATCH_SIZE));
+        int rows = 0;
+        try
+        {
+            for (Map.Entry<Long, Date> entry : pending.entrySet())
+            {
+                // 仅当期间没有更新的心跳时才移除，否则留待下个周期写入
+                if (pending.remove(entry.getKey(), entry.getValue()))
+                {
+                    RpmDevices device = new RpmDevices();
+                    device.setId(entry.getKey());
+                    device.setLastSeen(entry.getValue());
+                    batch.add(device);
+                }
+                if (batch.size() >= BATCH_SIZE)
+                {
+                    rows += write(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty())
+            {
+                rows += write(batch);
+            }
+        }
+        catch (Exception e)
+        {
+            // 写入失败时放回缓冲区（不重复计入接收心跳数），已有更新的心跳优先
+            for (RpmDevices device : batch)
+            {
+                merge(device.getId(), device.getLastSeen());
+            }
+            log.error("设备在线时间批量写入失败", e);
+        }
+        finally
+        {
+            long elapsed = System.currentTimeMillis() - start;
+            lastFlushMillis = elapsed;
+            maxFlushMillis = Math.max(maxFlushMillis, elapsed);
+            flushCount.incrementAndGet();
+            flushedRows.add(rows);
+        }
+    }
+
+    private int write(List<RpmDevices> batch)
+    {
+        rpmDevicesMapper.updateRpmDevicesLastSeenBatch(batch);
+        return batch.size();
+    }
+
+    /**
+     * 获取心跳合并统计信息
+     *
+     * @return 待写入数量、接收心跳数、写入行数和写入耗时
+     */
+    public Map<String, Object> getStatistics()
+    {
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("queueDepth", pending.size());
+        stats.put("received", received.sum());
+        stats.put("flushedRows", flushedRows.sum());
+        stats.put("flushCount", flushCount.get());
+        stats.put("lastFlushMillis", lastFlushMillis);
+        stats.put("maxFlushMillis", maxFlushMillis);
+        stats.put("flushInterval", flushInterval);
+        return stats;
+    }
+}
@@ -0,0 +1,198 @@
+package com.ruoyi.project.system.devices.manager;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.ruoyi.common.utils.Threads;
+import com.ruoyi.framework.web.domain.AjaxResult;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+
+/**
+ * 设备状态推送网关（SSE长连接，按device_token推送锁定/解锁状态变更）
+ *
+ * @author Lan
+ */
+@Component
+public class DevicePushGateway
+{
+    private static final Logger log = LoggerFactory.getLogger(DevicePushGateway.class);
+
+    /** 状态变更事件名 */
+    private static final String STATE_EVENT = "state";
+
+    /** 推送线程数 */
+    @Value("${device.push.threads:2}")
+    private int threads;
+
+    /** 连接超时时间（分钟），超时后客户端需重新连接 */
+    @Value("${device.push.timeout:30}")
+    private long timeout;
+
+    /** 心跳间隔（秒），防止代理断开空闲连接 */
+    @Value("${device.push.keepAlive:25}")
+    private long keepAlive;
+
+    @Autowired
+    private DeviceStateRegistry deviceStateRegistry;
+
+    /** device_token -> 已连接的客户端 */
+    private final ConcurrentHashMap<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<String, Set<SseEmitter>>();
+
+    /** 等待推送的device_token，同一设备的多次变更只推送最新状态 */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder pushed = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init()
+    {
+        executor = new ScheduledThreadPoolExecutor(threads,
+                new BasicThreadFactory.Builder().namingPattern("device-push-%d").daemon(true).build());
+        executor.scheduleWithFixedDelay(this::keepAlive, keepAlive, keepAlive, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        Threads.shutdownAndAwaitTermination(executor);
+        for (Set<SseEmitter> set : emitters.values())
+        {
+            for (SseEmitter emitter : set)
+            {
+                emitter.complete();
+            }
+        }
+        emitters.clear();
+    }
+
+    /**
+     * 客户端订阅设备状态，连接建立后立即推送一次当前状态
+     *
+     * @param device 设备信息
+     * @return SSE连接
+     */
+    public SseEmitter subscribe(RpmDevices device)
+    {
+        String token = device.getDeviceToken();
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeout));
+        emitters.compute(token, (key, set) -> {
+            if (set == null)
+            {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(emitter);
+            return set;
+        });
+        Runnable remove = () -> emitters.computeIfPresent(token, (key, set) -> {
+            set.remove(emitter);
+            return set.isEmpty() ? null : set;
+        });
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        publish(token);
+        return emitter;
+    }
+
+    /**
+     * 异步推送设备最新状态，不阻塞调用线程
+     *
+     * @param token 设备唯一标识符
+     */
+    public void publish(String token)
+    {
+        if (token == null || !emitters.containsKey(token) || !pending.add(token))
+        {
+            return;
+        }
+        executor.execute(() -> {
+            pending.remove(token);
+            send(token);
+        });
+    }
+
+    private void send(String token)
+    {
+        Set<SseEmitter> set = emitters.get(token);
+        if (set == null)
+        {
+            return;
+        }
+        RpmDevices device = deviceStateRegistry.peek(token);
+        Long version = deviceStateRegistry.getVersion(token);
+        AjaxResult data = device == null ? AjaxResult.error("设备不存在") : AjaxResult.success(device).put("version", version);
+        for (SseEmitter emitter : set)
+        {
+            try
+            {
+                SseEmitter.SseEventBuilder event = SseEmitter.event().name(STATE_EVENT).data(data);
+                if (version != null)
+                {
+                    event.id(String.valueOf(version));
+                }
+                emitter.send(event);
+                pushed.increment();
+            }
+            catch (IOException | IllegalStateException e)
+            {
+                log.debug("设备[{}]推送失败：{}", token, e.getMessage());
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void keepAlive()
+    {
+        for (Set<SseEmitter> set : emitters.values())
+        {
+            for (SseEmitter emitter : set)
+            {
+                try
+                {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+                catch (IOException | IllegalStateException e)
+                {
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取推送统计信息
+     *
+     * @return 在线连接数、设备数和已推送事件数
+     */
+    public Map<String, Object> getStatistics()
+    {
+        int connections = 0;
+        for (Set<SseEmitter> set : emitters.values())
+        {
+            connections += set.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("devices", emitters.size());
+        stats.put("connections", connections);
+        stats.put("pending", pending.size());
+        stats.put("pushed", pushed.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,181 @@
+package com.ruoyi.project.system.devices.manager;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.utils.spring.SpringUtils;
+import com.ruoyi.project.system.devices.domain.RpmDeviceRelock;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+import com.ruoyi.project.system.devices.mapper.RpmDeviceRelockMapper;
+import com.ruoyi.project.system.devices.service.IRpmDevicesService;
+
+/**
+ * 设备重新锁定调度（紧急解锁后到期自动锁定，到期时间持久化，重启后重新加载）
+ *
+ * @author Lan
+ */
+@Component
+public class DeviceRelockScheduler
+{
+    private static final Logger log = LoggerFactory.getLogger(DeviceRelockScheduler.class);
+
+    /** 重新锁定失败后的重试间隔（秒） */
+    private static final long RETRY_DELAY = 60;
+
+    /** 紧急解锁后重新锁定的延迟（分钟） */
+    @Value("${device.relock.delay:5}")
+    private long delay;
+
+    @Autowired
+    private RpmDeviceRelockMapper rpmDeviceRelockMapper;
+
+    /** 设备ID -> 待执行的重新锁定 */
+    private final Map<Long, RelockEntry> pending = new ConcurrentHashMap<Long, RelockEntry>();
+
+    private ScheduledThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init()
+    {
+        executor = new ScheduledThreadPoolExecutor(1,
+                new BasicThreadFactory.Builder().namingPattern("device-relock-%d").daemon(true).build());
+        // 取消的任务立即移出队列，重复解锁不会堆积
+        executor.setRemoveOnCancelPolicy(true);
+        for (RpmDeviceRelock relock : rpmDeviceRelockMapper.selectRpmDeviceRelockList())
+        {
+            if (relock.getDeviceId() == null || relock.getRelockTime() == null)
+            {
+                continue;
+            }
+            submit(relock.getDeviceId(), relock.getRelockTime());
+        }
+        log.info("加载待重新锁定设备{}台", pending.size());
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        // 到期时间已持久化，未执行的任务在下次启动时恢复
+        executor.shutdownNow();
+    }
+
+    /**
+     * 安排设备在延迟到期后重新锁定，已有计划时替换
+     *
+     * @param deviceId 设备ID
+     */
+    public void schedule(Long deviceId)
+    {
+        // 到期时间取整到秒，与datetime列的值一致，删除时按到期时间匹配
+        long relockMillis = (System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(delay)) / 1000 * 1000;
+        Date relockTime = new Date(relockMillis);
+        rpmDeviceRelockMapper.replaceRpmDeviceRelock(new RpmDeviceRelock(deviceId, relockTime));
+        submit(deviceId, relockTime);
+    }
+
+    /**
+     * 取消设备的重新锁定计划
+     *
+     * @param deviceId 设备ID
+     */
+    public void cancel(Long deviceId)
+    {
+        RelockEntry entry = pending.remove(deviceId);
+        if (entry != null)
+        {
+            entry.cancel();
+            rpmDeviceRelockMapper.deleteRpmDeviceRelockById(deviceId);
+        }
+    }
+
+    /**
+     * 待重新锁定的设备数量
+     */
+    public int size()
+    {
+        return pending.size();
+    }
+
+    private void submit(Long deviceId, Date relockTime)
+    {
+        RelockEntry entry = new RelockEntry(relockTime);
+        RelockEntry previous = pending.put(deviceId, entry);
+        if (previous != null)
+        {
+            previous.cancel();
+        }
+        long delayMillis = relockTime.getTime() - System.currentTimeMillis();
+        entry.future = executor.schedule(() -> relock(deviceId, entry), Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 重新锁定失败后稍后重试，期间已有新计划时以新计划为准
+     */
+    private void retry(Long deviceId, RelockEntry failed)
+    {
+        RelockEntry entry = new RelockEntry(failed.relockTime);
+        if (pending.putIfAbsent(deviceId, entry) == null)
+        {
+            entry.future = executor.schedule(() -> relock(deviceId, entry), RETRY_DELAY, TimeUnit.SECONDS);
+        }
+    }
+
+    private void relock(Long deviceId, RelockEntry entry)
+    {
+        // 已被新的计划替换或已取消则不再执行
+        if (!pending.remove(deviceId, entry))
+        {
+            return;
+        }
+        try
+        {
+            RpmDevices rpmDevices = new RpmDevices();
+            rpmDevices.setId(deviceId);
+            rpmDevices.setDeviceStatus(0L);
+            SpringUtils.getBean(IRpmDevicesService.class).updateRpmDevices(rpmDevices);
+            // 只删除本次计划，执行期间重新解锁写入的新计划保留
+            rpmDeviceRelockMapper.deleteRpmDeviceRelock(new RpmDeviceRelock(deviceId, entry.relockTime));
+        }
+        catch (Exception e)
+        {
+            log.error("设备[{}]重新锁定失败，{}秒后重试", deviceId, RETRY_DELAY, e);
+            retry(deviceId, entry);
+        }
+    }
+
+    /**
+     * 待执行的重新锁定
+     */
+    private static class RelockEntry
+    {
+        /** 到期时间 */
+        private final Date relockTime;
+
+        private volatile ScheduledFuture<?> future;
+
+        private RelockEntry(Date relockTime)
+        {
+            this.relockTime = relockTime;
+        }
+
+        private void cancel()
+        {
+            ScheduledFuture<?> f = future;
+            if (f != null)
+            {
+                f.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package com.ruoyi.project.system.devices.manager;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.time.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.ruoyi.framework.manager.AsyncManager;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateLog;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateRollup;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+import com.ruoyi.project.system.devices.mapper.RpmDeviceStateMapper;
+
+/**
+ * 设备状态历史记录（状态变更只追加写入，同时按小时、按天累计在线与锁定时长）
+ *
+ * @author Lan
+ */
+@Component
+public class DeviceStateRecorder
+{
+    private static final Logger log = LoggerFactory.getLogger(DeviceStateRecorder.class);
+
+    /** 单条批量语句包含的最大行数 */
+    private static final int BATCH_SIZE = 500;
+
+    /** 锁定状态值（deviceStatus为0表示锁定） */
+    private static final long LOCKED = 0L;
+
+    /** 写入周期（秒） */
+    @Value("${device.history.flushInterval:60}")
+    private long flushInterval;
+
+    /** 状态变更记录保留天数 */
+    @Value("${device.history.logRetentionDays:30}")
+    private int logRetentionDays;
+
+    /** 小时汇总保留天数 */
+    @Value("${device.history.hourRetentionDays:90}")
+    private int hourRetentionDays;
+
+    /** 天汇总保留天数 */
+    @Value("${device.history.dayRetentionDays:730}")
+    private int dayRetentionDays;
+
+    @Autowired
+    private RpmDeviceStateMapper rpmDeviceStateMapper;
+
+    @Autowired
+    private DeviceStateRegistry deviceStateRegistry;
+
+    /** 设备ID -> 当前状态及其开始时间 */
+    private final Map<Long, Track> tracks = new ConcurrentHashMap<Long, Track>();
+
+    /** 待写入的状态变更记录 */
+    private final ConcurrentLinkedQueue<RpmDeviceStateLog> pendingLogs = new ConcurrentLinkedQueue<RpmDeviceStateLog>();
+
+    /** (设备, 粒度, 时间段) -> 待累加的汇总增量 */
+    private final ConcurrentHashMap<BucketKey, Delta> pendingRollups = new ConcurrentHashMap<BucketKey, Delta>();
+
+    @PostConstruct
+    public void init()
+    {
+        AsyncManager.me().scheduleWithFixedDelay(this::flush, flushInterval, TimeUnit.SECONDS);
+        AsyncManager.me().addDrainTask(this::flush);
+    }
+
+    /**
+     * 启动时按设备当前状态开始跟踪，保持在线或锁定的设备从启动时刻起累计时长
+     *
+     * @param devices 设备列表
+     */
+    public void seed(Collection<RpmDevices> devices)
+    {
+        Date now = new Date();
+        for (RpmDevices device : devices)
+        {
+            if (device.getId() != null)
+            {
+                track(device.getId(), device, now);
+            }
+        }
+    }
+
+    /**
+     * 设备信息变更，记录在线状态和锁定状态的变化
+     *
+     * @param previous 变更前的设备信息，新增设备时为null
+     * @param latest 变更后的设备信息
+     */
+    public void onChange(RpmDevices previous, RpmDevices latest)
+    {
+        Date now = new Date();
+        Track track = track(latest.getId(), previous != null ? previous : latest, now);
+        setState(latest.getId(), track, isOnline(latest), isLocked(latest), now);
+    }
+
+    /**
+     * 设备心跳，离线设备重新上线时记录
+     *
+     * @param device 设备信息
+     * @param time 心跳时间
+     */
+    public void onHeartbeat(RpmDevices device, Date time)
+    {
+        Track track = track(device.getId(), device, time);
+        if (!track.online)
+        {
+            setState(device.getId(), track, true, track.locked, time);
+        }
+    }
+
+    /**
+     * 设备被判定为离线
+     *
+     * @param device 设备信息
+     * @param time 判定时间
+     */
+    public void onOffline(RpmDevices device, Date time)
+    {
+        Track track = track(device.getId(), device, time);
+        setState(device.getId(), track, false, track.locked, time);
+    }
+
+    /**
+     * 客户端上报锁定事件
+     *
+     * @param deviceId 设备ID
+     * @param time 锁定时间
+     */
+    public void onLockEvent(Long deviceId, Date time)
+    {
+        Date eventTime = time != null ? time : new Date();
+        pendingLogs.add(new RpmDeviceStateLog(deviceId, RpmDeviceStateLog.TYPE_LOCK_EVENT, 1, eventTime));
+        add(deviceId, eventTime, 0, 0, 1, 0);
+    }
+
+    /**
+     * 设备已删除，结算当前状态后不再跟踪
+     *
+     * @param deviceId 设备ID
+     */
+    public void remove(Long deviceId)
+    {
+        Track track = deviceId == null ? null : tracks.remove(deviceId);
+        if (track != null)
+        {
+            synchronized (track)
+            {
+                accrue(deviceId, track, new Date());
+            }
+        }
+    }
+
+    /**
+     * 将待写入的状态变更记录和汇总增量批量写入数据库
+     */
+    public void flush()
+    {
+        flush(new Date());
+    }
+
+    /**
+     * 将进行中的状态累计到指定时刻后写入数据库
+     *
+     * @param now 累计截止时刻
+     */
+    synchronized void flush(Date now)
+    {
+        long start = System.currentTimeMillis();
+        // 将进行中的状态累计到当前时刻，未结束的锁定也能体现在汇总中
+        for (Map.Entry<Long, Track> entry : tracks.entrySet())
+        {
+            Track track = entry.getValue();
+            synchronized (track)
+            {
+                accrue(entry.getKey(), track, now);
+            }
+        }
+        flushLogs();
+        flushRollups();
+        log.debug("设备状态历史写入完成，耗时{}毫秒", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 批量写入状态变更记录，写入失败的记录放回队列，下个周期重试
+     */
+    private void flushLogs()
+    {
+        List<RpmDeviceStateLog> logs = new ArrayList<RpmDeviceStateLog>();
+        try
+        {
+            RpmDeviceStateLog stateLog;
+            while ((stateLog = pendingLogs.poll()) != null)
+            {
+                logs.add(stateLog);
+                if (logs.size() >= BATCH_SIZE)
+                {
+                    rpmDeviceStateMapper.insertStateLogBatch(logs);
+                    logs.clear();
+                }
+            }
+            if (!logs.isEmpty())
+            {
+                rpmDeviceStateMapper.insertStateLogBatch(logs);
+            }
+        }
+        catch (Exception e)
+        {
+            pendingLogs.addAll(logs);
+            log.error("设备状态变更记录写入失败，{}条记录留待重试", pendingLogs.size(), e);
+        }
+    }
+
+    /**
+     * 批量累加汇总增量，写入失败的增量合并回待写入集合，下个周期重试
+     */
+    private void flushRollups()
+    {
+        Map<BucketKey, Delta> batch = new LinkedHashMap<BucketKey, Delta>();
+        try
+        {
+            for (BucketKey key : pendingRollups.keySet())
+            {
+                Delta delta = pendingRollups.remove(key);
+                if (delta != null)
+                {
+                    batch.put(key, delta);
+                }
+                if (batch.size() >= BATCH_SIZE)
+                {
+                    writeRollups(batch);
+                }
+            }
+            if (!batch.isEmpty())
+            {
+                writeRollups(batch);
+            }
+        }
+        catch (Exception e)
+        {
+            for (Map.Entry<BucketKey, Delta> entry : batch.entrySet())
+            {
+                pendingRollups.merge(entry.getKey(), entry.getValue(), Delta::plus);
+            }
+            log.error("设备状态汇总写入失败，{}条增量留待重试", pendingRollups.size(), e);
+        }
+    }
+
+    private void writeRollups(Map<BucketKey, Delta> batch)
+    {
+        List<RpmDeviceStateRollup> rollups = new ArrayList<RpmDeviceStateRollup>(batch.size());
+        for (Map.Entry<BucketKey, Delta> entry : batch.entrySet())
+        {
+            rollups.add(entry.getValue().toRollup(entry.getKey()));
+        }
+        rpmDeviceStateMapper.upsertStateRollupBatch(rollups);
+        batch.clear();
+    }
+
+    /**
+     * 按保留天数清理状态变更记录与汇总（小时汇总保留期短于天汇总，实现降采样）
+     */
+    public void purge()
+    {
+        Date today = DateUtils.truncate(new Date(), Calendar.DATE);
+        int logs = rpmDeviceStateMapper.deleteStateLogBefore(DateUtils.addDays(today, -logRetentionDays));
+        int hours = rpmDeviceStateMapper.deleteStateRollupBefore(RpmDeviceStateRollup.BUCKET_HOUR, DateUtils.addDays(today, -hourRetentionDays));
+        int days = rpmDeviceStateMapper.deleteStateRollupBefore(RpmDeviceStateRollup.BUCKET_DAY, DateUtils.addDays(today, -dayRetentionDays));
+        log.info("设备状态历史清理完成，删除变更记录{}条，小时汇总{}条，天汇总{}条", logs, hours, days);
+    }
+
+    private Track track(Long deviceId, RpmDevices initial, Date now)
+    {
+        return tracks.computeIfAbsent(deviceId, id -> new Track(isOnline(initial), isLocked(initial), now.getTime()));
+    }
+
+    private void setState(Long deviceId, Track track, boolean online, boolean locked, Date now)
+    {
+        synchronized (track)
+        {
+            if (track.online == online && track.locked == locked)
+            {
+                return;
+            }
+            accrue(deviceId, track, now);
+            int transitions = 0;
+            if (track.online != online)
+            {
+                pendingLogs.add(new RpmDeviceStateLog(deviceId, RpmDeviceStateLog.TYPE_ONLINE, online ? 1 : 0, now));
+                track.online = online;
+                transitions++;
+            }
+            if (track.locked != locked)
+            {
+                pendingLogs.add(new RpmDeviceStateLog(deviceId, RpmDeviceStateLog.TYPE_LOCK, locked ? 1 : 0, now));
+                track.locked = locked;
+                transitions++;
+            }
+            add(deviceId, now, 0, 0, 0, transitions);
+        }
+    }
+
+    /**
+     * 将当前状态从开始时间累计到指定时刻，跨越小时边界时拆分到各个时间段
+     *
+     * 只累计整秒，开始时间按已累计的整秒前移，不足一秒的部分留到下次累计
+     */
+    private void accrue(Long deviceId, Track track, Date until)
+    {
+        long from = track.since;
+        long to = from + (until.getTime() - from) / 1000 * 1000;
+        if (to <= from)
+        {
+            return;
+        }
+        if (track.online || track.locked)
+        {
+            long counted = 0;
+            while (from < to)
+            {
+                Date hour = DateUtils.truncate(new Date(from), Calendar.HOUR_OF_DAY);
+                long end = Math.min(to, hour.getTime() + TimeUnit.HOURS.toMillis(1));
+                // 按累计总秒数求差，跨小时拆分时不会各自舍去不足一秒的部分
+                long seconds = (end - track.since) / 1000 - counted;
+                counted += seconds;
+                add(deviceId, hour, track.online ? seconds : 0, track.locked ? seconds : 0, 0, 0);
+                from = end;
+            }
+        }
+        track.since = to;
+    }
+
+    private void add(Long deviceId, Date time, long onlineSeconds, long lockedSeconds, long lockCount, long transitions)
+    {
+        if (deviceId == null || (onlineSeconds == 0 && lockedSeconds == 0 && lockCount == 0 && transitions == 0))
+        {
+            return;
+        }
+        Delta delta = new Delta(onlineSeconds, lockedSeconds, lockCount, transitions);
+        Date hour = DateUtils.truncate(time, Calendar.HOUR_OF_DAY);
+        Date day = DateUtils.truncate(time, Calendar.DATE);
+        pendingRollups.merge(new BucketKey(deviceId, RpmDeviceStateRollup.BUCKET_HOUR, hour.getTime()), delta, Delta::plus);
+        pendingRollups.merge(new BucketKey(deviceId, RpmDeviceStateRollup.BUCKET_DAY, day.getTime()), delta, Delta::plus);
+    }
+
+    /**
+     * 根据设备唯一标识符查找设备ID
+     *
+     * @param token 设备唯一标识符
+     * @return 设备ID，不存在返回null
+     */
+    public Long resolveDeviceId(String token)
+    {
+        RpmDevices device = deviceStateRegistry.peek(token);
+        return device == null ? null : device.getId();
+    }
+
+    private static boolean isOnline(RpmDevices device)
+    {
+        return device.getStatus() != null && device.getStatus() == 1L;
+    }
+
+    private static boolean isLocked(RpmDevices device)
+    {
+        return device.getDeviceStatus() != null && device.getDeviceStatus() == LOCKED;
+    }
+
+    /**
+     * 设备当前状态
+     */
+    private static class Track
+    {
+        private boolean online;
+
+        private boolean locked;
+
+        private long since;
+
+        private Track(boolean online, boolean locked, long since)
+        {
+            this.online = online;
+            this.locked = locked;
+            this.since = since;
+        }
+    }
+
+    /**
+     * 汇总时间段
+     */
+    private static final class BucketKey
+    {
+        private final Long deviceId;
+
+        private final String bucketType;
+
+        private final long bucketTime;
+
+        private BucketKey(Long deviceId, String bucketType, long bucketTime)
+        {
+            this.deviceId = deviceId;
+            this.bucketType = bucketType;
+            this.bucketTime = bucketTime;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof BucketKey))
+            {
+                return false;
+            }
+            BucketKey other = (BucketKey) o;
+            return bucketTime == other.bucketTime && deviceId.equals(other.deviceId) && bucketType.equals(other.bucketType);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(deviceId, bucketType, bucketTime);
+        }
+    }
+
+    /**
+     * 汇总增量（不可变，合并时生成新对象）
+     */
+    private static final class Delta
+    {
+        private final long onlineSeconds;
+
+        private final long lockedSeconds;
+
+        private final long lockCount;
+
+        private final long transitions;
+
+        private Delta(long onlineSeconds, long lockedSeconds, long lockCount, long transitions)
+        {
+            this.onlineSeconds = onlineSeconds;
+            this.lockedSeconds = lockedSeconds;
+            this.lockCount = lockCount;
+            this.transitions = transitions;
+        }
+
+        private Delta plus(Delta other)
+        {
+            return new Delta(onlineSeconds + other.onlineSeconds, lockedSeconds + other.lockedSeconds,
+                    lockCount + other.lockCount, transitions + other.transitions);
+        }
+
+        private RpmDeviceStateRollup toRollup(BucketKey key)
+        {
+            RpmDeviceStateRollup rollup = new RpmDeviceStateRollup();
+            rollup.setDeviceId(key.deviceId);
+            rollup.setBucketType(key.bucketType);
+            rollup.setBucketTime(new Date(key.bucketTime));
+            rollup.setOnlineSeconds(onlineSeconds);
+            rollup.setLockedSeconds(lockedSeconds);
+            rollup.setLockCount(lockCount);
+            rollup.setTransitionCount(transitions);
+            return rollup;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.ruoyi.project.system.devices.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+
+/**
+ * 设备状态注册表（按device_token索引的内存设备状态，客户端轮询直接命中内存）
+ *
+ * 写入注册表的设备实例不再修改，心跳和离线判定以副本整体替换，返回给调用方的是副本
+ *
+ * @author Lan
+ */
+@Component
+public class DeviceStateRegistry
+{
+    /** device_token -> 设备状态 */
+    private final Map<String, RpmDevices> devices = new ConcurrentHashMap<String, RpmDevices>();
+
+    /** 设备ID -> device_token，用于按主键删除与更新 */
+    private final Map<Long, String> tokens = new ConcurrentHashMap<Long, String>();
+
+    /** device_token -> 设备状态版本号 */
+    private final Map<String, Long> versions = new ConcurrentHashMap<String, Long>();
+
+    /** 版本号序列，以启动时间为起点保证重启后版本号仍单调递增 */
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 全量加载设备状态
+     *
+     * @param list 设备列表
+     */
+    public void load(Collection<RpmDevices> list)
+    {
+        devices.clear();
+        tokens.clear();
+        versions.clear();
+        for (RpmDevices device : list)
+        {
+            put(device);
+        }
+    }
+
+    /**
+     * 根据device_token获取设备状态
+     *
+     * @param token 设备唯一标识符
+     * @return 设备状态，未命中返回null
+     */
+    public RpmDevices get(String token)
+    {
+        RpmDevices device = token == null ? null : devices.get(token);
+        if (device != null)
+        {
+            hits.increment();
+        }
+        else
+        {
+            misses.increment();
+        }
+        return device;
+    }
+
+    /**
+     * 根据device_token获取设备状态的副本（不计入命中统计）
+     *
+     * @param token 设备唯一标识符
+     * @return 设备状态副本，不存在返回null
+     */
+    public RpmDevices snapshot(String token)
+    {
+        RpmDevices device = peek(token);
+        return device == null ? null : copy(device);
+    }
+
+    /**
+     * 根据device_token获取设备状态（不计入命中统计）
+     *
+     * @param token 设备唯一标识符
+     * @return 设备状态
+     */
+    public RpmDevices peek(String token)
+    {
+        return token == null ? null : devices.get(token);
+    }
+
+    /**
+     * 根据设备ID获取设备状态（不计入命中统计）
+     *
+     * @param id 设备ID
+     * @return 设备状态
+     */
+    public RpmDevices getById(Long id)
+    {
+        String token = id == null ? null : tokens.get(id);
+        return token == null ? null : devices.get(token);
+    }
+
+    /**
+     * 获取设备状态版本号
+     *
+     * @param token 设备唯一标识符
+     * @return 版本号，不存在返回null
+     */
+    public Long getVersion(String token)
+    {
+        return token == null ? null : versions.get(token);
+    }
+
+    /**
+     * 写入或替换设备状态，并递增其版本号
+     *
+     * @param device 设备信息（以数据库最新行为准）
+     * @return 新的版本号，设备信息无效时返回null
+     */
+    public synchronized Long put(RpmDevices device)
+    {
+        if (device == null || device.getId() == null || StringUtils.isEmpty(device.getDeviceToken()))
+        {
+            return null;
+        }
+        String oldToken = tokens.put(device.getId(), device.getDeviceToken());
+        if (oldToken != null && !oldToken.equals(device.getDeviceToken()))
+        {
+            devices.remove(oldToken);
+            versions.remove(oldToken);
+        }
+        Long version = sequence.incrementAndGet();
+        devices.put(device.getDeviceToken(), device);
+        versions.put(device.getDeviceToken(), version);
+        return version;
+    }
+
+    /**
+     * 移除设备状态
+     *
+     * @param id 设备ID
+     */
+    public synchronized void remove(Long id)
+    {
+        String token = id == null ? null : tokens.remove(id);
+        if (token != null)
+        {
+            devices.remove(token);
+            versions.remove(token);
+        }
+    }
+
+    /**
+     * 记录设备心跳，以副本替换设备状态：更新在线时间并置为在线
+     *
+     * @param token 设备唯一标识符
+     * @param lastSeen 在线时间
+     * @return 心跳前的设备状态，设备不存在返回null
+     */
+    public RpmDevices touch(String token, Date lastSeen)
+    {
+        RpmDevices[] previous = new RpmDevices[1];
+        devices.computeIfPresent(token, (k, device) -> {
+            previous[0] = device;
+            RpmDevices online = copy(device);
+            if (device.getLastSeen() == null || lastSeen.after(device.getLastSeen()))
+            {
+                online.setLastSeen(lastSeen);
+            }
+            online.setStatus(1L);
+            return online;
+        });
+        return previous[0];
+    }
+
+    /**
+     * 将最近一次在线时间早于指定时间的在线设备置为离线
+     *
+     * @param lastSeen 离线判定时间
+     * @return 被置为离线的设备
+     */
+    public List<RpmDevices> markOffline(Date lastSeen)
+    {
+        List<RpmDevices> offline = new ArrayList<RpmDevices>();
+        for (String token : devices.keySet())
+        {
+            devices.computeIfPresent(token, (k, device) -> {
+                if (!isExpired(device, lastSeen))
+                {
+                    return device;
+                }
+                RpmDevices expired = copy(device);
+                expired.setStatus(0L);
+                offline.add(expired);
+                return expired;
+            });
+        }
+        return offline;
+    }
+
+    /**
+     * 在线设备的最近一次在线时间是否早于离线判定时间
+     */
+    private static boolean isExpired(RpmDevices device, Date lastSeen)
+    {
+        return Long.valueOf(1L).equals(device.getStatus()) && device.getLastSeen() != null && device.getLastSeen().before(lastSeen);
+    }
+
+    /**
+     * 复制设备信息
+     */
+    private static RpmDevices copy(RpmDevices device)
+    {
+        RpmDevices copy = new RpmDevices();
+        copy.setId(device.getId());
+        copy.setUserId(device.getUserId());
+        copy.setDeviceToken(device.getDeviceToken());
+        copy.setDeviceName(device.getDeviceName());
+        copy.setDeviceStatus(device.getDeviceStatus());
+        copy.setOsVersion(device.getOsVersion());
+        copy.setAppVersion(device.getAppVersion());
+        copy.setStatus(device.getStatus());
+        copy.setLastSeen(device.getLastSeen());
+        copy.setCreateBy(device.getCreateBy());
+        copy.setCreateTime(device.getCreateTime());
+        copy.setUpdateBy(device.getUpdateBy());
+        copy.setUpdateTime(device.getUpdateTime());
+        copy.setRemark(device.getRemark());
+        return copy;
+    }
+
+    /**
+     * 注册表中的设备数量
+     */
+    public int size()
+    {
+        return devices.size();
+    }
+
+    /**
+     * 获取注册表统计信息
+     *
+     * @return 命中数、未命中数、命中率和设备数量
+     */
+    public Map<String, Object> getStatistics()
+    {
+        long hit = hits.sum();
+        long miss = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("hits", hit);
+        stats.put("misses", miss);
+        stats.put("hitRate", hit + miss == 0 ? 0D : (double) hit / (hit + miss));
+        stats.put("size", size());
+        return stats;
+    }
+}
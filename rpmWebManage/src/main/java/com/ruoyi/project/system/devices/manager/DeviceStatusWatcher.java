@@ -0,0 +1,114 @@
+package com.ruoyi.project.system.devices.manager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import com.ruoyi.framework.web.domain.AjaxResult;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+
+/**
+ * 设备状态长轮询（客户端携带已知版本号挂起请求，状态变更或超时后返回）
+ *
+ * @author Lan
+ */
+@Component
+public class DeviceStatusWatcher
+{
+    /** 挂起请求的超时时间（秒） */
+    @Value("${device.watch.timeout:30}")
+    private long timeout;
+
+    @Autowired
+    private DeviceStateRegistry deviceStateRegistry;
+
+    /** device_token -> 挂起的请求 */
+    private final ConcurrentHashMap<String, Set<DeferredResult<ResponseEntity<AjaxResult>>>> watchers = new ConcurrentHashMap<String, Set<DeferredResult<ResponseEntity<AjaxResult>>>>();
+
+    /**
+     * 等待设备状态变更
+     *
+     * @param device 设备信息
+     * @param knownVersion 客户端已知的版本号，为空时立即返回当前状态
+     * @return 异步结果
+     */
+    public DeferredResult<ResponseEntity<AjaxResult>> watch(RpmDevices device, Long knownVersion)
+    {
+        String token = device.getDeviceToken();
+        DeferredResult<ResponseEntity<AjaxResult>> result = new DeferredResult<ResponseEntity<AjaxResult>>(
+                TimeUnit.SECONDS.toMillis(timeout), notModified(knownVersion));
+        Long version = deviceStateRegistry.getVersion(token);
+        if (knownVersion == null || !knownVersion.equals(version))
+        {
+            result.setResult(changed(device, version));
+            return result;
+        }
+        watchers.compute(token, (key, set) -> {
+            if (set == null)
+            {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(result);
+            return set;
+        });
+        result.onCompletion(() -> watchers.computeIfPresent(token, (key, set) -> {
+            set.remove(result);
+            return set.isEmpty() ? null : set;
+        }));
+        // 注册后再次检查，避免注册期间发生的状态变更被遗漏
+        if (!knownVersion.equals(deviceStateRegistry.getVersion(token)))
+        {
+            publish(token);
+        }
+        return result;
+    }
+
+    /**
+     * 通知挂起的请求设备状态已变更
+     *
+     * @param token 设备唯一标识符
+     */
+    public void publish(String token)
+    {
+        Set<DeferredResult<ResponseEntity<AjaxResult>>> set = token == null ? null : watchers.remove(token);
+        if (set == null)
+        {
+            return;
+        }
+        RpmDevices device = deviceStateRegistry.peek(token);
+        ResponseEntity<AjaxResult> response = device == null ? ResponseEntity.ok(AjaxResult.error("设备不存在"))
+                : changed(device, deviceStateRegistry.getVersion(token));
+        for (DeferredResult<ResponseEntity<AjaxResult>> result : set)
+        {
+            result.setResult(response);
+        }
+    }
+
+    /**
+     * 当前挂起的请求数量
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Set<DeferredResult<ResponseEntity<AjaxResult>>> set : watchers.values())
+        {
+            size += set.size();
+        }
+        return size;
+    }
+
+    private ResponseEntity<AjaxResult> changed(RpmDevices device, Long version)
+    {
+        return ResponseEntity.ok().eTag(String.valueOf(version)).body(AjaxResult.success(device).put("version", version));
+    }
+
+    private ResponseEntity<AjaxResult> notModified(Long version)
+    {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(String.valueOf(version)).build();
+    }
+}
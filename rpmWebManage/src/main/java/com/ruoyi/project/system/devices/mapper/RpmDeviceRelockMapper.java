@@ -0,0 +1,43 @@
+package com.ruoyi.project.system.devices.mapper;
+
+import java.util.List;
+import com.ruoyi.project.system.devices.domain.RpmDeviceRelock;
+
+/**
+ * 设备待重新锁定Mapper接口
+ * 
+ * @author Lan
+ */
+public interface RpmDeviceRelockMapper
+{
+    /**
+     * 查询所有待重新锁定的设备
+     * 
+     * @return 待重新锁定集合
+     */
+    public List<RpmDeviceRelock> selectRpmDeviceRelockList();
+
+    /**
+     * 新增或替换设备的重新锁定时间
+     * 
+     * @param relock 待重新锁定信息
+     * @return 结果
+     */
+    public int replaceRpmDeviceRelock(RpmDeviceRelock relock);
+
+    /**
+     * 删除设备的重新锁定计划
+     * 
+     * @param deviceId 设备ID
+     * @return 结果
+     */
+    public int deleteRpmDeviceRelockById(Long deviceId);
+
+    /**
+     * 删除设备指定到期时间的重新锁定计划（已被新计划替换时不删除）
+     * 
+     * @param relock 待重新锁定信息
+     * @return 结果
+     */
+    public int deleteRpmDeviceRelock(RpmDeviceRelock relock);
+}
@@ -0,0 +1,64 @@
+package com.ruoyi.project.system.devices.mapper;
+
+import java.util.Date;
+import java.util.List;
+import org.apache.ibatis.annotations.Param;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateLog;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateRollup;
+
+/**
+ * 设备状态历史Mapper接口
+ * 
+ * @author Lan
+ */
+public interface RpmDeviceStateMapper
+{
+    /**
+     * 批量追加设备状态变更记录
+     * 
+     * @param list 状态变更记录集合
+     * @return 结果
+     */
+    public int insertStateLogBatch(List<RpmDeviceStateLog> list);
+
+    /**
+     * 批量累加设备状态汇总（不存在则新增）
+     * 
+     * @param list 状态汇总增量集合
+     * @return 结果
+     */
+    public int upsertStateRollupBatch(List<RpmDeviceStateRollup> list);
+
+    /**
+     * 查询设备状态汇总列表
+     * 
+     * @param rollup 查询条件
+     * @return 状态汇总集合
+     */
+    public List<RpmDeviceStateRollup> selectStateRollupList(RpmDeviceStateRollup rollup);
+
+    /**
+     * 按设备合计时间范围内的状态汇总
+     * 
+     * @param rollup 查询条件
+     * @return 每台设备的合计
+     */
+    public List<RpmDeviceStateRollup> selectStateRollupSummary(RpmDeviceStateRollup rollup);
+
+    /**
+     * 删除指定时间之前的状态变更记录
+     * 
+     * @param eventTime 截止时间
+     * @return 结果
+     */
+    public int deleteStateLogBefore(Date eventTime);
+
+    /**
+     * 删除指定粒度、指定时间之前的状态汇总
+     * 
+     * @param bucketType 汇总粒度
+     * @param bucketTime 截止时间
+     * @return 结果
+     */
+    public int deleteStateRollupBefore(@Param("bucketType") String bucketType, @Param("bucketTime") Date bucketTime);
+}
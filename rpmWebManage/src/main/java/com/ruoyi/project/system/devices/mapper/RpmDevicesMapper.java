@@ -1,6 +1,8 @@
 package com.ruoyi.project.system.devices.mapper;
 
+import java.util.Date;
 import java.util.List;
+import org.apache.ibatis.annotations.Param;
 import com.ruoyi.project.system.devices.domain.RpmDevices;
 
 /**
@@ -19,6 +21,14 @@ public interface RpmDevicesMapper
      */
     public RpmDevices selectRpmDevicesById(Long id);
 
+    /**
+     * 批量查询存储用户的设备信息
+     * 
+     * @param ids 设备ID集合
+     * @return 存储用户的设备信息集合
+     */
+    public List<RpmDevices> selectRpmDevicesByIds(List<Long> ids);
+
     /**
      * 查询存储用户的设备信息列表
      * 
@@ -43,6 +53,14 @@ public interface RpmDevicesMapper
      */
     public int insertRpmDevices(RpmDevices rpmDevices);
 
+    /**
+     * 批量新增存储用户的设备信息（多行插入）
+     * 
+     * @param list 存储用户的设备信息集合
+     * @return 结果
+     */
+    public int insertRpmDevicesBatch(List<RpmDevices> list);
+
     /**
      * 修改存储用户的设备信息
      * 
@@ -51,6 +69,32 @@ public interface RpmDevicesMapper
      */
     public int updateRpmDevices(RpmDevices rpmDevices);
 
+    /**
+     * 批量修改设备最近一次在线时间
+     *
+     * @param list 设备信息（仅使用id和lastSeen）
+     * @return 结果
+     */
+    public int updateRpmDevicesLastSeenBatch(List<RpmDevices> list);
+
+    /**
+     * 将指定的在线设备置为离线
+     *
+     * @param ids 设备ID集合
+     * @return 结果
+     */
+    public int updateRpmDevicesOfflineByIds(List<Long> ids);
+
+    /**
+     * 批量修改设备锁定状态
+     *
+     * @param ids 设备ID集合
+     * @param deviceStatus 设备状态
+     * @param updateTime 更新时间
+     * @return 结果
+     */
+    public int updateRpmDevicesStatusBatch(@Param("ids") List<Long> ids, @Param("deviceStatus") Long deviceStatus, @Param("updateTime") Date updateTime);
+
     /**
      * 删除存储用户的设备信息
      * 
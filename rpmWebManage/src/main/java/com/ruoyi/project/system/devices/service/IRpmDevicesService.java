@@ -1,6 +1,9 @@
 package com.ruoyi.project.system.devices.service;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateRollup;
 import com.ruoyi.project.system.devices.domain.RpmDevices;
 
 /**
@@ -41,6 +44,14 @@ public interface IRpmDevicesService
      */
     public int insertRpmDevices(RpmDevices rpmDevices);
 
+    /**
+     * 批量新增存储用户的设备信息
+     * 
+     * @param list 存储用户的设备信息集合
+     * @return 每台设备的处理结果
+     */
+    public List<Map<String, Object>> insertRpmDevicesBatch(List<RpmDevices> list);
+
     /**
      * 修改存储用户的设备信息
      * 
@@ -50,6 +61,23 @@ public interface IRpmDevicesService
     public int updateRpmDevices(RpmDevices rpmDevices);
 
 
+    /**
+     * 批量修改存储用户的设备信息
+     * 
+     * @param list 存储用户的设备信息集合
+     * @return 每台设备的处理结果
+     */
+    public List<Map<String, Object>> updateRpmDevicesBatch(List<RpmDevices> list);
+
+    /**
+     * 批量修改设备锁定状态
+     * 
+     * @param ids 需要修改的设备ID
+     * @param deviceStatus 设备状态
+     * @return 每台设备的处理结果
+     */
+    public List<Map<String, Object>> updateRpmDevicesStatusBatch(String ids, Long deviceStatus);
+
     /**
      * 紧急解锁设备
      *
@@ -74,8 +102,53 @@ public interface IRpmDevicesService
      */
     public int deleteRpmDevicesById(Long id);
 
+    /**
+     * 将最近一次在线时间早于指定时间的在线设备置为离线
+     *
+     * @param lastSeen 离线判定时间
+     * @return 置为离线的设备数量
+     */
+    public int updateRpmDevicesOffline(Date lastSeen);
+
     /**
      * 根据uuid查询设备信息
      */
     public RpmDevices selectRpmDevicesByUuid(String uuid);
+
+    /**
+     * 获取设备注册表统计信息（命中、未命中、数量）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> selectRegistryStatistics();
+
+    /**
+     * 获取设备心跳合并写入统计信息（待写入数量、写入耗时）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> selectHeartbeatStatistics();
+
+    /**
+     * 获取设备状态推送统计信息（连接数、已推送事件数）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> selectPushStatistics();
+
+    /**
+     * 查询设备状态汇总列表（按小时或按天）
+     *
+     * @param rollup 查询条件
+     * @return 状态汇总集合
+     */
+    public List<RpmDeviceStateRollup> selectStateRollupList(RpmDeviceStateRollup rollup);
+
+    /**
+     * 按设备合计时间范围内的在线时长、锁定时长和锁定次数
+     *
+     * @param rollup 查询条件
+     * @return 每台设备的合计
+     */
+    public List<RpmDeviceStateRollup> selectStateRollupSummary(RpmDeviceStateRollup rollup);
 }
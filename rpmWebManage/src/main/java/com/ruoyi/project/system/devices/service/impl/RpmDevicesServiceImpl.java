@@ -1,11 +1,36 @@
 package com.ruoyi.project.system.devices.service.impl;
 
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import com.ruoyi.common.exception.ServiceException;
 import com.ruoyi.common.utils.DateUtils;
+import com.ruoyi.common.utils.StringUtils;
+import com.ruoyi.common.utils.spring.TransactionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.ruoyi.project.system.devices.manager.DeviceHeartbeatCoalescer;
+import com.ruoyi.project.system.devices.manager.DevicePushGateway;
+import com.ruoyi.project.system.devices.manager.DeviceRelockScheduler;
+import com.ruoyi.project.system.devices.manager.DeviceStateRecorder;
+import com.ruoyi.project.system.devices.manager.DeviceStateRegistry;
+import com.ruoyi.project.system.devices.manager.DeviceStatusWatcher;
 import com.ruoyi.project.system.devices.mapper.RpmDevicesMapper;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateRollup;
 import com.ruoyi.project.system.devices.domain.RpmDevices;
+import com.ruoyi.project.system.devices.mapper.RpmDeviceStateMapper;
 import com.ruoyi.project.system.devices.service.IRpmDevicesService;
 import com.ruoyi.common.utils.text.Convert;
 
@@ -18,9 +43,50 @@ import com.ruoyi.common.utils.text.Convert;
 @Service
 public class RpmDevicesServiceImpl implements IRpmDevicesService 
 {
+    /** 单次批量操作的最大设备数 */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /** 单条多行插入语句包含的最大设备数 */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
     @Autowired
     private RpmDevicesMapper rpmDevicesMapper;
 
+    @Autowired
+    private DeviceStateRegistry deviceStateRegistry;
+
+    @Autowired
+    private DeviceHeartbeatCoalescer deviceHeartbeatCoalescer;
+
+    @Autowired
+    private DeviceStatusWatcher deviceStatusWatcher;
+
+    @Autowired
+    private DevicePushGateway devicePushGateway;
+
+    @Autowired
+    private DeviceRelockScheduler deviceRelockScheduler;
+
+    @Autowired
+    private DeviceStateRecorder deviceStateRecorder;
+
+    @Autowired
+    private RpmDeviceStateMapper rpmDeviceStateMapper;
+
+    /**
+     * 项目启动时，初始化设备状态到注册表
+     */
+    @PostConstruct
+    public void init()
+    {
+        List<RpmDevices> devices = rpmDevicesMapper.selectAllRpmDevicesList();
+        deviceStateRegistry.load(devices);
+        deviceStateRecorder.seed(devices);
+    }
+
     /**
      * 查询存储用户的设备信息
      * 
@@ -60,7 +126,63 @@ public class RpmDevicesServiceImpl implements IRpmDevicesService
     public int insertRpmDevices(RpmDevices rpmDevices)
     {
         rpmDevices.setCreateTime(DateUtils.getNowDate());
-        return rpmDevicesMapper.insertRpmDevices(rpmDevices);
+        int rows = rpmDevicesMapper.insertRpmDevices(rpmDevices);
+        if (rows > 0)
+        {
+            refreshRegistry(rpmDevices.getId());
+        }
+        return rows;
+    }
+
+    /**
+     * 批量新增存储用户的设备信息，单个事务内多行插入
+     * 
+     * @param list 存储用户的设备信息集合
+     * @return 每台设备的处理结果
+     */
+    @Override
+    @Transactional
+    public List<Map<String, Object>> insertRpmDevicesBatch(List<RpmDevices> list)
+    {
+        checkBatchSize(list == null ? 0 : list.size());
+        List<Map<String, Object>> results = new ArrayList<Map<String, Object>>(list.size());
+        List<RpmDevices> valid = new ArrayList<RpmDevices>();
+        List<Map<String, Object>> validResults = new ArrayList<Map<String, Object>>();
+        Set<String> tokens = new HashSet<String>();
+        Date now = DateUtils.getNowDate();
+        for (int i = 0; i < list.size(); i++)
+        {
+            RpmDevices rpmDevices = list.get(i);
+            Map<String, Object> result = batchResult(i, rpmDevices);
+            results.add(result);
+            if (rpmDevices == null || StringUtils.isEmpty(rpmDevices.getDeviceToken()))
+            {
+                result.put("msg", "设备唯一标识符不能为空");
+                continue;
+            }
+            if (!tokens.add(rpmDevices.getDeviceToken()) || deviceStateRegistry.peek(rpmDevices.getDeviceToken()) != null)
+            {
+                result.put("msg", "设备唯一标识符已存在");
+                continue;
+            }
+            rpmDevices.setCreateTime(now);
+            valid.add(rpmDevices);
+            validResults.add(result);
+        }
+        List<Long> ids = new ArrayList<Long>(valid.size());
+        for (int from = 0; from < valid.size(); from += INSERT_BATCH_SIZE)
+        {
+            rpmDevicesMapper.insertRpmDevicesBatch(valid.subList(from, Math.min(from + INSERT_BATCH_SIZE, valid.size())));
+        }
+        for (int i = 0; i < valid.size(); i++)
+        {
+            Long id = valid.get(i).getId();
+            validResults.get(i).put("id", id);
+            validResults.get(i).put("success", true);
+            ids.add(id);
+        }
+        refreshRegistryAfterCommit(ids);
+        return results;
     }
 
     /**
@@ -73,24 +195,191 @@ public class RpmDevicesServiceImpl implements IRpmDevicesService
     public int updateRpmDevices(RpmDevices rpmDevices)
     {
         rpmDevices.setUpdateTime(DateUtils.getNowDate());
-        return rpmDevicesMapper.updateRpmDevices(rpmDevices);
+        int rows = rpmDevicesMapper.updateRpmDevices(rpmDevices);
+        if (rows > 0)
+        {
+            refreshRegistry(rpmDevices.getId());
+        }
+        return rows;
+    }
+
+    /**
+     * 批量修改存储用户的设备信息，单个事务内以JDBC批处理执行
+     * 
+     * @param list 存储用户的设备信息集合
+     * @return 每台设备的处理结果
+     */
+    @Override
+    @Transactional
+    public List<Map<String, Object>> updateRpmDevicesBatch(List<RpmDevices> list)
+    {
+        checkBatchSize(list == null ? 0 : list.size());
+        List<Map<String, Object>> results = new ArrayList<Map<String, Object>>(list.size());
+        List<RpmDevices> valid = new ArrayList<RpmDevices>();
+        List<Map<String, Object>> validResults = new ArrayList<Map<String, Object>>();
+        Date now = DateUtils.getNowDate();
+        for (int i = 0; i < list.size(); i++)
+        {
+            RpmDevices rpmDevices = list.get(i);
+            Map<String, Object> result = batchResult(i, rpmDevices);
+            results.add(result);
+            if (rpmDevices == null || rpmDevices.getId() == null)
+            {
+                result.put("msg", "设备ID不能为空");
+                continue;
+            }
+            rpmDevices.setUpdateTime(now);
+            valid.add(rpmDevices);
+            validResults.add(result);
+        }
+        if (valid.isEmpty())
+        {
+            return results;
+        }
+        List<Long> ids = new ArrayList<Long>(valid.size());
+        // 事务由Spring管理，批处理会话复用当前事务连接
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH))
+        {
+            RpmDevicesMapper batchMapper = sqlSession.getMapper(RpmDevicesMapper.class);
+            for (RpmDevices rpmDevices : valid)
+            {
+                batchMapper.updateRpmDevices(rpmDevices);
+            }
+            int index = 0;
+            for (BatchResult batchResult : sqlSession.flushStatements())
+            {
+                for (int count : batchResult.getUpdateCounts())
+                {
+                    Map<String, Object> result = validResults.get(index);
+                    if (count > 0 || count == Statement.SUCCESS_NO_INFO)
+                    {
+                        result.put("success", true);
+                        ids.add(valid.get(index).getId());
+                    }
+                    else
+                    {
+                        result.put("msg", "设备不存在");
+                    }
+                    index++;
+                }
+            }
+            sqlSession.commit();
+        }
+        refreshRegistryAfterCommit(ids);
+        return results;
     }
 
+    /**
+     * 批量修改设备锁定状态
+     * 
+     * @param ids 需要修改的设备ID
+     * @param deviceStatus 设备状态
+     * @return 每台设备的处理结果
+     */
     @Override
-    public int exigencyUnlockDevices(RpmDevices rpmDevices) {
-        // 开启一个定时器倒计时五分钟
-        new java.util.Timer().schedule(new java.util.TimerTask() {
-            @Override
-            public void run() {
-                // 修改设备的锁定状态
-                rpmDevices.setDeviceStatus(0L); // 假设锁定状态字段为lockStatus
-                rpmDevices.setUpdateTime(DateUtils.getNowDate());
-                rpmDevicesMapper.updateRpmDevices(rpmDevices);
+    @Transactional
+    public List<Map<String, Object>> updateRpmDevicesStatusBatch(String ids, Long deviceStatus)
+    {
+        if (deviceStatus == null)
+        {
+            throw new ServiceException("设备状态不能为空");
+        }
+        Set<Long> deviceIds = new LinkedHashSet<Long>();
+        for (Long id : Convert.toLongArray(ids))
+        {
+            if (id != null)
+            {
+                deviceIds.add(id);
             }
-        }, 5 * 60 * 1000); // 5 minutes in milliseconds
+        }
+        checkBatchSize(deviceIds.size());
+        Set<Long> existIds = new HashSet<Long>();
+        if (!deviceIds.isEmpty())
+        {
+            for (RpmDevices rpmDevices : rpmDevicesMapper.selectRpmDevicesByIds(new ArrayList<Long>(deviceIds)))
+            {
+                existIds.add(rpmDevices.getId());
+            }
+        }
+        if (!existIds.isEmpty())
+        {
+            rpmDevicesMapper.updateRpmDevicesStatusBatch(new ArrayList<Long>(existIds), deviceStatus, DateUtils.getNowDate());
+        }
+        List<Map<String, Object>> results = new ArrayList<Map<String, Object>>(deviceIds.size());
+        for (Long id : deviceIds)
+        {
+            Map<String, Object> result = new LinkedHashMap<String, Object>();
+            result.put("id", id);
+            boolean success = existIds.contains(id);
+            result.put("success", success);
+            if (!success)
+            {
+                result.put("msg", "设备不存在");
+            }
+            results.add(result);
+        }
+        refreshRegistryAfterCommit(new ArrayList<Long>(existIds));
+        return results;
+    }
 
-        rpmDevices.setUpdateTime(DateUtils.getNowDate());
-        return rpmDevicesMapper.updateRpmDevices(rpmDevices);
+    /**
+     * 将最近一次在线时间早于指定时间的在线设备置为离线
+     *
+     * @param lastSeen 离线判定时间
+     * @return 置为离线的设备数量
+     */
+    @Override
+    public int updateRpmDevicesOffline(Date lastSeen)
+    {
+        // 以注册表中的在线时间判定（数据库last_seen由心跳合并器延迟写入），再按主键写库
+        List<RpmDevices> offline = deviceStateRegistry.markOffline(lastSeen);
+        if (offline.isEmpty())
+        {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<Long>(offline.size());
+        for (RpmDevices device : offline)
+        {
+            ids.add(device.getId());
+        }
+        int rows = 0;
+        for (int from = 0; from < ids.size(); from += INSERT_BATCH_SIZE)
+        {
+            rows += rpmDevicesMapper.updateRpmDevicesOfflineByIds(ids.subList(from, Math.min(from + INSERT_BATCH_SIZE, ids.size())));
+        }
+        Date now = DateUtils.getNowDate();
+        for (RpmDevices device : offline)
+        {
+            RpmDevices current = deviceStateRegistry.peek(device.getDeviceToken());
+            if (current != null && Long.valueOf(1L).equals(current.getStatus()))
+            {
+                // 判定后写库前设备又发来心跳，其上线写入可能已被覆盖，重新写为在线
+                RpmDevices online = new RpmDevices();
+                online.setId(current.getId());
+                online.setStatus(1L);
+                rpmDevicesMapper.updateRpmDevices(online);
+                continue;
+            }
+            deviceStateRecorder.onOffline(device, now);
+        }
+        return rows;
+    }
+
+    /**
+     * 紧急解锁设备，到期后由重新锁定调度恢复锁定状态
+     *
+     * @param rpmDevices 存储用户的设备信息
+     * @return 结果
+     */
+    @Override
+    public int exigencyUnlockDevices(RpmDevices rpmDevices) {
+        int rows = updateRpmDevices(rpmDevices);
+        if (rows > 0)
+        {
+            // 重复解锁时替换原有计划
+            deviceRelockScheduler.schedule(rpmDevices.getId());
+        }
+        return rows;
     }
 
     /**
@@ -102,7 +391,14 @@ public class RpmDevicesServiceImpl implements IRpmDevicesService
     @Override
     public int deleteRpmDevicesByIds(String ids)
     {
-        return rpmDevicesMapper.deleteRpmDevicesByIds(Convert.toStrArray(ids));
+        Long[] deviceIds = Convert.toLongArray(ids);
+        int rows = rpmDevicesMapper.deleteRpmDevicesByIds(Convert.toStrArray(ids));
+        for (Long deviceId : deviceIds)
+        {
+            deviceRelockScheduler.cancel(deviceId);
+            removeRegistry(deviceId);
+        }
+        return rows;
     }
 
     /**
@@ -114,20 +410,245 @@ public class RpmDevicesServiceImpl implements IRpmDevicesService
     @Override
     public int deleteRpmDevicesById(Long id)
     {
-        return rpmDevicesMapper.deleteRpmDevicesById(id);
+        // 先删除数据库记录再移出注册表，避免期间的轮询从数据库重新加载已删除的设备
+        int rows = rpmDevicesMapper.deleteRpmDevicesById(id);
+        deviceRelockScheduler.cancel(id);
+        removeRegistry(id);
+        return rows;
     }
 
     /**
-     * 根据uuid查询存储用户的设备信息
+     * 根据uuid查询存储用户的设备信息，优先命中内存注册表
      * @param uuid
      * @return
      */
     @Override
     public RpmDevices selectRpmDevicesByUuid(String uuid) {
-        // 获取当前时间 并更新在线时间
-        RpmDevices rpmDevices = rpmDevicesMapper.selectRpmDevicesByUuid(uuid);
-        rpmDevices.setLastSeen(DateUtils.getNowDate());
-        rpmDevicesMapper.updateRpmDevices(rpmDevices);
+        if (deviceStateRegistry.get(uuid) == null)
+        {
+            RpmDevices loaded = rpmDevicesMapper.selectRpmDevicesByUuid(uuid);
+            if (loaded == null)
+            {
+                return null;
+            }
+            deviceStateRegistry.put(loaded);
+        }
+        // 获取当前时间 并更新在线时间（注册表以副本替换，由心跳合并器周期性批量写入）
+        Date now = DateUtils.getNowDate();
+        RpmDevices previous = deviceStateRegistry.touch(uuid, now);
+        RpmDevices rpmDevices = deviceStateRegistry.snapshot(uuid);
+        if (previous == null || rpmDevices == null)
+        {
+            // 设备已被并发删除
+            return null;
+        }
+        deviceHeartbeatCoalescer.touch(rpmDevices.getId(), now);
+        if (!Long.valueOf(1L).equals(previous.getStatus()))
+        {
+            // 离线设备重新上线，只在状态变化时写库
+            RpmDevices online = new RpmDevices();
+            online.setId(rpmDevices.getId());
+            online.setStatus(1L);
+            rpmDevicesMapper.updateRpmDevices(online);
+            deviceStateRecorder.onHeartbeat(rpmDevices, now);
+        }
         return rpmDevices;
     }
+
+    /**
+     * 获取设备注册表统计信息
+     *
+     * @return 统计信息
+     */
+    @Override
+    public Map<String, Object> selectRegistryStatistics()
+    {
+        return deviceStateRegistry.getStatistics();
+    }
+
+    /**
+     * 获取设备心跳合并写入统计信息
+     *
+     * @return 统计信息
+     */
+    @Override
+    public Map<String, Object> selectHeartbeatStatistics()
+    {
+        return deviceHeartbeatCoalescer.getStatistics();
+    }
+
+    /**
+     * 获取设备状态推送统计信息
+     *
+     * @return 统计信息
+     */
+    @Override
+    public Map<String, Object> selectPushStatistics()
+    {
+        return devicePushGateway.getStatistics();
+    }
+
+    /**
+     * 查询设备状态汇总列表
+     *
+     * @param rollup 查询条件
+     * @return 状态汇总集合
+     */
+    @Override
+    public List<RpmDeviceStateRollup> selectStateRollupList(RpmDeviceStateRollup rollup)
+    {
+        if (StringUtils.isEmpty(rollup.getBucketType()))
+        {
+            rollup.setBucketType(RpmDeviceStateRollup.BUCKET_HOUR);
+        }
+        return rpmDeviceStateMapper.selectStateRollupList(rollup);
+    }
+
+    /**
+     * 按设备合计时间范围内的在线时长、锁定时长和锁定次数
+     *
+     * @param rollup 查询条件
+     * @return 每台设备的合计
+     */
+    @Override
+    public List<RpmDeviceStateRollup> selectStateRollupSummary(RpmDeviceStateRollup rollup)
+    {
+        if (StringUtils.isEmpty(rollup.getBucketType()))
+        {
+            rollup.setBucketType(RpmDeviceStateRollup.BUCKET_DAY);
+        }
+        return rpmDeviceStateMapper.selectStateRollupSummary(rollup);
+    }
+
+    /**
+     * 以数据库最新行刷新注册表，递增版本号并通知等待中的客户端
+     *
+     * @param id 设备ID
+     */
+    private void refreshRegistry(Long id)
+    {
+        if (id == null)
+        {
+            return;
+        }
+        RpmDevices latest = rpmDevicesMapper.selectRpmDevicesById(id);
+        if (latest != null)
+        {
+            putRegistry(latest);
+        }
+        else
+        {
+            removeRegistry(id);
+        }
+    }
+
+    /**
+     * 以数据库最新行批量刷新注册表
+     *
+     * @param ids 设备ID集合
+     */
+    private void refreshRegistry(List<Long> ids)
+    {
+        for (int from = 0; from < ids.size(); from += INSERT_BATCH_SIZE)
+        {
+            for (RpmDevices latest : rpmDevicesMapper.selectRpmDevicesByIds(ids.subList(from, Math.min(from + INSERT_BATCH_SIZE, ids.size()))))
+            {
+                putRegistry(latest);
+            }
+        }
+    }
+
+    /**
+     * 事务提交后以数据库最新行批量刷新注册表并通知设备，事务回滚时不刷新
+     *
+     * @param ids 设备ID集合
+     */
+    private void refreshRegistryAfterCommit(List<Long> ids)
+    {
+        if (!ids.isEmpty())
+        {
+            TransactionUtils.afterCommit(() -> refreshRegistry(ids));
+        }
+    }
+
+    /**
+     * 写入注册表并通知设备状态变更（设备标识变更时同时通知原标识）
+     *
+     * @param latest 数据库最新行
+     */
+    private void putRegistry(RpmDevices latest)
+    {
+        RpmDevices previous = deviceStateRegistry.getById(latest.getId());
+        deviceStateRegistry.put(latest);
+        deviceStateRecorder.onChange(previous, latest);
+        if (previous != null && !StringUtils.equals(latest.getDeviceToken(), previous.getDeviceToken()))
+        {
+            publishState(previous.getDeviceToken());
+        }
+        publishState(latest.getDeviceToken());
+    }
+
+    /**
+     * 校验批量操作的数量
+     *
+     * @param size 数量
+     */
+    private void checkBatchSize(int size)
+    {
+        if (size == 0)
+        {
+            throw new ServiceException("批量操作的设备不能为空");
+        }
+        if (size > MAX_BATCH_SIZE)
+        {
+            throw new ServiceException("单次批量操作不能超过" + MAX_BATCH_SIZE + "台设备");
+        }
+    }
+
+    /**
+     * 构建单台设备的批量处理结果
+     *
+     * @param index 在请求中的序号
+     * @param rpmDevices 设备信息
+     * @return 处理结果
+     */
+    private Map<String, Object> batchResult(int index, RpmDevices rpmDevices)
+    {
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("index", index);
+        if (rpmDevices != null)
+        {
+            result.put("id", rpmDevices.getId());
+            result.put("deviceToken", rpmDevices.getDeviceToken());
+        }
+        result.put("success", false);
+        return result;
+    }
+
+    /**
+     * 从注册表移除设备并通知等待中的客户端
+     *
+     * @param id 设备ID
+     */
+    private void removeRegistry(Long id)
+    {
+        RpmDevices previous = deviceStateRegistry.getById(id);
+        deviceStateRegistry.remove(id);
+        deviceStateRecorder.remove(id);
+        if (previous != null)
+        {
+            publishState(previous.getDeviceToken());
+        }
+    }
+
+    /**
+     * 通知设备状态变更：唤醒长轮询请求并推送到已连接的客户端
+     *
+     * @param token 设备唯一标识符
+     */
+    private void publishState(String token)
+    {
+        deviceStatusWatcher.publish(token);
+        devicePushGateway.publish(token);
+    }
 }
@@ -1,19 +1,28 @@
 package com.ruoyi.project.system.lockevents.controller;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.*;
 import com.ruoyi.framework.aspectj.lang.annotation.Log;
 import com.ruoyi.framework.aspectj.lang.enums.BusinessType;
 import com.ruoyi.project.system.lockevents.domain.RpmLockevents;
+import com.ruoyi.project.system.lockevents.manager.LockEventIngestQueue;
 import com.ruoyi.project.system.lockevents.service.IRpmLockeventsService;
 import com.ruoyi.framework.web.controller.BaseController;
 import com.ruoyi.framework.web.domain.AjaxResult;
+import com.ruoyi.common.utils.PageUtils;
+import com.ruoyi.common.utils.StringUtils;
 import com.ruoyi.common.utils.poi.ExcelUtil;
+import com.ruoyi.framework.web.page.PageDomain;
 import com.ruoyi.framework.web.page.TableDataInfo;
+import com.ruoyi.framework.web.page.TableSupport;
 
 /**
  * 锁定信息Controller
@@ -25,11 +34,17 @@ import com.ruoyi.framework.web.page.TableDataInfo;
 @RequestMapping("/system/lockevents")
 public class RpmLockeventsController extends BaseController
 {
+    /** 游标分页单页最大条数 */
+    private static final int MAX_PAGE_SIZE = 500;
+
     private String prefix = "system/lockevents";
 
     @Autowired
     private IRpmLockeventsService rpmLockeventsService;
 
+    @Autowired
+    private LockEventIngestQueue lockEventIngestQueue;
+
     @RequiresPermissions("system:lockevents:view")
     @GetMapping()
     public String lockevents()
@@ -43,13 +58,71 @@ public class RpmLockeventsController extends BaseController
     @RequiresPermissions("system:lockevents:list")
     @PostMapping("/list")
     @ResponseBody
-    public TableDataInfo list(RpmLockevents rpmLockevents)
+    public TableDataInfo list(RpmLockevents rpmLockevents, @RequestParam(defaultValue = "false") boolean approxCount)
     {
-        startPage();
+        // 按照时间倒序（排序在SQL中完成）
+        if (!approxCount)
+        {
+            startPage();
+            List<RpmLockevents> list = rpmLockeventsService.selectRpmLockeventsList(rpmLockevents);
+            return getDataTable(list);
+        }
+        // 估算总数模式：跳过count查询，多查一条判断是否还有下一页，到达末页时按实际条数修正
+        PageDomain pageDomain = TableSupport.buildPageRequest();
+        int pageSize = pageDomain.getPageSize();
+        int offset = (pageDomain.getPageNum() - 1) * pageSize;
+        PageUtils.offsetPage(offset, pageSize + 1, false);
         List<RpmLockevents> list = rpmLockeventsService.selectRpmLockeventsList(rpmLockevents);
-        // 按照时间倒序
-        list.sort((o1, o2) -> o2.getLockedAt().compareTo(o1.getLockedAt()));
-        return getDataTable(list);
+        boolean hasMore = list.size() > pageSize;
+        if (hasMore)
+        {
+            list = new ArrayList<RpmLockevents>(list.subList(0, pageSize));
+        }
+        long seen = (long) offset + list.size();
+        TableDataInfo rspData = getDataTable(list);
+        if (!hasMore)
+        {
+            rspData.setTotal(seen);
+        }
+        else if (isFiltered(rpmLockevents))
+        {
+            // 表统计信息是全表行数，带筛选条件时不适用，只表示还有下一页
+            rspData.setTotal(seen + 1);
+        }
+        else
+        {
+            rspData.setTotal(Math.max(rpmLockeventsService.selectRpmLockeventsEstimateCount(), seen + 1));
+        }
+        return rspData;
+    }
+
+    /**
+     * 是否带有筛选条件
+     */
+    private boolean isFiltered(RpmLockevents rpmLockevents)
+    {
+        return StringUtils.isNotEmpty(rpmLockevents.getDeviceId()) || StringUtils.isNotEmpty(rpmLockevents.getLockCode())
+                || rpmLockevents.getLockedAt() != null;
+    }
+
+    /**
+     * 按游标查询锁定信息列表，适用于深分页
+     */
+    @RequiresPermissions("system:lockevents:list")
+    @PostMapping("/list/cursor")
+    @ResponseBody
+    public AjaxResult listByCursor(RpmLockevents rpmLockevents, String cursor, @RequestParam(defaultValue = "10") int pageSize)
+    {
+        int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        // 多查一条判断是否还有下一页
+        List<RpmLockevents> list = rpmLockeventsService.selectRpmLockeventsByCursor(rpmLockevents, cursor, limit + 1);
+        boolean hasMore = list.size() > limit;
+        if (hasMore)
+        {
+            list = list.subList(0, limit);
+        }
+        String nextCursor = hasMore ? rpmLockeventsService.buildCursor(list.get(list.size() - 1)) : null;
+        return AjaxResult.success(list).put("nextCursor", nextCursor).put("hasMore", nextCursor != null);
     }
 
     /**
@@ -89,14 +162,30 @@ public class RpmLockeventsController extends BaseController
     }
 
     /**
-     * 新增保存锁定信息
+     * 客户端上传锁定信息，入队后立即返回确认号，由写入队列批量写入
      */
-    @Log(title = "客户端上传锁定信息", businessType = BusinessType.INSERT)
     @PostMapping("/client-add")
     @ResponseBody
-    public AjaxResult clientAddSave(@RequestBody RpmLockevents rpmLockevents)
+    public ResponseEntity<AjaxResult> clientAddSave(@RequestBody RpmLockevents rpmLockevents)
     {
-        return toAjax(rpmLockeventsService.insertRpmLockevents(rpmLockevents));
+        Long ackId = lockEventIngestQueue.offer(rpmLockevents);
+        if (ackId == null)
+        {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(AjaxResult.error("服务繁忙，请稍后重试"));
+        }
+        return ResponseEntity.ok(AjaxResult.success().put("ackId", ackId));
+    }
+
+    /**
+     * 获取锁定信息写入队列统计信息
+     */
+    @RequiresPermissions("system:lockevents:view")
+    @GetMapping("/ingest/stats")
+    @ResponseBody
+    public AjaxResult ingestStats()
+    {
+        return AjaxResult.success(lockEventIngestQueue.getStatistics());
     }
 
     /**
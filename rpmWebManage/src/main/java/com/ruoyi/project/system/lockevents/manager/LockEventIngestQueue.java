@@ -0,0 +1,430 @@
+package com.ruoyi.project.system.lockevents.manager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import com.alibaba.fastjson.JSON;
+import com.ruoyi.common.utils.DateUtils;
+import com.ruoyi.framework.manager.AsyncManager;
+import com.ruoyi.project.system.lockevents.domain.RpmLockevents;
+import com.ruoyi.project.system.lockevents.service.IRpmLockeventsService;
+
+/**
+ * 锁定信息写入队列（客户端上报先入有界队列，由单个写入线程多行批量写入）
+ *
+ * 确认号按入队顺序分配，写入线程按顺序逐批写入，写入失败时退避重试同一批次，不跳过；
+ * 停止时仍无法写入的批次落盘，下次启动时重新入队。数据本身有误无法写入的行单独落盘，不再重试。
+ *
+ * @author Lan
+ */
+@Component
+public class LockEventIngestQueue
+{
+    private static final Logger log = LoggerFactory.getLogger(LockEventIngestQueue.class);
+
+    /** 写入失败后的首次重试间隔（毫秒） */
+    private static final long INITIAL_BACKOFF = 500;
+
+    /** 写入失败后的最长重试间隔（毫秒） */
+    private static final long MAX_BACKOFF = 30000;
+
+    /** 停止时未能写入、下次启动时重新入队的文件 */
+    private static final String SPILL_FILE = "lockevent-spill.log";
+
+    /** 数据有误无法写入、需人工处理的文件 */
+    private static final String DEAD_FILE = "lockevent-dead.log";
+
+    /** 队列容量，队列满时拒绝上报 */
+    @Value("${device.lockevent.capacity:10000}")
+    private int capacity;
+
+    /** 单条多行插入语句包含的最大行数 */
+    @Value("${device.lockevent.batchSize:500}")
+    private int batchSize;
+
+    /** 队列为空时写入线程的等待时间（毫秒） */
+    @Value("${device.lockevent.flushInterval:200}")
+    private long flushInterval;
+
+    /** 落盘文件目录 */
+    @Value("${device.lockevent.spillDir:${ruoyi.profile}/lockevent}")
+    private String spillDir;
+
+    @Autowired
+    private IRpmLockeventsService rpmLockeventsService;
+
+    private BlockingQueue<Entry> queue;
+
+    /** 确认号，以启动时间为起点单调递增，重启后不与之前的确认号重复 */
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    /** 已持久化（写入数据库或落盘）的确认号水位，不大于它的确认号均已持久化 */
+    private final AtomicLong flushedSequence = new AtomicLong(sequence.get());
+
+    /** 分配确认号与入队在同一把锁内完成，保证队列中的确认号有序 */
+    private final Object offerLock = new Object();
+
+    private final LongAdder received = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder spilled = new LongAdder();
+
+    private final LongAdder dead = new LongAdder();
+
+    private final LongAdder flushedRows = new LongAdder();
+
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private volatile int lastBatchSize;
+
+    /** 最近写入批次中最早入队事件的等待时间（毫秒） */
+    private volatile long lastLagMillis;
+
+    private volatile long maxLagMillis;
+
+    /** 最近一个统计周期的接收速率（条/秒） */
+    private volatile double receiveRate;
+
+    private volatile boolean running = true;
+
+    private Thread writer;
+
+    @PostConstruct
+    public void init()
+    {
+        start();
+        AsyncManager.me().addDrainTask(this::drain);
+    }
+
+    /**
+     * 创建队列，重新入队上次停止时落盘的锁定信息，并启动写入线程
+     */
+    void start()
+    {
+        queue = new ArrayBlockingQueue<Entry>(capacity);
+        replaySpilled();
+        writer = new BasicThreadFactory.Builder().namingPattern("lockevent-writer-%d").daemon(true).build().newThread(this::run);
+        writer.start();
+    }
+
+    /**
+     * 锁定信息入队
+     *
+     * @param rpmLockevents 锁定信息
+     * @return 确认号，队列已满返回null
+     */
+    public Long offer(RpmLockevents rpmLockevents)
+    {
+        rpmLockevents.setCreateTime(DateUtils.getNowDate());
+        return enqueue(rpmLockevents);
+    }
+
+    private Long enqueue(RpmLockevents rpmLockevents)
+    {
+        if (!running)
+        {
+            rejected.increment();
+            return null;
+        }
+        long ackId;
+        synchronized (offerLock)
+        {
+            ackId = sequence.get() + 1;
+            if (!queue.offer(new Entry(ackId, rpmLockevents, System.currentTimeMillis())))
+            {
+                rejected.increment();
+                return null;
+            }
+            sequence.set(ackId);
+        }
+        received.increment();
+        return ackId;
+    }
+
+    private void run()
+    {
+        List<Entry> batch = new ArrayList<Entry>(batchSize);
+        long windowStart = System.currentTimeMillis();
+        long windowReceived = 0;
+        while (running)
+        {
+            try
+            {
+                Entry first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first != null)
+                {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long now = System.currentTimeMillis();
+            if (now - windowStart >= 1000)
+            {
+                long total = received.sum();
+                receiveRate = (total - windowReceived) * 1000.0 / (now - windowStart);
+                windowReceived = total;
+                windowStart = now;
+            }
+        }
+    }
+
+    /**
+     * 停止写入线程，并将队列中剩余的锁定信息全部写入，无法写入的落盘
+     */
+    public void drain()
+    {
+        running = false;
+        if (writer != null)
+        {
+            // 不中断写入线程，避免正在执行的批量插入被打断；写入线程在停止后不再重试
+            try
+            {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Entry> batch = new ArrayList<Entry>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0)
+        {
+            write(batch);
+            batch.clear();
+        }
+        log.info("锁定信息写入队列已排空，累计写入{}条，落盘{}条", flushedRows.sum(), spilled.sum());
+    }
+
+    /**
+     * 写入一个批次：运行期间失败时退避重试同一批次，停止后仍失败则落盘
+     */
+    private void write(List<Entry> batch)
+    {
+        long backoff = INITIAL_BACKOFF;
+        while (true)
+        {
+            try
+            {
+                insert(batch);
+                flushedRows.add(batch.size());
+                break;
+            }
+            catch (DataIntegrityViolationException e)
+            {
+                // 数据本身有误，重试无效：逐条写入，写不进的行单独落盘
+                log.error("锁定信息批量写入违反约束，确认号{}至{}改为逐条写入", batch.get(0).ackId, last(batch).ackId, e);
+                writeEach(batch);
+                break;
+            }
+            catch (Exception e)
+            {
+                if (!running)
+                {
+                    spill(SPILL_FILE, batch, spilled);
+                    log.error("锁定信息批量写入失败，确认号{}至{}已落盘，下次启动时重新写入", batch.get(0).ackId, last(batch).ackId, e);
+                    break;
+                }
+                retries.increment();
+                log.error("锁定信息批量写入失败，{}毫秒后重试确认号{}至{}", backoff, batch.get(0).ackId, last(batch).ackId, e);
+                if (!sleep(backoff))
+                {
+                    spill(SPILL_FILE, batch, spilled);
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
+            }
+        }
+        // 批次按确认号顺序写入，处理完成后水位前移到本批次最后一个确认号
+        flushedSequence.accumulateAndGet(last(batch).ackId, Math::max);
+        long lag = System.currentTimeMillis() - batch.get(0).enqueuedAt;
+        lastLagMillis = lag;
+        maxLagMillis = Math.max(maxLagMillis, lag);
+        lastBatchSize = batch.size();
+        batchCount.incrementAndGet();
+    }
+
+    private void writeEach(List<Entry> batch)
+    {
+        for (Entry entry : batch)
+        {
+            try
+            {
+                insert(Collections.singletonList(entry));
+                flushedRows.increment();
+            }
+            catch (Exception e)
+            {
+                spill(DEAD_FILE, Collections.singletonList(entry), dead);
+                log.error("锁定信息写入失败，确认号{}已落盘待人工处理：{}", entry.ackId, e.getMessage());
+            }
+        }
+    }
+
+    private void insert(List<Entry> batch)
+    {
+        List<RpmLockevents> list = new ArrayList<RpmLockevents>(batch.size());
+        for (Entry entry : batch)
+        {
+            list.add(entry.event);
+        }
+        rpmLockeventsService.insertRpmLockeventsBatch(list);
+    }
+
+    /**
+     * 追加写入落盘文件，每行一条锁定信息
+     */
+    private synchronized void spill(String fileName, List<Entry> batch, LongAdder counter)
+    {
+        List<String> lines = new ArrayList<String>(batch.size());
+        for (Entry entry : batch)
+        {
+            lines.add(JSON.toJSONString(entry.event));
+        }
+        try
+        {
+            Path file = Paths.get(spillDir, fileName);
+            Files.createDirectories(file.getParent());
+            Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            counter.add(batch.size());
+        }
+        catch (IOException e)
+        {
+            log.error("锁定信息落盘失败，丢失确认号{}至{}：{}", batch.get(0).ackId, last(batch).ackId, lines, e);
+        }
+    }
+
+    /**
+     * 重新入队上次停止时落盘的锁定信息，队列放不下的留在文件中
+     */
+    private void replaySpilled()
+    {
+        Path file = Paths.get(spillDir, SPILL_FILE);
+        if (!Files.exists(file))
+        {
+            return;
+        }
+        try
+        {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            List<String> left = new ArrayList<String>();
+            for (String line : lines)
+            {
+                if (!line.trim().isEmpty() && (!left.isEmpty() || enqueue(JSON.parseObject(line, RpmLockevents.class)) == null))
+                {
+                    left.add(line);
+                }
+            }
+            if (left.isEmpty())
+            {
+                Files.delete(file);
+            }
+            else
+            {
+                Files.write(file, left, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            log.info("重新入队落盘的锁定信息{}条，剩余{}条", lines.size() - left.size(), left.size());
+        }
+        catch (Exception e)
+        {
+            log.error("读取落盘的锁定信息失败：{}", file, e);
+        }
+    }
+
+    private static boolean sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+            return true;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Entry last(List<Entry> batch)
+    {
+        return batch.get(batch.size() - 1);
+    }
+
+    /**
+     * 获取写入队列统计信息
+     *
+     * @return 队列深度、接收速率、批次大小和写入延迟
+     */
+    public Map<String, Object> getStatistics()
+    {
+        long batches = batchCount.get();
+        long rows = flushedRows.sum();
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("queueDepth", queue.size());
+        stats.put("capacity", capacity);
+        stats.put("received", received.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("retries", retries.sum());
+        stats.put("spilled", spilled.sum());
+        stats.put("dead", dead.sum());
+        stats.put("flushedRows", rows);
+        stats.put("ackedSequence", sequence.get());
+        stats.put("flushedSequence", flushedSequence.get());
+        stats.put("receiveRate", Math.round(receiveRate * 100) / 100.0);
+        stats.put("batchCount", batches);
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("avgBatchSize", batches == 0 ? 0 : Math.round(rows * 100.0 / batches) / 100.0);
+        stats.put("lastLagMillis", lastLagMillis);
+        stats.put("maxLagMillis", maxLagMillis);
+        return stats;
+    }
+
+    /**
+     * 队列中的锁定信息
+     */
+    private static class Entry
+    {
+        private final long ackId;
+
+        private final RpmLockevents event;
+
+        private final long enqueuedAt;
+
+        private Entry(long ackId, RpmLockevents event, long enqueuedAt)
+        {
+            this.ackId = ackId;
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -27,6 +27,21 @@ public interface RpmLockeventsMapper
      */
     public List<RpmLockevents> selectRpmLockeventsList(RpmLockevents rpmLockevents);
 
+    /**
+     * 按游标查询锁定信息列表（按锁定时间、主键倒序，从游标之后开始）
+     * 
+     * @param rpmLockevents 锁定信息，params中cursorLockedAt、cursorId为游标，limit为条数
+     * @return 锁定信息集合
+     */
+    public List<RpmLockevents> selectRpmLockeventsByCursor(RpmLockevents rpmLockevents);
+
+    /**
+     * 根据表统计信息估算锁定信息总数（不扫描数据）
+     * 
+     * @return 估算的总数
+     */
+    public Long selectRpmLockeventsEstimateCount();
+
     /**
      * 新增锁定信息
      * 
@@ -35,6 +50,14 @@ public interface RpmLockeventsMapper
      */
     public int insertRpmLockevents(RpmLockevents rpmLockevents);
 
+    /**
+     * 批量新增锁定信息
+     * 
+     * @param list 锁定信息集合
+     * @return 结果
+     */
+    public int insertRpmLockeventsBatch(List<RpmLockevents> list);
+
     /**
      * 修改锁定信息
      * 
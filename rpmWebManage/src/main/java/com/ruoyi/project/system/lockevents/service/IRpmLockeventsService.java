@@ -27,6 +27,31 @@ public interface IRpmLockeventsService
      */
     public List<RpmLockevents> selectRpmLockeventsList(RpmLockevents rpmLockevents);
 
+    /**
+     * 按游标查询锁定信息列表
+     * 
+     * @param rpmLockevents 锁定信息
+     * @param cursor 上一页返回的游标，为空时从第一页开始
+     * @param limit 查询条数
+     * @return 锁定信息集合
+     */
+    public List<RpmLockevents> selectRpmLockeventsByCursor(RpmLockevents rpmLockevents, String cursor, int limit);
+
+    /**
+     * 生成从指定锁定信息之后继续查询的游标
+     * 
+     * @param rpmLockevents 当前页最后一条锁定信息
+     * @return 游标
+     */
+    public String buildCursor(RpmLockevents rpmLockevents);
+
+    /**
+     * 估算锁定信息总数
+     * 
+     * @return 估算的总数
+     */
+    public long selectRpmLockeventsEstimateCount();
+
     /**
      * 新增锁定信息
      * 
@@ -35,6 +60,14 @@ public interface IRpmLockeventsService
      */
     public int insertRpmLockevents(RpmLockevents rpmLockevents);
 
+    /**
+     * 批量新增锁定信息（单条多行插入）
+     * 
+     * @param list 锁定信息集合
+     * @return 结果
+     */
+    public int insertRpmLockeventsBatch(List<RpmLockevents> list);
+
     /**
      * 修改锁定信息
      * 
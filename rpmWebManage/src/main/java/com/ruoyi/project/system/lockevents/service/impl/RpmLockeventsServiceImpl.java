@@ -1,9 +1,13 @@
 package com.ruoyi.project.system.lockevents.service.impl;
 
+import java.util.Date;
 import java.util.List;
+import com.ruoyi.common.exception.ServiceException;
 import com.ruoyi.common.utils.DateUtils;
+import com.ruoyi.common.utils.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import com.ruoyi.project.system.devices.manager.DeviceStateRecorder;
 import com.ruoyi.project.system.lockevents.mapper.RpmLockeventsMapper;
 import com.ruoyi.project.system.lockevents.domain.RpmLockevents;
 import com.ruoyi.project.system.lockevents.service.IRpmLockeventsService;
@@ -18,9 +22,15 @@ import com.ruoyi.common.utils.text.Convert;
 @Service
 public class RpmLockeventsServiceImpl implements IRpmLockeventsService 
 {
+    /** 游标中锁定时间与主键的分隔符 */
+    private static final String CURSOR_SEPARATOR = "_";
+
     @Autowired
     private RpmLockeventsMapper rpmLockeventsMapper;
 
+    @Autowired
+    private DeviceStateRecorder deviceStateRecorder;
+
     /**
      * 查询锁定信息
      * 
@@ -45,6 +55,67 @@ public class RpmLockeventsServiceImpl implements IRpmLockeventsService
         return rpmLockeventsMapper.selectRpmLockeventsList(rpmLockevents);
     }
 
+    /**
+     * 按游标查询锁定信息列表，游标为上一页最后一条的锁定时间和主键
+     * 
+     * @param rpmLockevents 锁定信息
+     * @param cursor 上一页返回的游标，为空时从第一页开始
+     * @param limit 查询条数
+     * @return 锁定信息集合
+     */
+    @Override
+    public List<RpmLockevents> selectRpmLockeventsByCursor(RpmLockevents rpmLockevents, String cursor, int limit)
+    {
+        if (StringUtils.isNotEmpty(cursor))
+        {
+            String[] parts = cursor.split(CURSOR_SEPARATOR);
+            try
+            {
+                if (parts.length != 2)
+                {
+                    throw new NumberFormatException(cursor);
+                }
+                rpmLockevents.getParams().put("cursorLockedAt", new Date(Long.parseLong(parts[0])));
+                rpmLockevents.getParams().put("cursorId", Long.parseLong(parts[1]));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new ServiceException("分页游标无效");
+            }
+        }
+        rpmLockevents.getParams().put("limit", limit);
+        return rpmLockeventsMapper.selectRpmLockeventsByCursor(rpmLockevents);
+    }
+
+    /**
+     * 生成从指定锁定信息之后继续查询的游标
+     * 
+     * @param rpmLockevents 当前页最后一条锁定信息
+     * @return 游标
+     */
+    @Override
+    public String buildCursor(RpmLockevents rpmLockevents)
+    {
+        // 锁定时间为空的历史数据排在末尾，无法继续定位
+        if (rpmLockevents.getLockedAt() == null)
+        {
+            return null;
+        }
+        return rpmLockevents.getLockedAt().getTime() + CURSOR_SEPARATOR + rpmLockevents.getId();
+    }
+
+    /**
+     * 根据表统计信息估算锁定信息总数
+     * 
+     * @return 估算的总数
+     */
+    @Override
+    public long selectRpmLockeventsEstimateCount()
+    {
+        Long count = rpmLockeventsMapper.selectRpmLockeventsEstimateCount();
+        return count == null ? 0L : count;
+    }
+
     /**
      * 新增锁定信息
      * 
@@ -55,7 +126,51 @@ public class RpmLockeventsServiceImpl implements IRpmLockeventsService
     public int insertRpmLockevents(RpmLockevents rpmLockevents)
     {
         rpmLockevents.setCreateTime(DateUtils.getNowDate());
-        return rpmLockeventsMapper.insertRpmLockevents(rpmLockevents);
+        if (rpmLockevents.getLockedAt() == null)
+        {
+            // 锁定时间参与排序和游标分页，未上报时取接收时间
+            rpmLockevents.setLockedAt(rpmLockevents.getCreateTime());
+        }
+        int rows = rpmLockeventsMapper.insertRpmLockevents(rpmLockevents);
+        Long deviceId = deviceStateRecorder.resolveDeviceId(rpmLockevents.getDeviceId());
+        if (rows > 0 && deviceId != null)
+        {
+            deviceStateRecorder.onLockEvent(deviceId, rpmLockevents.getLockedAt());
+        }
+        return rows;
+    }
+
+    /**
+     * 批量新增锁定信息（单条多行插入）
+     * 
+     * @param list 锁定信息集合
+     * @return 结果
+     */
+    @Override
+    public int insertRpmLockeventsBatch(List<RpmLockevents> list)
+    {
+        Date now = DateUtils.getNowDate();
+        for (RpmLockevents rpmLockevents : list)
+        {
+            if (rpmLockevents.getCreateTime() == null)
+            {
+                rpmLockevents.setCreateTime(now);
+            }
+            if (rpmLockevents.getLockedAt() == null)
+            {
+                rpmLockevents.setLockedAt(rpmLockevents.getCreateTime());
+            }
+        }
+        int rows = rpmLockeventsMapper.insertRpmLockeventsBatch(list);
+        for (RpmLockevents rpmLockevents : list)
+        {
+            Long deviceId = deviceStateRecorder.resolveDeviceId(rpmLockevents.getDeviceId());
+            if (deviceId != null)
+            {
+                deviceStateRecorder.onLockEvent(deviceId, rpmLockevents.getLockedAt());
+            }
+        }
+        return rows;
     }
 
     /**
@@ -41,6 +41,14 @@ public interface MenuMapper
      */
     public List<Menu> selectMenusByUserId(Long userId);
 
+    /**
+     * 根据角色ID集合查询菜单
+     * 
+     * @param roleIds 角色ID集合
+     * @return 菜单列表
+     */
+    public List<Menu> selectMenusByRoleIds(List<Long> roleIds);
+
     /**
      * 根据用户ID查询权限
      * 
@@ -49,6 +57,14 @@ public interface MenuMapper
      */
     public List<String> selectPermsByUserId(Long userId);
 
+    /**
+     * 根据角色ID集合查询权限
+     * 
+     * @param roleIds 角色ID集合
+     * @return 权限列表
+     */
+    public List<String> selectPermsByRoleIds(List<Long> roleIds);
+
     /**
      * 根据角色ID查询权限
      * 
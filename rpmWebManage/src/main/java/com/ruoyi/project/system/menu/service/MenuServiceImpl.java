@@ -3,17 +3,17 @@ package com.ruoyi.project.system.menu.service;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.ruoyi.common.constant.UserConstants;
 import com.ruoyi.common.utils.StringUtils;
-import com.ruoyi.common.utils.TreeUtils;
 import com.ruoyi.common.utils.security.ShiroUtils;
+import com.ruoyi.framework.shiro.service.RoleAuthCache;
 import com.ruoyi.framework.web.domain.Ztree;
 import com.ruoyi.project.system.menu.domain.Menu;
 import com.ruoyi.project.system.menu.mapper.MenuMapper;
@@ -37,6 +37,9 @@ public class MenuServiceImpl implements IMenuService
     @Autowired
     private RoleMenuMapper roleMenuMapper;
 
+    @Autowired
+    private RoleAuthCache roleAuthCache;
+
     /**
      * 根据用户查询菜单
      * 
@@ -46,17 +49,8 @@ public class MenuServiceImpl implements IMenuService
     @Override
     public List<Menu> selectMenusByUser(User user)
     {
-        List<Menu> menus = new LinkedList<Menu>();
-        // 管理员显示所有菜单信息
-        if (user.isAdmin())
-        {
-            menus = menuMapper.selectMenuNormalAll();
-        }
-        else
-        {
-            menus = menuMapper.selectMenusByUserId(user.getUserId());
-        }
-        return TreeUtils.getChildPerms(menus, 0);
+        // 管理员显示所有菜单信息，其他用户按角色组合缓存
+        return roleAuthCache.getMenus(user);
     }
 
     /**
@@ -222,8 +216,10 @@ public class MenuServiceImpl implements IMenuService
      */
     public List<Ztree> initZtree(List<Menu> menuList, List<String> roleMenuList, boolean permsFlag)
     {
-        List<Ztree> ztrees = new ArrayList<Ztree>();
+        List<Ztree> ztrees = new ArrayList<Ztree>(menuList.size());
         boolean isCheck = StringUtils.isNotNull(roleMenuList);
+        // 已选菜单转为哈希集合，避免每个节点遍历一次列表
+        Set<String> roleMenus = isCheck ? new HashSet<String>(roleMenuList) : Collections.emptySet();
         for (Menu menu : menuList)
         {
             Ztree ztree = new Ztree();
@@ -233,7 +229,7 @@ public class MenuServiceImpl implements IMenuService
             ztree.setTitle(menu.getMenuName());
             if (isCheck)
             {
-                ztree.setChecked(roleMenuList.contains(menu.getMenuId() + menu.getPerms()));
+                ztree.setChecked(roleMenus.contains(menu.getMenuId() + menu.getPerms()));
             }
             ztrees.add(ztree);
         }
@@ -260,7 +256,9 @@ public class MenuServiceImpl implements IMenuService
     @Override
     public int deleteMenuById(Long menuId)
     {
-        return menuMapper.deleteMenuById(menuId);
+        int rows = menuMapper.deleteMenuById(menuId);
+        roleAuthCache.evictAll();
+        return rows;
     }
 
     /**
@@ -309,7 +307,9 @@ public class MenuServiceImpl implements IMenuService
     public int insertMenu(Menu menu)
     {
         menu.setCreateBy(ShiroUtils.getLoginName());
-        return menuMapper.insertMenu(menu);
+        int rows = menuMapper.insertMenu(menu);
+        roleAuthCache.evictAll();
+        return rows;
     }
 
     /**
@@ -322,7 +322,9 @@ public class MenuServiceImpl implements IMenuService
     public int updateMenu(Menu menu)
     {
         menu.setUpdateBy(ShiroUtils.getLoginName());
-        return menuMapper.updateMenu(menu);
+        int rows = menuMapper.updateMenu(menu);
+        roleAuthCache.evictAll();
+        return rows;
     }
 
     /**
@@ -15,6 +15,7 @@ import com.ruoyi.common.utils.security.ShiroUtils;
 import com.ruoyi.common.utils.spring.SpringUtils;
 import com.ruoyi.common.utils.text.Convert;
 import com.ruoyi.framework.aspectj.lang.annotation.DataScope;
+import com.ruoyi.framework.shiro.service.RoleAuthCache;
 import com.ruoyi.project.system.role.domain.Role;
 import com.ruoyi.project.system.role.domain.RoleDept;
 import com.ruoyi.project.system.role.domain.RoleMenu;
@@ -45,6 +46,9 @@ public class RoleServiceImpl implements IRoleService
     @Autowired
     private RoleDeptMapper roleDeptMapper;
 
+    @Autowired
+    private RoleAuthCache roleAuthCache;
+
     /**
      * 根据条件分页查询角色数据
      * 
@@ -141,6 +145,7 @@ public class RoleServiceImpl implements IRoleService
         roleMenuMapper.deleteRoleMenuByRoleId(roleId);
         // 删除角色与部门关联
         roleDeptMapper.deleteRoleDeptByRoleId(roleId);
+        roleAuthCache.evictAll();
         return roleMapper.deleteRoleById(roleId) > 0 ? true : false;
     }
 
@@ -169,6 +174,7 @@ public class RoleServiceImpl implements IRoleService
         roleMenuMapper.deleteRoleMenu(roleIds);
         // 删除角色与部门关联
         roleDeptMapper.deleteRoleDept(roleIds);
+        roleAuthCache.evictAll();
         return roleMapper.deleteRoleByIds(roleIds);
     }
 
@@ -203,6 +209,7 @@ public class RoleServiceImpl implements IRoleService
         roleMapper.updateRole(role);
         // 删除角色与菜单关联
         roleMenuMapper.deleteRoleMenuByRoleId(role.getRoleId());
+        roleAuthCache.evictAll();
         return insertRoleMenu(role);
     }
 
@@ -221,6 +228,7 @@ public class RoleServiceImpl implements IRoleService
         roleMapper.updateRole(role);
         // 删除角色与部门关联
         roleDeptMapper.deleteRoleDeptByRoleId(role.getRoleId());
+        roleAuthCache.evictAll();
         // 新增角色和部门信息（数据权限）
         return insertRoleDept(role);
     }
@@ -367,7 +375,9 @@ public class RoleServiceImpl implements IRoleService
     @Override
     public int changeStatus(Role role)
     {
-        return roleMapper.updateRole(role);
+        int rows = roleMapper.updateRole(role);
+        roleAuthCache.evictAll();
+        return rows;
     }
 
     /**
@@ -379,7 +389,9 @@ public class RoleServiceImpl implements IRoleService
     @Override
     public int deleteAuthUser(UserRole userRole)
     {
-        return userRoleMapper.deleteUserRoleInfo(userRole);
+        int rows = userRoleMapper.deleteUserRoleInfo(userRole);
+        roleAuthCache.evictUsers(userRole.getUserId());
+        return rows;
     }
 
     /**
@@ -392,7 +404,10 @@ public class RoleServiceImpl implements IRoleService
     @Override
     public int deleteAuthUsers(Long roleId, String userIds)
     {
-        return userRoleMapper.deleteUserRoleInfos(roleId, Convert.toLongArray(userIds));
+        Long[] users = Convert.toLongArray(userIds);
+        int rows = userRoleMapper.deleteUserRoleInfos(roleId, users);
+        roleAuthCache.evictUsers(users);
+        return rows;
     }
 
     /**
@@ -415,6 +430,8 @@ public class RoleServiceImpl implements IRoleService
             ur.setRoleId(roleId);
             list.add(ur);
         }
-        return userRoleMapper.batchUserRole(list);
+        int rows = userRoleMapper.batchUserRole(list);
+        roleAuthCache.evictUsers(users);
+        return rows;
     }
 }
@@ -24,6 +24,7 @@ import com.ruoyi.common.utils.spring.SpringUtils;
 import com.ruoyi.common.utils.text.Convert;
 import com.ruoyi.framework.aspectj.lang.annotation.DataScope;
 import com.ruoyi.framework.shiro.service.PasswordService;
+import com.ruoyi.framework.shiro.service.RoleAuthCache;
 import com.ruoyi.project.system.config.service.IConfigService;
 import com.ruoyi.project.system.dept.service.IDeptService;
 import com.ruoyi.project.system.post.domain.Post;
@@ -68,6 +69,9 @@ public class UserServiceImpl implements IUserService
     @Autowired
     private PasswordService passwordService;
 
+    @Autowired
+    private RoleAuthCache roleAuthCache;
+
     @Autowired
     private IDeptService deptService;
 
@@ -188,6 +192,7 @@ public class UserServiceImpl implements IUserService
         userRoleMapper.deleteUserRoleByUserId(userId);
         // 删除用户与岗位表
         userPostMapper.deleteUserPostByUserId(userId);
+        roleAuthCache.evictUsers(userId);
         return userMapper.deleteUserById(userId);
     }
 
@@ -211,6 +216,7 @@ public class UserServiceImpl implements IUserService
         userRoleMapper.deleteUserRole(userIds);
         // 删除用户与岗位关联
         userPostMapper.deleteUserPost(userIds);
+        roleAuthCache.evictUsers(userIds);
         return userMapper.deleteUserByIds(userIds);
     }
 
@@ -268,6 +274,7 @@ public class UserServiceImpl implements IUserService
         userRoleMapper.deleteUserRoleByUserId(userId);
         // 新增用户与角色管理
         insertUserRole(user.getUserId(), user.getRoleIds());
+        roleAuthCache.evictUsers(userId);
         // 删除用户与岗位关联
         userPostMapper.deleteUserPostByUserId(userId);
         // 新增用户与岗位管理
@@ -299,6 +306,7 @@ public class UserServiceImpl implements IUserService
     {
         userRoleMapper.deleteUserRoleByUserId(userId);
         insertUserRole(userId, roleIds);
+        roleAuthCache.evictUsers(userId);
     }
 
     /**
@@ -0,0 +1,130 @@
+package com.ruoyi.common.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 离线IP地址库查询吞吐基准测试（按ip2region规模生成地址段，随机IP查询）
+ *
+ * 运行：mvn test-compile 后以测试类路径执行本类main方法
+ *
+ * @author Lan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IpRegionDatabaseBenchmark
+{
+    /** 随机查询IP数量，须为2的幂 */
+    private static final int QUERY_COUNT = 1 << 16;
+
+    /** 地址段数量，ip2region完整库约68万段 */
+    @Param({ "10000", "700000" })
+    public int ranges;
+
+    private IpRegionDatabase database;
+
+    private String[] queries;
+
+    private int next;
+
+    private File source;
+
+    private File target;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        source = File.createTempFile("ip-region", ".txt");
+        target = File.createTempFile("ip-region", ".db");
+        Random random = new Random(42);
+        // 将IPv4空间等分为地址段，每段随机留出空隙
+        long step = (1L << 32) / ranges;
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(source.toPath(), StandardCharsets.UTF_8)))
+        {
+            for (int i = 0; i < ranges; i++)
+            {
+                long start = i * step;
+                long end = start + step - 1 - random.nextInt((int) Math.min(step / 4 + 1, Integer.MAX_VALUE));
+                writer.println(ip(start) + "|" + ip(end) + "|中国|0|省份" + (i % 34) + "|城市" + (i % 400) + "|0");
+            }
+        }
+        IpRegionDatabase.convert(source, target);
+        database = IpRegionDatabase.load(target.getPath());
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++)
+        {
+            queries[i] = ip(random.nextInt() & 0xFFFFFFFFL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        source.delete();
+        target.delete();
+    }
+
+    @Benchmark
+    public String search()
+    {
+        return database.search(queries[next++ & (QUERY_COUNT - 1)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String searchConcurrent(ThreadQueries state)
+    {
+        return database.search(queries[state.next++ & (QUERY_COUNT - 1)]);
+    }
+
+    /**
+     * 每个线程独立的查询游标
+     */
+    @State(Scope.Thread)
+    public static class ThreadQueries
+    {
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            next = (int) (Thread.currentThread().getId() * 7919);
+        }
+    }
+
+    private static String ip(long value)
+    {
+        return ((value >> 24) & 0xFF) + "." + ((value >> 16) & 0xFF) + "." + ((value >> 8) & 0xFF) + "." + (value & 0xFF);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(IpRegionDatabaseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.ruoyi.common.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 离线IP地址库测试
+ *
+ * @author Lan
+ */
+public class IpRegionDatabaseTest
+{
+    @TempDir
+    Path dir;
+
+    @Test
+    public void searchesInclusiveRangeBoundaries() throws IOException
+    {
+        IpRegionDatabase db = build(
+                "1.0.0.0|1.0.0.255|中国|0|福建省|福州市|电信",
+                "1.0.1.0|1.0.3.255|中国|0|广东省|深圳市|联通");
+
+        assertEquals(2, db.size());
+        assertEquals("福建省 福州市", db.search("1.0.0.0"));
+        assertEquals("福建省 福州市", db.search("1.0.0.255"));
+        assertEquals("广东省 深圳市", db.search("1.0.1.0"));
+        assertEquals("广东省 深圳市", db.search("1.0.3.255"));
+        assertNull(db.search("1.0.4.0"));
+        assertNull(db.search("0.255.255.255"));
+    }
+
+    @Test
+    public void gapsBetweenRangesAreNotFound() throws IOException
+    {
+        IpRegionDatabase db = build(
+                "10.0.0.0|10.0.0.9|中国|0|北京|北京市|0",
+                "10.0.0.20|10.0.0.29|中国|0|上海|上海市|0");
+
+        assertEquals("北京 北京市", db.search("10.0.0.5"));
+        assertNull(db.search("10.0.0.15"));
+        assertEquals("上海 上海市", db.search("10.0.0.25"));
+    }
+
+    @Test
+    public void highAddressesAreComparedUnsigned() throws IOException
+    {
+        // 起始IP不按顺序给出，且包含最高位为1的地址
+        IpRegionDatabase db = build(
+                "200.0.0.0|255.255.255.255|美国|0|0|0|0",
+                "1.0.0.0|127.255.255.255|中国|0|浙江省|杭州市|0",
+                "128.0.0.0|199.255.255.255|日本|0|0|0|0");
+
+        assertEquals("浙江省 杭州市", db.search("100.1.2.3"));
+        assertEquals("日本", db.search("128.0.0.0"));
+        assertEquals("日本", db.search("199.255.255.255"));
+        assertEquals("美国", db.search("200.0.0.0"));
+        assertEquals("美国", db.search("255.255.255.255"));
+    }
+
+    @Test
+    public void regionNamesFallBackToCountryOrUnknown() throws IOException
+    {
+        IpRegionDatabase db = build(
+                "1.0.0.0|1.0.0.255|中国|0|福建省|0|0",
+                "1.0.1.0|1.0.1.255|新加坡|0|0|0|0",
+                "1.0.2.0|1.0.2.255|0|0|0|0|0",
+                "1.0.3.0|1.0.3.255|中国|0|福建省|0|0",
+                "not-an-ip|1.0.4.255|中国|0|0|0|0",
+                "1.0.5.0|1.0.5.255");
+
+        assertEquals(4, db.size());
+        assertEquals("福建省", db.search("1.0.0.1"));
+        assertEquals("新加坡", db.search("1.0.1.1"));
+        assertEquals(AddressUtils.UNKNOWN, db.search("1.0.2.1"));
+        assertEquals("福建省", db.search("1.0.3.1"));
+        assertNull(db.search("1.0.4.1"));
+        assertNull(db.search("1.0.5.1"));
+    }
+
+    @Test
+    public void invalidInputReturnsNull() throws IOException
+    {
+        IpRegionDatabase db = build("1.0.0.0|1.0.0.255|中国|0|福建省|福州市|0");
+
+        assertNull(db.search("abc"));
+        assertNull(db.search(""));
+        assertNull(build().search("1.0.0.1"));
+    }
+
+    private IpRegionDatabase build(String... lines) throws IOException
+    {
+        File source = dir.resolve("ip-" + System.nanoTime() + ".txt").toFile();
+        File target = new File(source.getPath() + ".db");
+        Files.write(source.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        IpRegionDatabase.convert(source, target);
+        return IpRegionDatabase.load(target.getPath());
+    }
+}
@@ -0,0 +1,140 @@
+package com.ruoyi.common.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import com.ruoyi.project.system.menu.domain.Menu;
+
+/**
+ * 建树工具测试（与改动前的递归实现比较）
+ *
+ * @author Lan
+ */
+public class TreeUtilsTest
+{
+    @Test
+    public void selectsRootsAndSkipsOrphans()
+    {
+        List<Menu> menus = Arrays.asList(
+                menu(3, 1), menu(1, 0), menu(4, 99), menu(2, 0), menu(5, 3), menu(6, 4), menu(7, 1));
+
+        List<Menu> tree = TreeUtils.getChildPerms(menus, 0);
+
+        // 父节点不存在的4及其子节点6不出现在树中，子节点按列表中的顺序排列
+        assertEquals("[1[3[5], 7], 2]", render(tree));
+        assertEquals("[3[5], 7]", render(TreeUtils.getChildPerms(copy(menus), 1)));
+        assertEquals("[4[6]]", render(TreeUtils.getChildPerms(copy(menus), 99)));
+        assertEquals("[]", render(TreeUtils.getChildPerms(copy(menus), 42)));
+        assertEquals("[]", render(TreeUtils.getChildPerms(Collections.<Menu> emptyList(), 0)));
+    }
+
+    @Test
+    public void matchesRecursiveImplementation()
+    {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++)
+        {
+            List<Menu> menus = randomMenus(random, 1 + random.nextInt(300));
+            for (int parentId : new int[] { 0, 1, random.nextInt(menus.size() + 5) })
+            {
+                List<Menu> expected = RecursiveTreeUtils.getChildPerms(copy(menus), parentId);
+                List<Menu> actual = TreeUtils.getChildPerms(copy(menus), parentId);
+                assertEquals(render(expected), render(actual), "round " + round + ", parentId " + parentId);
+            }
+        }
+    }
+
+    @Test
+    public void prefixedListMatchesRecursiveImplementation()
+    {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++)
+        {
+            List<Menu> menus = randomMenus(random, 1 + random.nextInt(300));
+            List<Menu> expected = new RecursiveTreeUtils().getChildPerms(copy(menus), 0, "-");
+            List<Menu> actual = new TreeUtils().getChildPerms(copy(menus), 0, "-");
+            assertEquals(names(expected), names(actual), "round " + round);
+        }
+    }
+
+    /**
+     * 随机生成无环的菜单列表：父节点为根(0)、已生成的节点或不存在的节点（孤儿），再打乱顺序
+     */
+    private static List<Menu> randomMenus(Random random, int size)
+    {
+        List<Menu> menus = new ArrayList<Menu>(size);
+        for (int id = 1; id <= size; id++)
+        {
+            int kind = random.nextInt(10);
+            long parentId;
+            if (kind == 0 || id == 1)
+            {
+                parentId = 0;
+            }
+            else if (kind == 1)
+            {
+                parentId = size + 1 + random.nextInt(5);
+            }
+            else
+            {
+                parentId = 1 + random.nextInt(id - 1);
+            }
+            menus.add(menu(id, parentId));
+        }
+        Collections.shuffle(menus, random);
+        return menus;
+    }
+
+    private static Menu menu(long menuId, long parentId)
+    {
+        Menu menu = new Menu();
+        menu.setMenuId(menuId);
+        menu.setParentId(parentId);
+        menu.setMenuName("m" + menuId);
+        return menu;
+    }
+
+    /**
+     * 两种实现都会修改节点，各自使用一份副本
+     */
+    private static List<Menu> copy(List<Menu> menus)
+    {
+        List<Menu> copy = new ArrayList<Menu>(menus.size());
+        for (Menu menu : menus)
+        {
+            Menu node = menu(menu.getMenuId(), menu.getParentId());
+            node.setMenuName(menu.getMenuName());
+            copy.add(node);
+        }
+        return copy;
+    }
+
+    private static String render(List<Menu> nodes)
+    {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            Menu node = nodes.get(i);
+            sb.append(i > 0 ? ", " : "").append(node.getMenuId());
+            if (!node.getChildren().isEmpty())
+            {
+                sb.append(render(node.getChildren()));
+            }
+        }
+        return sb.append("]").toString();
+    }
+
+    private static List<String> names(List<Menu> nodes)
+    {
+        List<String> names = new ArrayList<String>(nodes.size());
+        for (Menu node : nodes)
+        {
+            names.add(node.getMenuName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,126 @@
+package com.ruoyi.framework.aspectj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aspectj.lang.JoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.ruoyi.common.utils.spring.SpringUtils;
+import com.ruoyi.framework.shiro.service.RoleAuthCache;
+import com.ruoyi.project.system.menu.mapper.MenuMapper;
+import com.ruoyi.project.system.role.domain.Role;
+import com.ruoyi.project.system.role.mapper.RoleMapper;
+import com.ruoyi.project.system.user.domain.User;
+
+/**
+ * 数据权限过滤测试（角色数据取自角色授权缓存）
+ *
+ * @author Lan
+ */
+public class DataScopeAspectTest
+{
+    private static final String PERMISSION = "system:user:list";
+
+    /** 数据权限SQL缓存为静态缓存，每个测试使用不同的用户 */
+    private static final AtomicLong USER_IDS = new AtomicLong(100);
+
+    private final RoleMapper roleMapper = mock(RoleMapper.class);
+
+    private final MenuMapper menuMapper = mock(MenuMapper.class);
+
+    private final RoleAuthCache roleAuthCache = new RoleAuthCache();
+
+    /** 数据库中的角色：数据权限、状态 */
+    private final String[] role = { DataScopeAspect.DATA_SCOPE_CUSTOM, "0" };
+
+    private User user;
+
+    @BeforeEach
+    public void setUp()
+    {
+        ReflectionTestUtils.setField(roleAuthCache, "roleMapper", roleMapper);
+        ReflectionTestUtils.setField(roleAuthCache, "menuMapper", menuMapper);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("roleAuthCache", roleAuthCache);
+        new SpringUtils().postProcessBeanFactory(beanFactory);
+
+        user = new User();
+        user.setUserId(USER_IDS.incrementAndGet());
+        user.setDeptId(103L);
+        // 会话中的角色快照：数据权限已过期，记住我登录时没有权限字符
+        Role snapshot = role(DataScopeAspect.DATA_SCOPE_ALL, "0");
+        user.setRoles(Collections.singletonList(snapshot));
+
+        when(roleMapper.selectRolesByUserId(user.getUserId())).thenAnswer(invocation -> {
+            List<Role> roles = new ArrayList<Role>();
+            roles.add(role(role[0], role[1]));
+            return roles;
+        });
+        when(menuMapper.selectPermsByRoleId(anyLong())).thenReturn(Collections.singletonList(PERMISSION + ",system:user:add"));
+    }
+
+    @Test
+    public void usesCachedRoleDataInsteadOfSessionSnapshot()
+    {
+        assertEquals(" AND (d.dept_id IN ( SELECT dept_id FROM sys_role_dept WHERE role_id = 2 ) )", filter(PERMISSION));
+        assertEquals(" AND (d.dept_id = 0 )", filter("system:dept:list"));
+    }
+
+    @Test
+    public void roleChangesInvalidateCachedFragments()
+    {
+        assertEquals(" AND (d.dept_id IN ( SELECT dept_id FROM sys_role_dept WHERE role_id = 2 ) )", filter(PERMISSION));
+
+        role[0] = DataScopeAspect.DATA_SCOPE_DEPT;
+        roleAuthCache.evictAll();
+        assertEquals(" AND (d.dept_id = 103 )", filter(PERMISSION));
+
+        role[0] = DataScopeAspect.DATA_SCOPE_SELF;
+        roleAuthCache.evictAll();
+        assertEquals(" AND (u.user_id = " + user.getUserId() + " )", filter(PERMISSION));
+
+        // 停用的角色不授予任何数据
+        role[1] = "1";
+        roleAuthCache.evictAll();
+        assertEquals(" AND (d.dept_id = 0 )", filter(PERMISSION));
+    }
+
+    @Test
+    public void menuPermissionChangesInvalidateCachedFragments()
+    {
+        role[0] = DataScopeAspect.DATA_SCOPE_ALL;
+        assertEquals("", filter(PERMISSION));
+
+        when(menuMapper.selectPermsByRoleId(anyLong())).thenReturn(Collections.singletonList("system:user:add"));
+        roleAuthCache.evictAll();
+        assertEquals(" AND (d.dept_id = 0 )", filter(PERMISSION));
+    }
+
+    private String filter(String permission)
+    {
+        User params = new User();
+        JoinPoint joinPoint = mock(JoinPoint.class);
+        when(joinPoint.getArgs()).thenReturn(new Object[] { params });
+        DataScopeAspect.dataScopeFilter(joinPoint, user, "d", "u", permission);
+        Object dataScope = params.getParams().get(DataScopeAspect.DATA_SCOPE);
+        return dataScope == null ? "" : dataScope.toString();
+    }
+
+    private static Role role(String dataScope, String status)
+    {
+        Role role = new Role();
+        role.setRoleId(2L);
+        role.setRoleKey("common");
+        role.setDataScope(dataScope);
+        role.setStatus(status);
+        return role;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ruoyi.framework.aspectj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.aspectj.lang.JoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import com.ruoyi.framework.aspectj.lang.annotation.Log;
+import com.ruoyi.project.monitor.operlog.domain.OperLog;
+
+/**
+ * 操作日志切面参数序列化测试
+ *
+ * @author Lan
+ */
+public class LogAspectTest
+{
+    private final LogAspect aspect = new LogAspect();
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    public void setUp()
+    {
+        request = new MockHttpServletRequest("POST", "/system/user/add");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void argsAndResultAreSerializedOnRequestThread() throws Exception
+    {
+        Map<String, Object> arg = new LinkedHashMap<String, Object>();
+        arg.put("loginName", "lan");
+        arg.put("password", "secret");
+        List<String> result = new ArrayList<String>();
+        result.add("ok");
+        OperLog operLog = new OperLog();
+
+        Runnable serialize = aspect.getControllerMethodDescription(joinPoint(arg), annotation(), operLog, result);
+        // 请求结束后参数和响应结果被修改，不影响已记录的内容
+        arg.put("loginName", "changed");
+        result.add("changed");
+
+        assertNull(serialize);
+        assertEquals("{\"loginName\":\"lan\"}", operLog.getOperParam());
+        assertEquals("[\"ok\"]", operLog.getJsonResult());
+    }
+
+    @Test
+    public void requestParametersAreCopiedBeforeDeferredSerialization() throws Exception
+    {
+        request.addParameter("deptName", "研发部");
+        request.addParameter("password", "secret");
+        OperLog operLog = new OperLog();
+
+        Runnable serialize = aspect.getControllerMethodDescription(joinPoint(), annotation(), operLog, null);
+        request.getParameterMap().get("deptName")[0] = "changed";
+        request.removeAllParameters();
+
+        assertNotNull(serialize);
+        assertNull(operLog.getOperParam());
+        serialize.run();
+        assertEquals("{\"deptName\":[\"研发部\"]}", operLog.getOperParam());
+    }
+
+    @Test
+    public void limitedSerializationStopsAtMaxLength()
+    {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+        {
+            value.append('a');
+        }
+        List<String> values = new ArrayList<String>();
+        for (int i = 0; i < 100; i++)
+        {
+            values.add(value.toString());
+        }
+
+        String json = LogAspect.toLimitedJSONString(values, null);
+        // 中断后缓冲区仍被归还，同一线程继续序列化不受影响
+        String next = LogAspect.toLimitedJSONString("aaaaaaaaaa", null);
+
+        assertEquals(2000, json.length());
+        assertTrue(json.startsWith("[\"aaa"));
+        assertEquals("\"aaaaaaaaaa\"", next);
+        assertFalse(LogAspect.toLimitedJSONString("short", null).isEmpty());
+    }
+
+    private JoinPoint joinPoint(Object... args)
+    {
+        JoinPoint joinPoint = mock(JoinPoint.class);
+        when(joinPoint.getArgs()).thenReturn(args);
+        return joinPoint;
+    }
+
+    private Log annotation() throws NoSuchMethodException
+    {
+        return Annotated.class.getDeclaredMethod("add").getAnnotation(Log.class);
+    }
+
+    private static class Annotated
+    {
+        @Log(title = "用户管理")
+        public void add()
+        {
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ruoyi.framework.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.ruoyi.framework.aspectj.lang.enums.BusinessStatus;
+import com.ruoyi.project.monitor.operlog.domain.OperLog;
+import com.ruoyi.project.monitor.operlog.manager.OperLogIndex;
+import com.ruoyi.project.monitor.operlog.service.IOperLogService;
+
+/**
+ * 操作日志写入器测试
+ *
+ * @author Lan
+ */
+public class OperLogWriterTest
+{
+    private static final String BAD_URL = "/bad";
+
+    private final IOperLogService operLogService = mock(IOperLogService.class);
+
+    private final List<OperLog> written = Collections.synchronizedList(new ArrayList<OperLog>());
+
+    private final OperLogWriter writer = new OperLogWriter();
+
+    /** 写入第一批前等待，用于让后续日志积压成一批 */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    public void setUp()
+    {
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            List<OperLog> operLogs = invocation.getArgument(0);
+            for (OperLog operLog : operLogs)
+            {
+                if (BAD_URL.equals(operLog.getOperUrl()))
+                {
+                    throw new DataIntegrityViolationException("Data too long for column 'oper_url'");
+                }
+            }
+            written.addAll(operLogs);
+            return null;
+        }).when(operLogService).insertOperlogBatch(anyList());
+        ReflectionTestUtils.setField(writer, "operLogService", operLogService);
+        ReflectionTestUtils.setField(writer, "operLogIndex", mock(OperLogIndex.class));
+        ReflectionTestUtils.setField(writer, "capacity", 10000);
+        ReflectionTestUtils.setField(writer, "batchSize", 200);
+        ReflectionTestUtils.setField(writer, "flushInterval", 10L);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", OperLogWriter.POLICY_SAMPLE);
+        ReflectionTestUtils.setField(writer, "highWatermark", 0.8);
+        ReflectionTestUtils.setField(writer, "sampleRate", 10);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        release.countDown();
+    }
+
+    @Test
+    public void badRowOnlyLosesItself()
+    {
+        writer.init();
+        writer.offer(operLog("/first"));
+        // 写入线程阻塞在第一批时积压的日志作为一批写入
+        for (int i = 0; i < 5; i++)
+        {
+            writer.offer(operLog(i == 2 ? BAD_URL : "/ok" + i));
+        }
+        release.countDown();
+        writer.shutdown();
+
+        assertEquals(5, written.size());
+        assertEquals(5L, writer.getStatistics().get("flushed"));
+        assertEquals(1L, writer.getStatistics().get("failed"));
+    }
+
+    @Test
+    public void nonPositiveSampleRateKeepsEverything()
+    {
+        release.countDown();
+        ReflectionTestUtils.setField(writer, "highWatermark", 0.0);
+        ReflectionTestUtils.setField(writer, "sampleRate", 0);
+        writer.init();
+
+        assertTrue(writer.offer(operLog("/a")));
+        assertTrue(writer.offer(operLog("/b")));
+        writer.shutdown();
+
+        assertEquals(2, written.size());
+        assertEquals(0L, writer.getStatistics().get("sampled"));
+    }
+
+    /**
+     * 停止时并发入队：入队成功的日志全部写入，停止后入队失败
+     */
+    @Test
+    public void acceptedLogsAreWrittenWhenOfferRacesShutdown() throws Exception
+    {
+        release.countDown();
+        ReflectionTestUtils.setField(writer, "overflowPolicy", OperLogWriter.POLICY_DROP);
+        writer.init();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int thread = 0; thread < 4; thread++)
+            {
+                futures.add(executor.submit(() -> {
+                    int accepted = 0;
+                    while (writer.offer(operLog("/race")))
+                    {
+                        accepted++;
+                    }
+                    return accepted;
+                }));
+            }
+            Thread.sleep(50);
+            writer.shutdown();
+            int accepted = 0;
+            for (Future<Integer> future : futures)
+            {
+                accepted += future.get(10, TimeUnit.SECONDS);
+            }
+
+            assertFalse(writer.offer(operLog("/late")));
+            assertEquals(accepted, written.size());
+            assertEquals((long) accepted, writer.getStatistics().get("flushed"));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OperLog operLog(String operUrl)
+    {
+        OperLog operLog = new OperLog();
+        operLog.setOperUrl(operUrl);
+        operLog.setOperIp("127.0.0.1");
+        operLog.setStatus(BusinessStatus.SUCCESS.ordinal());
+        return operLog;
+    }
+}
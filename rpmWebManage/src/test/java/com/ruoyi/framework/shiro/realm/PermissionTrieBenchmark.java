@@ -0,0 +1,122 @@
+package com.ruoyi.framework.shiro.realm;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 单次权限检查基准测试：预编译的权限字典树与Shiro AuthorizingRealm默认判定
+ *
+ * Shiro每次检查都解析待检查权限和用户的全部权限，再逐条比较；待检查权限一半为用户拥有的权限。
+ * 运行：mvn test-compile 后以测试类路径执行本类main方法
+ *
+ * @author Lan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionTrieBenchmark
+{
+    /** 待检查权限数量，须为2的幂 */
+    private static final int QUERY_COUNT = 1 << 10;
+
+    /** 用户拥有的权限数量 */
+    @Param({ "50", "500" })
+    public int permissions;
+
+    private PermissionTrie trie;
+
+    private AuthorizingRealm realm;
+
+    private PrincipalCollection principals;
+
+    private String[] queries;
+
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        Set<String> owned = new HashSet<String>();
+        while (owned.size() < permissions)
+        {
+            owned.add(permission(random));
+        }
+        trie = new PermissionTrie(owned);
+        SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+        info.setStringPermissions(owned);
+        realm = new AuthorizingRealm()
+        {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals)
+            {
+                return info;
+            }
+
+            @Override
+            protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token)
+            {
+                return null;
+            }
+        };
+        principals = new SimplePrincipalCollection("admin", "benchmark");
+        String[] ownedArray = owned.toArray(new String[0]);
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++)
+        {
+            queries[i] = i % 2 == 0 ? ownedArray[random.nextInt(ownedArray.length)] : permission(random);
+        }
+    }
+
+    @Benchmark
+    public boolean trie()
+    {
+        String permission = queries[next++ & (QUERY_COUNT - 1)];
+        return trie.decides(permission) && trie.implies(permission);
+    }
+
+    @Benchmark
+    public boolean shiro()
+    {
+        return realm.isPermitted(principals, queries[next++ & (QUERY_COUNT - 1)]);
+    }
+
+    /**
+     * 按模块:功能:操作生成权限字符
+     */
+    private static String permission(Random random)
+    {
+        return "module" + random.nextInt(20) + ":function" + random.nextInt(40) + ":action" + random.nextInt(8);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(PermissionTrieBenchmark.class.getSimpleName()).build()).run();
+    }
+}
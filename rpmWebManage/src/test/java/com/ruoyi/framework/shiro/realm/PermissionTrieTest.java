@@ -0,0 +1,152 @@
+package com.ruoyi.framework.shiro.realm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 权限字典树测试（与Shiro WildcardPermission比较）
+ *
+ * @author Lan
+ */
+public class PermissionTrieTest
+{
+    /** 权限值，含大小写、通配、空值和前后空格 */
+    private static final String[] VALUES = { "a", "b", "c", "A", "*", "", " a", "b " };
+
+    @Test
+    public void trailingEmptyPartsAreIgnored()
+    {
+        PermissionTrie trie = trie("system:user:");
+
+        assertTrue(trie.decides("system:user:add"));
+        assertTrue(trie.implies("system:user:add"));
+        assertTrue(trie.implies("system:user::"));
+        assertTrue(trie.implies("System:User"));
+        assertFalse(trie.implies("system"));
+    }
+
+    @Test
+    public void innerEmptyPartsAndSpacesAreKept()
+    {
+        PermissionTrie trie = trie("a::b", "c:d");
+
+        assertTrue(trie.implies("a::b"));
+        assertFalse(trie.implies("a:b"));
+        // 段和值不去除空格，只去除整个权限字符串的前后空格
+        assertTrue(trie.implies(" c:d "));
+        assertFalse(trie.implies("c: d"));
+        assertFalse(trie.implies("c :d"));
+    }
+
+    @Test
+    public void malformedPermissionsAreLeftToShiro()
+    {
+        PermissionTrie trie = trie("system:user:*");
+
+        assertFalse(trie.decides(null));
+        assertFalse(trie.decides(""));
+        assertFalse(trie.decides("  "));
+        assertFalse(trie.decides(":"));
+        assertFalse(trie.decides("system:,:add"));
+        assertFalse(trie.decides("system:user:add,edit"));
+        assertTrue(trie.decides("system:user:add"));
+
+        // 拥有的权限中有Shiro无法解析的，全部检查交由Shiro（抛出异常）
+        PermissionTrie malformed = trie("system:user:*", "system:,");
+        assertFalse(malformed.decides("system:user:add"));
+    }
+
+    @Test
+    public void matchesWildcardPermission()
+    {
+        Random random = new Random(23);
+        int decided = 0;
+        for (int round = 0; round < 20000; round++)
+        {
+            List<String> owned = new ArrayList<String>();
+            for (int i = random.nextInt(5); i >= 0; i--)
+            {
+                owned.add(randomPermission(random, 3));
+            }
+            PermissionTrie trie = new PermissionTrie(owned);
+            String permission = randomPermission(random, 1);
+            Boolean expected = shiroImplies(owned, permission);
+            String message = owned + " implies [" + permission + "]";
+            if (trie.decides(permission))
+            {
+                decided++;
+                assertNotNull(expected, message);
+                assertEquals(expected.booleanValue(), trie.implies(permission), message);
+            }
+            else
+            {
+                // 只有段内多个值或Shiro无法解析时才交由Shiro
+                assertTrue(permission.indexOf(',') >= 0 || expected == null, message);
+            }
+        }
+        assertTrue(decided > 10000, "decided " + decided);
+    }
+
+    /**
+     * 随机权限：1至4段，每段最多maxValues个值，偶尔带末尾冒号或前后空格
+     */
+    private static String randomPermission(Random random, int maxValues)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int part = random.nextInt(4); part >= 0; part--)
+        {
+            for (int value = random.nextInt(random.nextInt(10) == 0 ? maxValues : 1); value >= 0; value--)
+            {
+                sb.append(VALUES[random.nextInt(VALUES.length)]).append(value > 0 ? "," : "");
+            }
+            sb.append(part > 0 ? ":" : "");
+        }
+        if (random.nextInt(10) == 0)
+        {
+            sb.append(':');
+        }
+        return random.nextInt(10) == 0 ? " " + sb + " " : sb.toString();
+    }
+
+    /**
+     * 按AuthorizingRealm的方式判定：先解析待检查权限，再解析全部拥有的权限，格式不合法时返回null
+     */
+    private static Boolean shiroImplies(List<String> owned, String permission)
+    {
+        try
+        {
+            WildcardPermission checked = new WildcardPermission(permission);
+            List<WildcardPermission> permissions = new ArrayList<WildcardPermission>();
+            for (String perm : owned)
+            {
+                permissions.add(new WildcardPermission(perm));
+            }
+            for (WildcardPermission perm : permissions)
+            {
+                if (perm.implies(checked))
+                {
+                    return Boolean.TRUE;
+                }
+            }
+            return Boolean.FALSE;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    private static PermissionTrie trie(String... permissions)
+    {
+        return new PermissionTrie(permissions.length == 0 ? Collections.<String> emptyList() : Arrays.asList(permissions));
+    }
+}
@@ -0,0 +1,93 @@
+package com.ruoyi.framework.shiro.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.apache.shiro.session.mgt.DefaultSessionContext;
+import org.apache.shiro.session.mgt.DefaultSessionKey;
+import org.apache.shiro.session.mgt.SessionKey;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.ruoyi.framework.shiro.session.store.LocalSessionStore;
+import com.ruoyi.framework.shiro.web.session.OnlineWebSessionManager;
+
+/**
+ * 共享会话DAO测试（两个节点共用一个会话存储）
+ *
+ * @author Lan
+ */
+public class SharedSessionDAOTest
+{
+    private final LocalSessionStore sessionStore = new LocalSessionStore();
+
+    private OnlineWebSessionManager nodeA;
+
+    private OnlineWebSessionManager nodeB;
+
+    @BeforeEach
+    public void setUp()
+    {
+        nodeA = manager();
+        nodeB = manager();
+    }
+
+    @Test
+    public void loginOnOneNodeIsVisibleOnTheOther()
+    {
+        SessionKey key = new DefaultSessionKey(nodeA.start(new DefaultSessionContext()).getId());
+        // 其他节点先读到登录前的会话
+        assertNull(nodeB.getAttribute(key, DefaultSubjectContext.PRINCIPALS_SESSION_KEY));
+
+        SimplePrincipalCollection principals = new SimplePrincipalCollection("admin", "userRealm");
+        nodeA.setAttribute(key, DefaultSubjectContext.PRINCIPALS_SESSION_KEY, principals);
+        nodeA.setAttribute(key, DefaultSubjectContext.AUTHENTICATED_SESSION_KEY, Boolean.TRUE);
+
+        assertEquals(principals, nodeB.getAttribute(key, DefaultSubjectContext.PRINCIPALS_SESSION_KEY));
+        assertEquals(Boolean.TRUE, nodeB.getAttribute(key, DefaultSubjectContext.AUTHENTICATED_SESSION_KEY));
+    }
+
+    @Test
+    public void removedAttributesAreWrittenBack()
+    {
+        SessionKey key = new DefaultSessionKey(nodeA.start(new DefaultSessionContext()).getId());
+        nodeA.setAttribute(key, "menuState", "collapsed");
+        assertEquals("collapsed", nodeB.getAttribute(key, "menuState"));
+
+        nodeB.removeAttribute(key, "menuState");
+
+        assertNull(nodeA.getAttribute(key, "menuState"));
+    }
+
+    @Test
+    public void touchOnlyUpdatesWaitForWriteInterval()
+    {
+        SessionKey key = new DefaultSessionKey(nodeA.start(new DefaultSessionContext()).getId());
+        String storeKey = "shiro-session:" + key.getSessionId();
+        Long version = sessionStore.getVersion(storeKey);
+
+        nodeA.touch(key);
+        assertEquals(version, sessionStore.getVersion(storeKey));
+
+        nodeA.setAttribute(key, "menuState", "expanded");
+        assertNotEquals(version, sessionStore.getVersion(storeKey));
+    }
+
+    private OnlineWebSessionManager manager()
+    {
+        SharedSessionDAO sessionDAO = new SharedSessionDAO();
+        ReflectionTestUtils.setField(sessionDAO, "sessionStore", sessionStore);
+        ReflectionTestUtils.setField(sessionDAO, "nearCacheSize", 100);
+        // 每次读取都比较版本号，模拟另一节点的请求到达时已超过检查间隔
+        ReflectionTestUtils.setField(sessionDAO, "versionCheckInterval", 0L);
+        ReflectionTestUtils.setField(sessionDAO, "touchWriteInterval", 60L);
+        sessionDAO.init();
+        OnlineWebSessionManager manager = new OnlineWebSessionManager();
+        manager.setSessionDAO(sessionDAO);
+        manager.setSessionFactory(new OnlineSessionFactory());
+        manager.setSessionValidationSchedulerEnabled(false);
+        return manager;
+    }
+}
@@ -0,0 +1,198 @@
+package com.ruoyi.framework.shiro.session.store;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 进程内会话存储测试（含多线程并发加入、移出用户会话列表）
+ *
+ * @author Lan
+ */
+public class LocalSessionStoreTest
+{
+    private static final int THREADS = 16;
+
+    private static final int SESSIONS_PER_THREAD = 12500;
+
+    private static final String KEY = "shiro-kickout:admin";
+
+    private final LocalSessionStore store = new LocalSessionStore();
+
+    @Test
+    public void admitEvictsOldestOrNewest()
+    {
+        assertEquals(Collections.emptyList(), store.admit(KEY, "s1", 2, false));
+        assertEquals(Collections.emptyList(), store.admit(KEY, "s2", 2, false));
+        // 已在列表中的成员不重复加入
+        assertEquals(Collections.emptyList(), store.admit(KEY, "s2", 2, false));
+        assertEquals(Collections.singletonList("s1"), store.admit(KEY, "s3", 2, false));
+        assertEquals(Arrays.asList("s3", "s2"), members(KEY));
+
+        assertEquals(Collections.singletonList("s4"), store.admit(KEY, "s4", 2, true));
+        assertEquals(Arrays.asList("s3", "s2"), members(KEY));
+
+        store.removeMember(KEY, "s3");
+        store.removeMember(KEY, "missing");
+        assertEquals(Collections.singletonList("s2"), members(KEY));
+        store.removeMember(KEY, "s2");
+        assertNull(store.get(KEY));
+    }
+
+    @Test
+    public void replaceComparesVersions()
+    {
+        byte[] value = "v1".getBytes(StandardCharsets.UTF_8);
+        assertNull(store.replace("k", 1L, value, 0));
+        Long created = store.replace("k", null, value, 0);
+        assertNotNull(created);
+        assertNull(store.replace("k", null, value, 0));
+        assertNull(store.replace("k", created + 1, value, 0));
+
+        Long updated = store.replace("k", created, "v2".getBytes(StandardCharsets.UTF_8), 0);
+
+        assertEquals(updated, store.getVersion("k"));
+        assertArrayEquals("v2".getBytes(StandardCharsets.UTF_8), store.get("k").getStoreValue());
+    }
+
+    @Test
+    public void expiredEntriesAreAbsent() throws InterruptedException
+    {
+        long version = store.put("k", new byte[] { 1 }, 1);
+        Thread.sleep(5);
+
+        assertNull(store.get("k"));
+        assertNull(store.getVersion("k"));
+        assertNull(store.replace("k", version, new byte[] { 2 }, 0));
+        assertNotNull(store.replace("k", null, new byte[] { 2 }, 0));
+    }
+
+    /**
+     * 16个线程同时为同一用户加入不同会话：每个会话要么留在列表中，要么恰好被移出一次
+     */
+    @Test
+    public void concurrentAdmitsLoseNoKickouts() throws Exception
+    {
+        int max = 2;
+        Set<String> evicted = ConcurrentHashMap.newKeySet();
+        List<String> duplicates = Collections.synchronizedList(new ArrayList<String>());
+        runConcurrently(thread -> {
+            for (int i = 0; i < SESSIONS_PER_THREAD; i++)
+            {
+                for (String member : store.admit(KEY, thread + "-" + i, max, false))
+                {
+                    if (!evicted.add(member))
+                    {
+                        duplicates.add(member);
+                    }
+                }
+            }
+        });
+
+        List<String> retained = members(KEY);
+        assertEquals(Collections.emptyList(), duplicates);
+        assertEquals(max, retained.size());
+        assertEquals(THREADS * SESSIONS_PER_THREAD - max, evicted.size());
+        for (String member : retained)
+        {
+            assertFalse(evicted.contains(member), member);
+        }
+    }
+
+    /**
+     * 加入最新会话时移出最新会话（kickoutAfter），并发下列表只保留最先加入的会话
+     */
+    @Test
+    public void concurrentAdmitsKeepFirstWhenEvictingNewest() throws Exception
+    {
+        Set<String> evicted = ConcurrentHashMap.newKeySet();
+        runConcurrently(thread -> {
+            for (int i = 0; i < SESSIONS_PER_THREAD; i++)
+            {
+                evicted.addAll(store.admit(KEY, thread + "-" + i, 1, true));
+            }
+        });
+
+        assertEquals(1, members(KEY).size());
+        assertEquals(THREADS * SESSIONS_PER_THREAD - 1, evicted.size());
+    }
+
+    /**
+     * 并发加入和移出（登录和注销交错）后列表中不残留已移出的会话
+     */
+    @Test
+    public void concurrentAdmitAndRemoveLeaveNoStaleMembers() throws Exception
+    {
+        int max = THREADS * 2;
+        runConcurrently(thread -> {
+            for (int i = 0; i < SESSIONS_PER_THREAD; i++)
+            {
+                String member = thread + "-" + i;
+                store.admit(KEY, member, max, false);
+                store.removeMember(KEY, member);
+            }
+            store.admit(KEY, thread + "-last", max, false);
+        });
+
+        Set<String> expected = new HashSet<String>();
+        for (int thread = 0; thread < THREADS; thread++)
+        {
+            expected.add(thread + "-last");
+        }
+        assertEquals(expected, new HashSet<String>(members(KEY)));
+    }
+
+    private List<String> members(String key)
+    {
+        return SessionMembers.decode(store.get(key).getStoreValue());
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < THREADS; thread++)
+            {
+                int index = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask
+    {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,127 @@
+package com.ruoyi.framework.shiro.web.session;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import org.apache.shiro.session.mgt.DefaultSessionContext;
+import org.apache.shiro.session.mgt.DefaultSessionKey;
+import org.apache.shiro.session.mgt.SessionKey;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.apache.shiro.web.session.mgt.DefaultWebSessionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import com.ruoyi.common.utils.bean.BeanUtils;
+import com.ruoyi.framework.shiro.session.OnlineSessionFactory;
+import com.ruoyi.project.monitor.online.domain.OnlineSession;
+
+/**
+ * 单次请求的会话开销基准测试：读取会话、更新访问时间并修改一个需同步的属性
+ *
+ * copyOnMark为改动前的做法（每次属性变更反射复制一份会话再标记），markCached为直接标记缓存中的会话。
+ * 运行：mvn test-compile 后以测试类路径执行本类main方法
+ *
+ * @author Lan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OnlineSessionOverheadBenchmark
+{
+    private static final String ATTRIBUTE = "menuState";
+
+    private DefaultWebSessionManager markCached;
+
+    private DefaultWebSessionManager copyOnMark;
+
+    private SessionKey markCachedKey;
+
+    private SessionKey copyOnMarkKey;
+
+    private long counter;
+
+    @Setup
+    public void setup()
+    {
+        markCached = manager(new OnlineWebSessionManager());
+        copyOnMark = manager(new CopyOnMarkSessionManager());
+        markCachedKey = login(markCached);
+        copyOnMarkKey = login(copyOnMark);
+    }
+
+    @Benchmark
+    public Object markCached()
+    {
+        return request(markCached, markCachedKey);
+    }
+
+    @Benchmark
+    public Object copyOnMark()
+    {
+        return request(copyOnMark, copyOnMarkKey);
+    }
+
+    private Object request(DefaultWebSessionManager manager, SessionKey key)
+    {
+        manager.touch(key);
+        manager.setAttribute(key, ATTRIBUTE, counter++);
+        return manager.getAttribute(key, ATTRIBUTE);
+    }
+
+    private static DefaultWebSessionManager manager(DefaultWebSessionManager manager)
+    {
+        manager.setSessionDAO(new MemorySessionDAO());
+        manager.setSessionFactory(new OnlineSessionFactory());
+        manager.setSessionValidationSchedulerEnabled(false);
+        manager.setDeleteInvalidSessions(false);
+        return manager;
+    }
+
+    /**
+     * 创建会话并带上登录后的会话属性，反射复制的开销与会话内容相关
+     */
+    private static SessionKey login(DefaultWebSessionManager manager)
+    {
+        Serializable sessionId = manager.start(new DefaultSessionContext()).getId();
+        SessionKey key = new DefaultSessionKey(sessionId);
+        manager.setAttribute(key, DefaultSubjectContext.PRINCIPALS_SESSION_KEY, "admin");
+        manager.setAttribute(key, DefaultSubjectContext.AUTHENTICATED_SESSION_KEY, Boolean.TRUE);
+        return key;
+    }
+
+    /**
+     * 改动前的会话管理器：属性变更时新建会话对象并反射复制后再标记
+     */
+    private static class CopyOnMarkSessionManager extends DefaultWebSessionManager
+    {
+        @Override
+        public void setAttribute(SessionKey sessionKey, Object attributeKey, Object value)
+        {
+            super.setAttribute(sessionKey, attributeKey, value);
+            if (value != null)
+            {
+                OnlineSession session = new OnlineSession();
+                BeanUtils.copyBeanProp(session, doGetSession(sessionKey));
+                session.markAttributeChanged();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(OnlineSessionOverheadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
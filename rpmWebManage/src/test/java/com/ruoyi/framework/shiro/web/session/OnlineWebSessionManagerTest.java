@@ -0,0 +1,64 @@
+package com.ruoyi.framework.shiro.web.session;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.apache.shiro.session.mgt.DefaultSessionContext;
+import org.apache.shiro.session.mgt.DefaultSessionKey;
+import org.apache.shiro.session.mgt.SessionKey;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.ruoyi.common.constant.ShiroConstants;
+import com.ruoyi.framework.shiro.session.OnlineSessionFactory;
+import com.ruoyi.project.monitor.online.domain.OnlineSession;
+
+/**
+ * 会话属性变更标识测试
+ *
+ * @author Lan
+ */
+public class OnlineWebSessionManagerTest
+{
+    private final MemorySessionDAO sessionDAO = new MemorySessionDAO();
+
+    private final OnlineWebSessionManager manager = new OnlineWebSessionManager();
+
+    private SessionKey key;
+
+    @BeforeEach
+    public void setUp()
+    {
+        manager.setSessionDAO(sessionDAO);
+        manager.setSessionFactory(new OnlineSessionFactory());
+        manager.setSessionValidationSchedulerEnabled(false);
+        key = new DefaultSessionKey(manager.start(new DefaultSessionContext()).getId());
+    }
+
+    @Test
+    public void marksTheCachedSession()
+    {
+        OnlineSession cached = (OnlineSession) sessionDAO.readSession(key.getSessionId());
+        assertSame(cached, manager.getOnlineSession(key));
+
+        manager.setAttribute(key, "menuState", 1);
+
+        assertTrue(cached.isAttributeChanged());
+        cached.resetAttributeChanged();
+        manager.removeAttribute(key, "menuState");
+        assertTrue(cached.isAttributeChanged());
+    }
+
+    @Test
+    public void ignoresUntrackedAttributes()
+    {
+        OnlineSession cached = (OnlineSession) sessionDAO.readSession(key.getSessionId());
+
+        manager.setAttribute(key, "org.springframework.web.servlet.FlashMap", 1);
+        manager.setAttribute(key, ShiroConstants.CURRENT_USERNAME, "admin");
+        manager.setAttribute(key, "menuState", null);
+        manager.removeAttribute(key, "missing");
+
+        assertFalse(cached.isAttributeChanged());
+    }
+}
@@ -0,0 +1,93 @@
+package com.ruoyi.project.monitor.operlog.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import com.ruoyi.common.utils.DateUtils;
+import com.ruoyi.project.monitor.operlog.domain.OperLog;
+import com.ruoyi.project.monitor.operlog.manager.OperLogIndex;
+import com.ruoyi.project.monitor.operlog.mapper.OperLogMapper;
+import com.ruoyi.project.monitor.operlog.service.OperLogServiceImpl;
+
+/**
+ * 操作日志列表默认时间范围测试（只作用于列表，导出等查询不受限制）
+ *
+ * @author Lan
+ */
+public class OperlogControllerTest
+{
+    private final OperLogMapper operLogMapper = mock(OperLogMapper.class);
+
+    private final OperLogServiceImpl operLogService = new OperLogServiceImpl();
+
+    private final OperlogController controller = new OperlogController();
+
+    private final List<OperLog> queries = new ArrayList<OperLog>();
+
+    @BeforeEach
+    public void setUp()
+    {
+        when(operLogMapper.selectOperLogList(any(OperLog.class))).thenAnswer(invocation -> {
+            queries.add(invocation.getArgument(0));
+            return new ArrayList<OperLog>();
+        });
+        ReflectionTestUtils.setField(operLogService, "operLogMapper", operLogMapper);
+        ReflectionTestUtils.setField(operLogService, "operLogIndex", mock(OperLogIndex.class));
+        ReflectionTestUtils.setField(operLogService, "searchMode", "prefix");
+        ReflectionTestUtils.setField(controller, "operLogService", operLogService);
+        ReflectionTestUtils.setField(controller, "queryDays", 30);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("POST", "/monitor/operlog/list")));
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void listDefaultsToRecentDays()
+    {
+        controller.list(new OperLog());
+
+        Date beginTime = DateUtils.parseDate(queries.get(0).getParams().get("beginTime"));
+        long days = (System.currentTimeMillis() - beginTime.getTime()) / (24 * 3600 * 1000L);
+        assertEquals(30, days);
+        assertEquals("prefix", queries.get(0).getParams().get("searchMode"));
+    }
+
+    @Test
+    public void listKeepsRequestedRange()
+    {
+        OperLog operLog = new OperLog();
+        operLog.getParams().put("endTime", "2020-01-31");
+        operLog.getParams().put("searchMode", "exact");
+        controller.list(operLog);
+
+        assertFalse(queries.get(0).getParams().containsKey("beginTime"));
+        assertEquals("exact", queries.get(0).getParams().get("searchMode"));
+    }
+
+    @Test
+    public void serviceQueriesAreNotLimited()
+    {
+        // 导出直接调用服务层查询，未指定时间范围时导出全部
+        operLogService.selectOperLogList(new OperLog());
+
+        assertFalse(queries.get(0).getParams().containsKey("beginTime"));
+        assertTrue(queries.get(0).getParams().containsKey("searchMode"));
+    }
+}
@@ -0,0 +1,364 @@
+package com.ruoyi.project.monitor.operlog.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.ruoyi.project.monitor.operlog.domain.OperLog;
+import com.ruoyi.project.monitor.operlog.mapper.OperLogMapper;
+
+/**
+ * 操作日志全文索引测试
+ *
+ * @author Lan
+ */
+public class OperLogIndexTest
+{
+    private static final long NOW = System.currentTimeMillis() / 1000 * 1000;
+
+    private OperLogMapper mapper;
+
+    private OperLogIndex index;
+
+    /** 模拟的操作日志表 */
+    private final List<OperLog> table = new ArrayList<OperLog>();
+
+    @BeforeEach
+    public void setUp()
+    {
+        mapper = mock(OperLogMapper.class);
+        when(mapper.selectOperLogAfter(anyLong(), anyInt())).thenAnswer(invocation -> after(invocation.getArgument(0), invocation.getArgument(1)));
+        when(mapper.selectOperLogMinIdSince(any(Date.class))).thenAnswer(invocation -> minIdSince(invocation.getArgument(0)));
+        index = newIndex(0, 0);
+    }
+
+    @Test
+    public void tokenizeSplitsWordsAndChineseBigrams()
+    {
+        assertEquals(Arrays.asList("用", "户", "用户", "管", "户管", "理", "管理", "userlist", "42"),
+                OperLogIndex.tokenize("用户管理 UserList-42", false));
+        // 查询时连续中文只取相邻两字，单个中文取单字
+        assertEquals(Arrays.asList("用户", "户管", "管理", "admin", "删"), OperLogIndex.tokenize("用户管理 admin 删", true));
+        assertEquals(Collections.singletonList("a"), OperLogIndex.tokenize("a A a", true));
+        assertTrue(OperLogIndex.tokenize(" -/ ", true).isEmpty());
+        assertTrue(OperLogIndex.tokenize(null, true).isEmpty());
+
+        String longWord = "abcdefghijklmnopqrstuvwxyz0123456789";
+        assertEquals(Collections.singletonList(longWord.substring(0, 32)), OperLogIndex.tokenize(longWord, true));
+    }
+
+    @Test
+    public void searchIntersectsAllWords()
+    {
+        index.add(Arrays.asList(
+                row(1, "用户管理", "admin", "/system/user/list", null, 0),
+                row(2, "角色管理", "admin", "/system/role/list", null, 0),
+                row(3, "用户管理", "ry", "/system/user/list", null, 0)));
+
+        assertEquals(Collections.singletonList(1L), search("用户 admin").getOperIds());
+        assertEquals(Arrays.asList(3L, 1L), search("用户管理").getOperIds());
+        assertEquals(3, search("管理").getTotal());
+        assertEquals(0, search("用户 角色").getTotal());
+        assertNull(search(" - "));
+    }
+
+    @Test
+    public void lastWordMatchesByPrefix()
+    {
+        index.add(Arrays.asList(
+                row(1, "userlist", null, null, null, 0),
+                row(2, "username", null, null, null, 0),
+                row(3, "use", null, null, null, 0),
+                row(4, "usage", null, null, null, 0)));
+
+        assertEquals(3, search("use").getTotal());
+        // 完全匹配的词和展开的词同等计分，同分时新日志在前
+        assertEquals(Arrays.asList(3L, 2L, 1L), search("use").getOperIds());
+        assertEquals(Collections.singletonList(2L), search("usern").getOperIds());
+        assertEquals(Collections.singletonList(4L), search("usa").getOperIds());
+        // 少于3个字符或不是最后一个词时只做完全匹配
+        assertEquals(0, search("us").getTotal());
+        assertEquals(0, search("userl usage").getTotal());
+    }
+
+    @Test
+    public void rankingWeighsFieldsAndRareWords()
+    {
+        index.add(Arrays.asList(
+                row(1, "导出", null, null, "{\"type\":\"device\"}", 0),
+                row(2, "设备管理", null, null, null, 0),
+                row(3, "导出", "device", null, null, 0),
+                row(4, "导出", null, null, "{\"type\":\"device\"}", 0)));
+
+        // 模块 > 操作人员 > 请求参数，同分时新日志在前
+        assertEquals(Arrays.asList(3L, 4L, 1L), search("device").getOperIds());
+        assertEquals(Collections.singletonList(2L), search("设备").getOperIds());
+    }
+
+    @Test
+    public void rareWordsWeighMore()
+    {
+        index.add(Arrays.asList(
+                row(1, "导出 device", null, null, null, 0),
+                row(2, "device", null, null, "导出", 0),
+                row(3, "导出", null, null, "device", 0),
+                row(4, "导出", null, null, null, 0),
+                row(5, "导出", null, null, null, 0)));
+
+        // device比导出稀有，在模块中命中device的日志排在命中导出的日志之前
+        assertEquals(Arrays.asList(1L, 2L, 3L), search("导出 device").getOperIds());
+    }
+
+    @Test
+    public void filtersAndPagingApply()
+    {
+        OperLog failed = row(2, "用户管理", null, null, null, -60);
+        failed.setStatus(1);
+        failed.setBusinessType(3);
+        index.add(Arrays.asList(row(1, "用户管理", null, null, null, -120), failed, row(3, "用户管理", null, null, null, 0)));
+
+        assertEquals(Collections.singletonList(2L), index.search("用户", 1, null, null, null, 0, 10).getOperIds());
+        assertEquals(Collections.singletonList(2L), index.search("用户", null, new Integer[] { 3, 5 }, null, null, 0, 10).getOperIds());
+        assertEquals(0, index.search("用户", null, new Integer[] { 5 }, null, null, 0, 10).getTotal());
+        assertEquals(Arrays.asList(3L, 2L), index.search("用户", null, null, time(-90), null, 0, 10).getOperIds());
+        assertEquals(Collections.singletonList(1L), index.search("用户", null, null, null, time(-90), 0, 10).getOperIds());
+
+        OperLogIndex.Hits page = index.search("用户", null, null, null, null, 1, 1);
+        assertEquals(3, page.getTotal());
+        assertEquals(Collections.singletonList(2L), page.getOperIds());
+    }
+
+    @Test
+    public void deletedLogsAreSkipped()
+    {
+        index.add(Arrays.asList(row(1, "用户管理", null, null, null, 0), row(2, "用户管理", null, null, null, 0)));
+        // 已索引的主键不重复索引
+        index.add(Collections.singletonList(row(2, "角色管理", null, null, null, 0)));
+
+        index.delete(new Long[] { 2L, 9L, null });
+
+        assertEquals(Collections.singletonList(1L), search("用户").getOperIds());
+        assertEquals(0, search("角色").getTotal());
+        assertEquals(1, index.getStatistics().get("deleted"));
+    }
+
+    @Test
+    public void rebuildSwapsInCompleteIndex()
+    {
+        ReflectionTestUtils.setField(index, "rebuildBatch", 2);
+        for (long id = 1; id <= 5; id++)
+        {
+            table.add(row(id, "用户管理", null, null, null, 0));
+        }
+        // 构建期间写入器写入的日志进入旧索引，切换后按主键去重
+        index.add(Collections.singletonList(table.get(4)));
+        assertFalse(index.isReady());
+
+        index.rebuild();
+        table.add(row(6, "用户管理", null, null, null, 0));
+        index.add(table.subList(4, 6));
+
+        assertTrue(index.isReady());
+        assertEquals(6, search("用户").getTotal());
+        assertEquals(6, index.getStatistics().get("documents"));
+        // 已就绪时跳过
+        index.rebuild();
+        verify(mapper, times(1)).selectOperLogAfter(eq(0L), anyInt());
+    }
+
+    @Test
+    public void interruptedRebuildResumes()
+    {
+        ReflectionTestUtils.setField(index, "rebuildBatch", 2);
+        for (long id = 1; id <= 5; id++)
+        {
+            table.add(row(id, "用户管理", null, null, null, 0));
+        }
+        AtomicBoolean fail = new AtomicBoolean(true);
+        when(mapper.selectOperLogAfter(eq(2L), anyInt())).thenAnswer(invocation -> {
+            if (fail.getAndSet(false))
+            {
+                throw new IllegalStateException("connection reset");
+            }
+            return after(2L, invocation.getArgument(1));
+        });
+
+        index.rebuild();
+        assertFalse(index.isReady());
+        assertEquals(2L, index.getStatistics().get("rebuildLastId"));
+
+        index.rebuild();
+        assertTrue(index.isReady());
+        assertEquals(5, search("用户").getTotal());
+        verify(mapper, times(1)).selectOperLogAfter(eq(0L), anyInt());
+    }
+
+    @Test
+    public void rebuildStartsFromRetentionWindow()
+    {
+        index = newIndex(0, 30);
+        table.add(row(1, "用户管理", null, null, null, -TimeUnit.DAYS.toMinutes(40)));
+        table.add(row(2, "用户管理", null, null, null, -TimeUnit.DAYS.toMinutes(10)));
+        table.add(row(3, "用户管理", null, null, null, 0));
+
+        index.rebuild();
+
+        verify(mapper).selectOperLogAfter(eq(1L), anyInt());
+        assertEquals(2, index.getStatistics().get("documents"));
+        assertEquals(2, index.search("用户", null, null, time(-TimeUnit.DAYS.toMinutes(20)), null, 0, 10).getTotal());
+        // 开始时间早于收录范围时由调用方查询数据库
+        assertNull(index.search("用户", null, null, time(-TimeUnit.DAYS.toMinutes(40)), null, 0, 10));
+        assertNull(search("用户"));
+    }
+
+    @Test
+    public void purgeDropsOldLogsAndCompacts()
+    {
+        index.add(Arrays.asList(
+                row(1, "角色管理", null, null, null, -TimeUnit.DAYS.toMinutes(200)),
+                row(2, "用户管理", "admin", null, null, -TimeUnit.DAYS.toMinutes(100)),
+                row(3, "用户管理", "ry", null, null, -TimeUnit.DAYS.toMinutes(50)),
+                row(4, "部门管理", "admin", null, null, 0)));
+        index.delete(new Long[] { 4L });
+
+        index.purge(time(-TimeUnit.DAYS.toMinutes(150)));
+
+        assertEquals(2, index.getStatistics().get("documents"));
+        assertEquals(0, index.getStatistics().get("deleted"));
+        assertEquals(0, search("角色").getTotal());
+        assertEquals(0, search("部门").getTotal());
+        // 整理后序号重新编号，检索和删除仍按主键
+        assertEquals(Arrays.asList(3L, 2L), search("用户").getOperIds());
+        assertEquals(Collections.singletonList(2L), search("用户 admin").getOperIds());
+        index.delete(new Long[] { 2L });
+        assertEquals(Collections.singletonList(3L), search("用户").getOperIds());
+        // 新写入的日志追加在整理后的索引之后
+        index.add(Collections.singletonList(row(5, "用户管理", null, null, null, 0)));
+        assertEquals(Arrays.asList(5L, 3L), search("用户").getOperIds());
+    }
+
+    @Test
+    public void purgeAppliesRetentionWindow()
+    {
+        index = newIndex(0, 30);
+        index.add(Arrays.asList(
+                row(1, "用户管理", null, null, null, -TimeUnit.DAYS.toMinutes(40)),
+                row(2, "用户管理", null, null, null, 0)));
+
+        index.purge(null);
+
+        assertEquals(1, index.getStatistics().get("documents"));
+        assertNotNull(index.getStatistics().get("coverageBegin"));
+        assertEquals(Collections.singletonList(2L), index.search("用户", null, null, time(-60), null, 0, 10).getOperIds());
+        assertNull(search("用户"));
+    }
+
+    @Test
+    public void maxDocumentsTrimsOldestLogs()
+    {
+        index = newIndex(2, 0);
+        index.add(Arrays.asList(
+                row(1, "用户管理", null, null, null, -30),
+                row(2, "用户管理", null, null, null, -20),
+                row(3, "用户管理", null, null, null, -10)));
+
+        assertEquals(1, index.getStatistics().get("deleted"));
+        // 移出的日志之后的时间仍完整收录
+        assertNull(search("用户"));
+        assertNull(index.search("用户", null, null, time(-30), null, 0, 10));
+        assertEquals(Arrays.asList(3L, 2L), index.search("用户", null, null, time(-29), null, 0, 10).getOperIds());
+    }
+
+    @Test
+    public void paramTermsAreCapped()
+    {
+        index = newIndex(0, 0);
+        ReflectionTestUtils.setField(index, "maxParamTerms", 2);
+        index.add(Collections.singletonList(row(1, "导出", null, null, "alpha beta gamma", 0)));
+
+        assertEquals(1, search("beta").getTotal());
+        assertEquals(0, search("gamma").getTotal());
+    }
+
+    private OperLogIndex newIndex(int maxDocuments, int days)
+    {
+        OperLogIndex operLogIndex = new OperLogIndex();
+        ReflectionTestUtils.setField(operLogIndex, "enabled", true);
+        ReflectionTestUtils.setField(operLogIndex, "rebuildBatch", 100);
+        ReflectionTestUtils.setField(operLogIndex, "days", days);
+        ReflectionTestUtils.setField(operLogIndex, "maxDocuments", maxDocuments);
+        ReflectionTestUtils.setField(operLogIndex, "maxParamTerms", 32);
+        ReflectionTestUtils.setField(operLogIndex, "operLogMapper", mapper);
+        return operLogIndex;
+    }
+
+    private OperLogIndex.Hits search(String text)
+    {
+        return index.search(text, null, null, null, null, 0, 10);
+    }
+
+    private List<OperLog> after(long operId, int limit)
+    {
+        List<OperLog> rows = new ArrayList<OperLog>();
+        for (OperLog row : table)
+        {
+            if (row.getOperId() > operId && rows.size() < limit)
+            {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private long minIdSince(Date beginTime)
+    {
+        long max = 0;
+        for (OperLog row : table)
+        {
+            if (!row.getOperTime().before(beginTime))
+            {
+                return row.getOperId();
+            }
+            max = row.getOperId();
+        }
+        return max + 1;
+    }
+
+    private static OperLog row(long id, String title, String operName, String operUrl, String operParam, long minutes)
+    {
+        OperLog operLog = new OperLog();
+        operLog.setOperId(id);
+        operLog.setTitle(title);
+        operLog.setOperName(operName);
+        operLog.setOperUrl(operUrl);
+        operLog.setOperParam(operParam);
+        operLog.setStatus(0);
+        operLog.setBusinessType(0);
+        operLog.setOperTime(time(minutes));
+        return operLog;
+    }
+
+    private static Date time(long minutes)
+    {
+        return new Date(NOW + TimeUnit.MINUTES.toMillis(minutes));
+    }
+}
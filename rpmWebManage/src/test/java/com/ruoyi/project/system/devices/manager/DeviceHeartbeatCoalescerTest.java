@@ -0,0 +1,55 @@
+package com.ruoyi.project.system.devices.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+import com.ruoyi.project.system.devices.mapper.RpmDevicesMapper;
+
+/**
+ * 设备心跳合并写入测试
+ *
+ * @author Lan
+ */
+public class DeviceHeartbeatCoalescerTest
+{
+    @Test
+    public void failedFlushIsRetriedWithoutCountingAgain()
+    {
+        RpmDevicesMapper mapper = mock(RpmDevicesMapper.class);
+        List<RpmDevices> written = new ArrayList<RpmDevices>();
+        when(mapper.updateRpmDevicesLastSeenBatch(anyList())).thenThrow(new IllegalStateException("连接已断开")).thenAnswer(invocation -> {
+            List<RpmDevices> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+        DeviceHeartbeatCoalescer coalescer = new DeviceHeartbeatCoalescer();
+        ReflectionTestUtils.setField(coalescer, "rpmDevicesMapper", mapper);
+
+        Date first = new Date(1000L);
+        Date second = new Date(2000L);
+        coalescer.touch(1L, first);
+        coalescer.touch(2L, second);
+        coalescer.flush();
+
+        Map<String, Object> stats = coalescer.getStatistics();
+        assertEquals(2L, stats.get("received"));
+        assertEquals(2, stats.get("queueDepth"));
+        assertEquals(0L, stats.get("flushedRows"));
+
+        coalescer.flush();
+
+        stats = coalescer.getStatistics();
+        assertEquals(2L, stats.get("received"));
+        assertEquals(0, stats.get("queueDepth"));
+        assertEquals(2L, stats.get("flushedRows"));
+        assertEquals(2, written.size());
+    }
+}
@@ -0,0 +1,153 @@
+package com.ruoyi.project.system.devices.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateLog;
+import com.ruoyi.project.system.devices.domain.RpmDeviceStateRollup;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+import com.ruoyi.project.system.devices.mapper.RpmDeviceStateMapper;
+
+/**
+ * 设备状态历史记录测试
+ *
+ * @author Lan
+ */
+public class DeviceStateRecorderTest
+{
+    private RpmDeviceStateMapper mapper;
+
+    private DeviceStateRecorder recorder;
+
+    private final List<RpmDeviceStateLog> logs = new ArrayList<RpmDeviceStateLog>();
+
+    private final List<RpmDeviceStateRollup> rollups = new ArrayList<RpmDeviceStateRollup>();
+
+    @BeforeEach
+    public void setUp()
+    {
+        mapper = mock(RpmDeviceStateMapper.class);
+        when(mapper.insertStateLogBatch(anyList())).thenAnswer(invocation -> {
+            List<RpmDeviceStateLog> list = invocation.getArgument(0);
+            logs.addAll(list);
+            return list.size();
+        });
+        when(mapper.upsertStateRollupBatch(anyList())).thenAnswer(invocation -> {
+            List<RpmDeviceStateRollup> list = invocation.getArgument(0);
+            rollups.addAll(list);
+            return list.size();
+        });
+        recorder = new DeviceStateRecorder();
+        ReflectionTestUtils.setField(recorder, "rpmDeviceStateMapper", mapper);
+    }
+
+    @Test
+    public void accrualCarriesSubSecondRemainder()
+    {
+        long start = DateUtils.truncate(new Date(), Calendar.HOUR_OF_DAY).getTime() + TimeUnit.MINUTES.toMillis(10);
+        recorder.onHeartbeat(device(1L, 1L, 1L), new Date(start));
+
+        // 每次只过1.5秒，逐次舍去不足一秒的部分会少计
+        for (int i = 1; i <= 10; i++)
+        {
+            recorder.flush(new Date(start + i * 1500L));
+        }
+
+        assertEquals(15, sum(RpmDeviceStateRollup.BUCKET_HOUR, true));
+        assertEquals(15, sum(RpmDeviceStateRollup.BUCKET_DAY, true));
+        assertEquals(0, sum(RpmDeviceStateRollup.BUCKET_HOUR, false));
+    }
+
+    @Test
+    public void accrualAcrossHourBoundaryKeepsWholeSeconds()
+    {
+        long hour = DateUtils.truncate(new Date(), Calendar.HOUR_OF_DAY).getTime();
+        recorder.onHeartbeat(device(1L, 1L, 0L), new Date(hour - 700));
+
+        recorder.flush(new Date(hour + 1600));
+
+        assertEquals(2, sum(RpmDeviceStateRollup.BUCKET_HOUR, true));
+        assertEquals(2, sum(RpmDeviceStateRollup.BUCKET_HOUR, false));
+    }
+
+    @Test
+    public void seededDevicesAccrueFromStartup()
+    {
+        recorder.seed(Collections.singletonList(device(1L, 1L, 0L)));
+
+        recorder.flush(new Date(System.currentTimeMillis() + 5000));
+
+        long online = sum(RpmDeviceStateRollup.BUCKET_DAY, true);
+        assertTrue(online >= 4 && online <= 5, "online seconds " + online);
+        assertEquals(online, sum(RpmDeviceStateRollup.BUCKET_DAY, false));
+        assertTrue(logs.isEmpty());
+    }
+
+    @Test
+    public void failedWritesAreRetried()
+    {
+        when(mapper.insertStateLogBatch(anyList())).thenThrow(new RuntimeException("db down")).thenAnswer(invocation -> {
+            List<RpmDeviceStateLog> list = invocation.getArgument(0);
+            logs.addAll(list);
+            return list.size();
+        });
+        when(mapper.upsertStateRollupBatch(anyList())).thenThrow(new RuntimeException("db down")).thenAnswer(invocation -> {
+            List<RpmDeviceStateRollup> list = invocation.getArgument(0);
+            rollups.addAll(list);
+            return list.size();
+        });
+        Date now = new Date();
+        recorder.onLockEvent(1L, now);
+
+        recorder.flush(now);
+        assertTrue(logs.isEmpty());
+        assertTrue(rollups.isEmpty());
+
+        recorder.onLockEvent(1L, now);
+        recorder.flush(now);
+        assertEquals(2, logs.size());
+        assertEquals(2, rollups.size());
+        for (RpmDeviceStateRollup rollup : rollups)
+        {
+            assertEquals(Long.valueOf(2), rollup.getLockCount());
+        }
+    }
+
+    /**
+     * 合计在线（online为true）或锁定时长
+     */
+    private long sum(String bucketType, boolean online)
+    {
+        long seconds = 0;
+        for (RpmDeviceStateRollup rollup : rollups)
+        {
+            if (bucketType.equals(rollup.getBucketType()))
+            {
+                seconds += online ? rollup.getOnlineSeconds() : rollup.getLockedSeconds();
+            }
+        }
+        return seconds;
+    }
+
+    private static RpmDevices device(Long id, Long status, Long deviceStatus)
+    {
+        RpmDevices device = new RpmDevices();
+        device.setId(id);
+        device.setDeviceToken("token-" + id);
+        device.setStatus(status);
+        device.setDeviceStatus(deviceStatus);
+        return device;
+    }
+}
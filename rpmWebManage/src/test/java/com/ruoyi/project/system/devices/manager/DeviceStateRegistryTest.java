@@ -0,0 +1,93 @@
+package com.ruoyi.project.system.devices.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.ruoyi.project.system.devices.domain.RpmDevices;
+
+/**
+ * 设备状态注册表测试
+ *
+ * @author Lan
+ */
+public class DeviceStateRegistryTest
+{
+    @Test
+    public void touchReplacesInsteadOfMutating()
+    {
+        DeviceStateRegistry registry = new DeviceStateRegistry();
+        RpmDevices device = device(1L, "token-1", 0L, new Date(1000));
+        registry.put(device);
+
+        Date now = new Date(5000);
+        RpmDevices previous = registry.touch("token-1", now);
+
+        assertSame(device, previous);
+        assertEquals(Long.valueOf(0L), device.getStatus());
+        assertEquals(new Date(1000), device.getLastSeen());
+        RpmDevices current = registry.peek("token-1");
+        assertNotSame(device, current);
+        assertEquals(Long.valueOf(1L), current.getStatus());
+        assertEquals(now, current.getLastSeen());
+    }
+
+    @Test
+    public void touchKeepsNewerLastSeen()
+    {
+        DeviceStateRegistry registry = new DeviceStateRegistry();
+        registry.put(device(1L, "token-1", 1L, new Date(9000)));
+
+        registry.touch("token-1", new Date(5000));
+
+        assertEquals(new Date(9000), registry.peek("token-1").getLastSeen());
+        assertNull(registry.touch("missing", new Date()));
+    }
+
+    @Test
+    public void snapshotIsDetached()
+    {
+        DeviceStateRegistry registry = new DeviceStateRegistry();
+        registry.put(device(1L, "token-1", 1L, new Date(1000)));
+
+        RpmDevices snapshot = registry.snapshot("token-1");
+        snapshot.setStatus(0L);
+        snapshot.setDeviceStatus(0L);
+
+        assertEquals(Long.valueOf(1L), registry.peek("token-1").getStatus());
+        assertEquals(Long.valueOf(1L), registry.peek("token-1").getDeviceStatus());
+    }
+
+    @Test
+    public void markOfflineReplacesExpiredDevices()
+    {
+        DeviceStateRegistry registry = new DeviceStateRegistry();
+        RpmDevices expired = device(1L, "token-1", 1L, new Date(1000));
+        registry.put(expired);
+        registry.put(device(2L, "token-2", 1L, new Date(9000)));
+
+        List<RpmDevices> offline = registry.markOffline(new Date(5000));
+
+        assertEquals(1, offline.size());
+        assertEquals(Long.valueOf(1L), offline.get(0).getId());
+        assertEquals(Long.valueOf(1L), expired.getStatus());
+        assertEquals(Long.valueOf(0L), registry.peek("token-1").getStatus());
+        assertEquals(Long.valueOf(1L), registry.peek("token-2").getStatus());
+        assertEquals(Collections.emptyList(), registry.markOffline(new Date(5000)));
+    }
+
+    private static RpmDevices device(Long id, String token, Long status, Date lastSeen)
+    {
+        RpmDevices device = new RpmDevices();
+        device.setId(id);
+        device.setDeviceToken(token);
+        device.setDeviceStatus(1L);
+        device.setStatus(status);
+        device.setLastSeen(lastSeen);
+        return device;
+    }
+}
@@ -0,0 +1,229 @@
+package com.ruoyi.project.system.lockevents.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.ruoyi.project.system.lockevents.domain.RpmLockevents;
+import com.ruoyi.project.system.lockevents.service.IRpmLockeventsService;
+import com.ruoyi.project.system.lockevents.service.impl.RpmLockeventsServiceImpl;
+
+/**
+ * 锁定信息写入队列测试
+ *
+ * @author Lan
+ */
+public class LockEventIngestQueueTest
+{
+    @TempDir
+    Path spillDir;
+
+    @Test
+    public void ackIdsAreWrittenInOrder() throws Exception
+    {
+        RecordingService service = new RecordingService();
+        LockEventIngestQueue queue = newQueue(service, 100000);
+        Map<RpmLockevents, Long> ackIds = Collections.synchronizedMap(new IdentityHashMap<RpmLockevents, Long>());
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++)
+        {
+            pool.execute(() -> {
+                await(ready);
+                for (int i = 0; i < perThread; i++)
+                {
+                    RpmLockevents event = event("device");
+                    ackIds.put(event, queue.offer(event));
+                }
+            });
+        }
+        ready.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        waitFor(() -> service.size() == threads * perThread);
+
+        long previous = 0;
+        for (RpmLockevents event : service.inserted())
+        {
+            long ackId = ackIds.get(event);
+            assertTrue(ackId > previous, "ackId " + ackId + " after " + previous);
+            previous = ackId;
+        }
+        waitFor(() -> flushedSequence(queue) == ackIds.values().stream().mapToLong(Long::longValue).max().getAsLong());
+        queue.drain();
+    }
+
+    @Test
+    public void failedBatchIsRetriedAndWatermarkWaits() throws Exception
+    {
+        RecordingService service = new RecordingService();
+        service.failures.set(2);
+        LockEventIngestQueue queue = newQueue(service, 100);
+        long before = flushedSequence(queue);
+
+        Long first = queue.offer(event("a"));
+        Long second = queue.offer(event("b"));
+        assertNotNull(first);
+        assertNotNull(second);
+        Thread.sleep(200);
+        assertEquals(before, flushedSequence(queue));
+
+        waitFor(() -> flushedSequence(queue) == second);
+        assertEquals(2, service.size());
+        assertEquals(2L, queue.getStatistics().get("retries"));
+        queue.drain();
+    }
+
+    @Test
+    public void invalidRowsGoToDeadFile() throws Exception
+    {
+        RecordingService service = new RecordingService();
+        LockEventIngestQueue queue = newQueue(service, 100);
+        queue.drain();
+        ReflectionTestUtils.setField(queue, "running", true);
+
+        queue.offer(event("ok-1"));
+        queue.offer(event(RecordingService.INVALID));
+        Long last = queue.offer(event("ok-2"));
+        queue.drain();
+
+        assertEquals(last.longValue(), flushedSequence(queue));
+        assertEquals(2, service.size());
+        List<String> dead = Files.readAllLines(spillDir.resolve("lockevent-dead.log"), StandardCharsets.UTF_8);
+        assertEquals(1, dead.size());
+        assertTrue(dead.get(0).contains(RecordingService.INVALID));
+    }
+
+    @Test
+    public void unwrittenEventsAreSpilledAndReplayed() throws Exception
+    {
+        RecordingService failing = new RecordingService();
+        failing.failures.set(Integer.MAX_VALUE);
+        LockEventIngestQueue queue = newQueue(failing, 100);
+        queue.offer(event("a"));
+        queue.offer(event("b"));
+        waitFor(() -> (Long) queue.getStatistics().get("retries") > 0);
+        queue.drain();
+        assertEquals(0, failing.size());
+        assertEquals(2, Files.readAllLines(spillDir.resolve("lockevent-spill.log"), StandardCharsets.UTF_8).size());
+
+        RecordingService service = new RecordingService();
+        LockEventIngestQueue restarted = newQueue(service, 100);
+        waitFor(() -> service.size() == 2);
+        assertEquals("a", service.inserted().get(0).getDeviceId());
+        assertEquals("b", service.inserted().get(1).getDeviceId());
+        assertTrue(!Files.exists(spillDir.resolve("lockevent-spill.log")));
+        restarted.drain();
+    }
+
+    private LockEventIngestQueue newQueue(IRpmLockeventsService service, int capacity)
+    {
+        LockEventIngestQueue queue = new LockEventIngestQueue();
+        ReflectionTestUtils.setField(queue, "capacity", capacity);
+        ReflectionTestUtils.setField(queue, "batchSize", 100);
+        ReflectionTestUtils.setField(queue, "flushInterval", 20L);
+        ReflectionTestUtils.setField(queue, "spillDir", spillDir.toString());
+        ReflectionTestUtils.setField(queue, "rpmLockeventsService", service);
+        queue.start();
+        return queue;
+    }
+
+    private static long flushedSequence(LockEventIngestQueue queue)
+    {
+        return (Long) queue.getStatistics().get("flushedSequence");
+    }
+
+    private static RpmLockevents event(String deviceId)
+    {
+        RpmLockevents event = new RpmLockevents();
+        event.setDeviceId(deviceId);
+        event.setLockCode("1");
+        return event;
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(20);
+        while (!condition.getAsBoolean())
+        {
+            if (System.currentTimeMillis() > deadline)
+            {
+                fail("condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 记录写入内容的锁定信息服务，可模拟写入失败和违反约束的行
+     */
+    private static class RecordingService extends RpmLockeventsServiceImpl
+    {
+        private static final String INVALID = "invalid";
+
+        private final List<RpmLockevents> inserted = new ArrayList<RpmLockevents>();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public synchronized int insertRpmLockeventsBatch(List<RpmLockevents> list)
+        {
+            if (failures.get() > 0)
+            {
+                failures.decrementAndGet();
+                throw new IllegalStateException("connection refused");
+            }
+            for (RpmLockevents event : list)
+            {
+                if (INVALID.equals(event.getDeviceId()))
+                {
+                    throw new DataIntegrityViolationException("Data too long for column 'device_id'");
+                }
+            }
+            inserted.addAll(list);
+            return list.size();
+        }
+
+        private synchronized int size()
+        {
+            return inserted.size();
+        }
+
+        private synchronized List<RpmLockevents> inserted()
+        {
+            return new ArrayList<RpmLockevents>(inserted);
+        }
+    }
+}